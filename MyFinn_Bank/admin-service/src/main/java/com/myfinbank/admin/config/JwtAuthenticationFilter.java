@@ -39,17 +39,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 System.out.println("[JWT Filter] Token found: " + (jwt != null ? "Yes" : "No"));
             }
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
+            String email = StringUtils.hasText(jwt) ? tokenProvider.getVerifiedEmail(jwt) : null;
+            if (email != null) {
                 System.out.println("[JWT Filter] Valid token for user: " + email);
 
                 UserDetails userDetails = adminService.loadUserByUsername(email);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (userDetails.isEnabled()) {
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                System.out.println("[JWT Filter] Authentication set successfully");
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    System.out.println("[JWT Filter] Authentication set successfully");
+                } else {
+                    System.out.println("[JWT Filter] Admin account is deactivated: " + email);
+                }
             } else if (StringUtils.hasText(jwt)) {
                 System.out.println("[JWT Filter] Invalid or expired token");
             }
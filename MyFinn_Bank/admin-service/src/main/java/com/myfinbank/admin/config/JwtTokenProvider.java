@@ -12,14 +12,19 @@ import java.util.Date;
 public class JwtTokenProvider {
 
     private final JwtConfig jwtConfig;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    // Built once - both are immutable and thread-safe
+    private final Key signingKey;
+    private final JwtParser parser;
     
-    public JwtTokenProvider(JwtConfig jwtConfig) {
+    public JwtTokenProvider(JwtConfig jwtConfig, VerifiedTokenCache verifiedTokenCache) {
         this.jwtConfig = jwtConfig;
-    }
-
-    private Key getSigningKey() {
-        // Create signing key from secret
-        return Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.signingKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     // Generate JWT token for authenticated admin
@@ -31,31 +36,43 @@ public class JwtTokenProvider {
                 .setSubject(email) // Admin email as subject
                 .setIssuedAt(new Date())
                 .setExpiration(expirationDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     // Extract email from JWT token
     public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return parser.parseClaimsJws(token).getBody().getSubject();
     }
 
     // Validate JWT token
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
+            parser.parseClaimsJws(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             // Token is invalid
             return false;
         }
     }
+
+    // Validate the token and return its email in one step, or null if the token is invalid.
+    // Tokens seen before are answered from the verified-token cache without re-parsing.
+    public String getVerifiedEmail(String token) {
+        String email = verifiedTokenCache.getPrincipal(token);
+        if (email != null) {
+            return email;
+        }
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            email = claims.getSubject();
+            if (email != null && claims.getExpiration() != null) {
+                verifiedTokenCache.put(token, email, claims.getExpiration().getTime());
+            }
+            return email;
+        } catch (JwtException | IllegalArgumentException e) {
+            // Token is invalid
+            return null;
+        }
+    }
 }
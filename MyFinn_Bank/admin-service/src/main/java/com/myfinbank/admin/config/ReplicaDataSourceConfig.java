@@ -0,0 +1,63 @@
+package com.myfinbank.admin.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+// Read/write split across a MySQL primary and one replica. Only active with replica.enabled=true;
+// otherwise Spring Boot's single spring.datasource pool is used as before. Both pools report
+// hikaricp.* metrics tagged pool=primary|replica.
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties primaryProperties,
+                                                             @Value("${replica.url}") String url,
+                                                             @Value("${replica.username:${spring.datasource.username:}}") String username,
+                                                             @Value("${replica.password:${spring.datasource.password:}}") String password,
+                                                             @Value("${replica.driver-class-name:}") String driverClassName,
+                                                             @Value("${replica.maximum-pool-size:10}") int maximumPoolSize,
+                                                             @Value("${replica.max-lag:5s}") Duration maxLag,
+                                                             @Value("${replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                                             MeterRegistry meterRegistry) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        primary.setMetricRegistry(meterRegistry);
+
+        // The driver is worked out from the URL unless given, so a local replica can be a different database
+        DataSourceBuilder<HikariDataSource> replicaBuilder = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password);
+        if (!driverClassName.isBlank()) {
+            replicaBuilder.driverClassName(driverClassName);
+        }
+        HikariDataSource replica = replicaBuilder.build();
+        replica.setPoolName(ReplicaRoutingDataSource.REPLICA);
+        replica.setMaximumPoolSize(maximumPoolSize);
+        replica.setReadOnly(true);
+        replica.setMetricRegistry(meterRegistry);
+
+        return new ReplicaRoutingDataSource(primary, replica, maxLag, lagQuery, meterRegistry);
+    }
+
+    // The DataSource JPA and JdbcTemplate use. The lazy proxy defers fetching a real connection
+    // to the first statement, by which time the transaction's read-only flag has been set.
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,169 @@
+package com.myfinbank.admin.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+
+// Sends connections for @Transactional(readOnly = true) work to the replica pool and everything
+// else to the primary. The replica's lag is polled; while it is too far behind, has stopped
+// replicating or cannot be reached, read-only work falls back to the primary. Must sit behind a
+// LazyConnectionDataSourceProxy so the pool is picked at the first statement, once the
+// transaction's read-only flag is known.
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    // Lag columns of SHOW REPLICA STATUS (MySQL 8.0.22+) and SHOW SLAVE STATUS (older servers)
+    private static final String[] LAG_COLUMNS = {"Seconds_Behind_Source", "Seconds_Behind_Master"};
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final String lagQuery;
+
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = Double.NaN; // NaN until measured or while replication is broken
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    DataSource replica,
+                                    Duration maxLag,
+                                    String lagQuery,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery != null ? lagQuery.trim() : "";
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+
+        this.primaryConnections = connectionCounter(meterRegistry, PRIMARY);
+        this.replicaConnections = connectionCounter(meterRegistry, REPLICA);
+        this.fallbacks = Counter.builder("datasource.replica.fallbacks")
+                .description("Read-only connections sent to the primary because the replica was lagging or down")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.lag", this, ReplicaRoutingDataSource::getLagSeconds)
+                .description("Seconds the replica was behind the primary at the last check")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, routing -> routing.isReplicaUsable() ? 1 : 0)
+                .description("1 while read-only work is routed to the replica")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        // Measure once up front so reads do not wait a full interval before using the replica
+        checkReplica();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryConnections.increment();
+            return PRIMARY;
+        }
+        if (replicaUsable) {
+            replicaConnections.increment();
+            return REPLICA;
+        }
+        fallbacks.increment();
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+
+    @Scheduled(fixedDelayString = "${replica.check-interval:5000}")
+    public void checkReplica() {
+        Double lag;
+        try {
+            lag = queryLagSeconds();
+        } catch (Exception e) {
+            log.warn("Replica lag check failed: {}", e.getMessage());
+            lag = null;
+        }
+        boolean usable = lag != null && lag * 1000 <= maxLagMillis;
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica caught up (lag {}s) - routing read-only work to it", lag);
+            } else {
+                log.warn("Replica unusable (lag {}s) - routing read-only work to the primary", lag);
+            }
+        }
+        lagSeconds = lag != null ? lag : Double.NaN;
+        replicaUsable = usable;
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public double getLagSeconds() {
+        return lagSeconds;
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource pool : new DataSource[]{replica, primary}) {
+            if (pool instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // Seconds behind the primary, or null when the replica is not replicating. A blank lag query only
+    // checks the connection, for local setups where the "replica" is a second standalone database.
+    private Double queryLagSeconds() throws SQLException {
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery.isEmpty()) {
+                return connection.isValid(2) ? 0.0 : null;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                if (!rs.next()) {
+                    // No replication channel configured - the data is not being kept current
+                    return null;
+                }
+                String value = rs.getString(lagColumn(rs.getMetaData()));
+                return value != null ? Double.valueOf(value) : null;
+            }
+        }
+    }
+
+    private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            for (String name : LAG_COLUMNS) {
+                if (name.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    return i;
+                }
+            }
+        }
+        // A custom lag query, e.g. against a heartbeat table, returns the lag as its first column
+        return 1;
+    }
+
+    private static Counter connectionCounter(MeterRegistry meterRegistry, String pool) {
+        return Counter.builder("datasource.routing.connections")
+                .description("Connections handed out per pool by the read/write router")
+                .tag("pool", pool)
+                .register(meterRegistry);
+    }
+}
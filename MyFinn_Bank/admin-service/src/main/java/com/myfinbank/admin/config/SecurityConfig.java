@@ -1,5 +1,6 @@
 package com.myfinbank.admin.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -41,6 +42,8 @@ public class SecurityConfig {
             .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             .and()
             .authorizeHttpRequests()
+            // Async dispatches (SSE and streamed responses) were already authorized on the original request
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
             // Public endpoints
             .requestMatchers("/", "/index", "/home", "/login", "/register").permitAll()
             .requestMatchers("/css/**", "/js/**", "/images/**").permitAll()
@@ -0,0 +1,84 @@
+package com.myfinbank.admin.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Remembers tokens whose signature has already been verified, so repeat requests with the
+// same token skip parsing and HMAC verification. Keyed by a SHA-256 of the token (the raw
+// token is never kept), bounded LRU, and each entry dies at the token's own expiry.
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final Counter hits;
+    private final Counter misses;
+
+    // Access-ordered so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<String, Entry> entries;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.verified-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.hits = Counter.builder("jwt.verified.cache.hits")
+                .description("Requests authenticated from an already verified token")
+                .register(meterRegistry);
+        this.misses = Counter.builder("jwt.verified.cache.misses")
+                .description("Requests whose token had to be parsed and verified")
+                .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    // Email of the admin the token was issued to, or null if the token is not cached or has expired
+    public String getPrincipal(String token) {
+        String key = hash(token);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAtMillis > System.currentTimeMillis()) {
+                hits.increment();
+                return entry.email;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(String token, String email, long expiresAtMillis) {
+        String key = hash(token);
+        synchronized (this) {
+            entries.put(key, new Entry(email, expiresAtMillis));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(String email, long expiresAtMillis) {
+    }
+}
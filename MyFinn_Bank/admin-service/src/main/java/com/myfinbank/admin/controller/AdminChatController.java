@@ -1,27 +1,35 @@
 package com.myfinbank.admin.controller;
 
 import com.myfinbank.admin.dto.ChatMessageDTO;
+import com.myfinbank.admin.dto.ConversationSummaryDTO;
 import com.myfinbank.admin.service.AdminChatService;
+import com.myfinbank.admin.service.ChatEventHub;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Controller
 @RequestMapping("/admin/chat")
+@Slf4j
 public class AdminChatController {
 
     private final AdminChatService chatService;
+    private final ChatEventHub chatEventHub;
 
     // Constructor injection
-    public AdminChatController(AdminChatService chatService) {
+    public AdminChatController(AdminChatService chatService, ChatEventHub chatEventHub) {
         this.chatService = chatService;
+        this.chatEventHub = chatEventHub;
     }
 
     // FIXED: Admin chat page - now loads data
@@ -63,6 +71,43 @@ public class AdminChatController {
         }
     }
 
+    // API: Get a slice of a conversation - afterId for new messages, beforeId to page back, neither for the latest page
+    @GetMapping("/api/conversation/{customerId}/messages")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getConversationMessages(@PathVariable Long customerId,
+                                                                       @RequestParam(required = false) Long afterId,
+                                                                       @RequestParam(required = false) Long beforeId,
+                                                                       @RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<ChatMessageDTO> messages = afterId != null
+                    ? chatService.getConversationSince(customerId, afterId, limit)
+                    : chatService.getConversationBefore(customerId, beforeId, limit);
+
+            // Only new messages can be unread, so there is nothing to mark when paging back
+            if (beforeId == null) {
+                chatService.markConversationAsRead(customerId);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("messages", messages);
+            response.put("oldestId", messages.isEmpty() ? beforeId : messages.get(0).getId());
+            response.put("newestId", messages.isEmpty() ? afterId : messages.get(messages.size() - 1).getId());
+            // A full page when paging back means there may be older history
+            response.put("hasOlder", afterId == null && messages.size() >= Math.min(limit, AdminChatService.MAX_CONVERSATION_PAGE_SIZE));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to load conversation messages");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // API: Server-sent event stream of chat activity - one conversation, or all of them without customerId
+    @GetMapping(value = "/api/stream", produces = "text/event-stream")
+    public SseEmitter streamChatEvents(@RequestParam(required = false) Long customerId) {
+        return chatEventHub.subscribe(customerId);
+    }
+
     // API: Send message from admin to customer
     @PostMapping("/api/send")
     @ResponseBody
@@ -117,11 +162,12 @@ public class AdminChatController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> markConversationRead(@PathVariable Long customerId) {
         try {
-            chatService.markConversationAsRead(customerId);
+            int markedCount = chatService.markConversationAsRead(customerId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Conversation marked as read");
+            response.put("markedCount", markedCount);
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -132,17 +178,47 @@ public class AdminChatController {
         }
     }
 
-    // API: Get conversation summary for admin dashboard
+    // API: Get conversation summary for admin dashboard - most recent conversations keyed by customer
     @GetMapping("/api/summary")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getConversationSummary() {
+    public ResponseEntity<Map<String, Object>> getConversationSummary(@RequestParam(defaultValue = "50") int limit) {
         try {
-            Map<Long, ChatMessageDTO> summary = chatService.getConversationSummary();
+            Map<Long, ConversationSummaryDTO> summary = new LinkedHashMap<>();
+            for (ConversationSummaryDTO conversation : chatService.getConversationSummary(null, limit)) {
+                summary.put(conversation.getCustomerId(), conversation);
+            }
             return ResponseEntity.ok(Map.of("summary", summary));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    // API: One page of the inbox - latest message and unread count per customer, newest first
+    @GetMapping("/api/conversations")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getConversations(@RequestParam(required = false) Long before,
+                                                                @RequestParam(defaultValue = "50") int limit) {
+        try {
+            int pageSize = Math.max(1, Math.min(limit, AdminChatService.MAX_CONVERSATION_PAGE_SIZE - 1));
+            // Fetch one extra row to know whether another page exists
+            List<ConversationSummaryDTO> conversations = chatService.getConversationSummary(before, pageSize + 1);
+            boolean hasMore = conversations.size() > pageSize;
+            if (hasMore) {
+                conversations = conversations.subList(0, pageSize);
+            }
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("conversations", conversations);
+            response.put("hasMore", hasMore);
+            response.put("nextCursor", hasMore ? conversations.get(conversations.size() - 1).getLastMessageId() : null);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("Error loading conversations", e);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Failed to load conversations");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
     
     // API: Get recent messages for chat sidebar
     @GetMapping("/api/recent-messages")
@@ -6,20 +6,14 @@ import com.myfinbank.admin.dto.LoanApprovalDTO;
 import com.myfinbank.admin.dto.ChatMessageDTO;
 import com.myfinbank.admin.service.AdminChatService;
 import com.myfinbank.admin.service.CustomerManagementService;
+import com.myfinbank.admin.service.DashboardStatsCache;
 import com.myfinbank.admin.service.LoanApprovalService;
-import com.myfinbank.admin.repository.CustomerDataRepository;
-import com.myfinbank.admin.repository.LoanApplicationRepository;
-import com.myfinbank.admin.repository.ChatMessageRepository;
-import com.myfinbank.admin.entity.LoanApplication;
-import com.myfinbank.admin.entity.ChatMessage;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
@@ -29,20 +23,17 @@ import java.util.stream.Collectors;
 @RequestMapping("/admin")
 public class AdminDashboardController {
 
-    private final CustomerDataRepository customerDataRepository;
-    private final LoanApplicationRepository loanApplicationRepository;
+    private final DashboardStatsCache dashboardStatsCache;
     private final AdminChatService chatService;
     private final CustomerManagementService customerService;
     private final LoanApprovalService loanService;
 
     // Constructor injection
-    public AdminDashboardController(CustomerDataRepository customerDataRepository,
-                                  LoanApplicationRepository loanApplicationRepository,
+    public AdminDashboardController(DashboardStatsCache dashboardStatsCache,
                                   AdminChatService chatService,
                                   CustomerManagementService customerService,
                                   LoanApprovalService loanService) {
-        this.customerDataRepository = customerDataRepository;
-        this.loanApplicationRepository = loanApplicationRepository;
+        this.dashboardStatsCache = dashboardStatsCache;
         this.chatService = chatService;
         this.customerService = customerService;
         this.loanService = loanService;
@@ -54,38 +45,20 @@ public class AdminDashboardController {
         try {
             System.out.println("=== Dashboard Data Loading Started ===");
             
-            // Fetch all required statistics
-            System.out.println("Fetching customers...");
-            long totalCustomers = customerDataRepository.findAll().size();
-            System.out.println("Total customers found: " + totalCustomers);
-            
-            long activeCustomers = customerDataRepository.countActiveCustomers();
-            System.out.println("Active customers found: " + activeCustomers);
-            
-            // Count loans by status
-            System.out.println("Fetching loans...");
-            long pendingLoans = loanApplicationRepository.countByStatus(LoanApplication.LoanStatus.PENDING);
-            System.out.println("Pending loans found: " + pendingLoans);
-            
-            long approvedLoans = loanApplicationRepository.countByStatus(LoanApplication.LoanStatus.APPROVED);
-            System.out.println("Approved loans found: " + approvedLoans);
-            
-            // Calculate total loan amount
-            BigDecimal totalLoanAmount = loanApplicationRepository.sumLoanAmountByStatus(LoanApplication.LoanStatus.APPROVED);
-            if (totalLoanAmount == null) {
-                totalLoanAmount = BigDecimal.ZERO;
-            }
-            
-            // Count unread messages
-            System.out.println("Fetching chat messages...");
-            long unreadMessages = chatService.getUnreadMessageCount();
-            System.out.println("Unread messages found: " + unreadMessages);
+            // Fetch all required statistics (cached, reconciled with the database on TTL)
+            System.out.println("Fetching dashboard statistics...");
+            DashboardStatsDTO stats = dashboardStatsCache.getStats();
+            long totalCustomers = stats.getTotalCustomers();
+            long activeCustomers = stats.getActiveCustomers();
+            long pendingLoans = stats.getPendingLoanApplications();
+            long approvedLoans = stats.getApprovedLoans();
+            BigDecimal totalLoanAmount = stats.getTotalLoanAmount();
+            long unreadMessages = stats.getUnreadMessages();
             
             // Get recent data (limit to 5 items)
             List<CustomerDTO> recentCustomers = customerService.getRecentCustomers()
                     .stream().limit(5).collect(Collectors.toList());
-            List<LoanApprovalDTO> recentLoans = loanService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING)
-                    .stream().limit(5).collect(Collectors.toList());
+            List<LoanApprovalDTO> recentLoans = loanService.getPendingLoanApplications(null, 5).getLoans();
             List<ChatMessageDTO> recentMessages = chatService.getRecentMessages(5);
             
             // Add all data to model for Thymeleaf template
@@ -137,32 +110,7 @@ public class AdminDashboardController {
         DashboardStatsDTO stats = new DashboardStatsDTO();
 
         try {
-            // Get customer statistics
-            stats.setTotalCustomers((long) customerDataRepository.findAll().size());
-            stats.setActiveCustomers(customerDataRepository.countActiveCustomers());
-
-            // Get loan statistics
-            stats.setPendingLoanApplications(
-                loanApplicationRepository.countByStatus(LoanApplication.LoanStatus.PENDING)
-            );
-            stats.setApprovedLoans(
-                loanApplicationRepository.countByStatus(LoanApplication.LoanStatus.APPROVED)
-            );
-            stats.setTotalLoanAmount(
-                loanApplicationRepository.sumLoanAmountByStatus(LoanApplication.LoanStatus.APPROVED)
-            );
-
-            // Get chat statistics
-            stats.setUnreadMessages(chatService.getUnreadMessageCount());
-
-            // Get today's statistics
-            LocalDateTime startOfDay = LocalDate.now().atStartOfDay();
-            stats.setNewCustomersToday(
-                customerDataRepository.countCustomersCreatedAfter(startOfDay)
-            );
-            stats.setNewLoansToday(
-                loanApplicationRepository.countLoansCreatedAfter(startOfDay)
-            );
+            stats = dashboardStatsCache.getStats();
         } catch (Exception e) {
             System.err.println("Error fetching dashboard stats: " + e.getMessage());
         }
@@ -181,8 +129,7 @@ public class AdminDashboardController {
             activities.put("recentCustomers", customerService.getRecentCustomers());
 
             // Recent loan applications
-            activities.put("recentLoans", loanService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING)
-                    .stream().limit(5).collect(Collectors.toList()));
+            activities.put("recentLoans", loanService.getPendingLoanApplications(null, 5).getLoans());
 
             // Recent chat messages
             activities.put("recentMessages", chatService.getRecentMessages(5));
@@ -1,28 +1,40 @@
 package com.myfinbank.admin.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.dto.CustomerPageDTO;
+import com.myfinbank.admin.dto.TransactionPageDTO;
 import com.myfinbank.admin.service.CustomerManagementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Controller
 @RequestMapping("/admin/customers")
+@Slf4j
 @Tag(name = "Customer Management", description = "Customer management and administration APIs")
 public class CustomerManagementController {
 
     private final CustomerManagementService customerService;
+    private final ObjectMapper objectMapper;
 
     // Constructor injection
-    public CustomerManagementController(CustomerManagementService customerService) {
+    public CustomerManagementController(CustomerManagementService customerService, ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.objectMapper = objectMapper;
     }
 
     // FIXED: Customer management page - now loads data
@@ -115,10 +127,46 @@ public class CustomerManagementController {
         }
     }
 
-    // API: Search customers by keyword (name or email)
+    // API: Get customers one keyset page at a time
+    @GetMapping("/api/page")
+    @ResponseBody
+    @Operation(summary = "Get customers page", description = "Retrieve customers newest first using an opaque cursor from the previous page")
+    public ResponseEntity<CustomerPageDTO> getCustomersPage(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "50") int size,
+                                                            @RequestParam(defaultValue = "false") boolean activeOnly) {
+        try {
+            CustomerPageDTO page = customerService.getCustomersPage(cursor, size, activeOnly);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // API: Stream all customers as a JSON array without buffering the full list
+    @GetMapping("/api/export")
+    @ResponseBody
+    @Operation(summary = "Export customers", description = "Stream every customer as a JSON array")
+    public ResponseEntity<StreamingResponseBody> exportCustomers(@RequestParam(defaultValue = "false") boolean activeOnly) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                customerService.exportCustomers(activeOnly, customer -> {
+                    try {
+                        generator.writeObject(customer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // API: Search customers by keyword (name, email or phone)
     @GetMapping("/api/search")
     @ResponseBody
-    @Operation(summary = "Search customers", description = "Search customers by name or email")
+    @Operation(summary = "Search customers", description = "Search customers by name, email or phone; returns the best matches first")
     public ResponseEntity<List<CustomerDTO>> searchCustomers(@RequestParam String keyword) {
         try {
             List<CustomerDTO> customers = customerService.searchCustomers(keyword);
@@ -210,25 +258,27 @@ public class CustomerManagementController {
         }
     }
 
-    // API: Get customer transactions
+    // API: Get one page of customer transactions, newest first
     @GetMapping("/api/{customerId}/transactions")
     @ResponseBody
-    @Operation(summary = "Get customer transactions", description = "Retrieve transaction history for a specific customer")
-    public ResponseEntity<Map<String, Object>> getCustomerTransactions(@PathVariable Long customerId) {
+    @Operation(summary = "Get customer transactions", description = "Retrieve one cursor-paginated page of transaction history for a specific customer")
+    public ResponseEntity<Map<String, Object>> getCustomerTransactions(@PathVariable Long customerId,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(defaultValue = "50") int size) {
         try {
-            System.out.println("Fetching transactions for customer ID: " + customerId);
-            List<Map<String, Object>> transactions = customerService.getCustomerTransactions(customerId);
-            System.out.println("Found " + transactions.size() + " transactions");
-            
+            TransactionPageDTO page = customerService.getCustomerTransactions(customerId, cursor, size);
+            log.debug("Found {} transactions for customer {}", page.getTransactions().size(), customerId);
+
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("transactions", transactions);
-            response.put("count", transactions.size());
+            response.put("transactions", page.getTransactions());
+            response.put("count", page.getTransactions().size());
+            response.put("hasMore", page.getHasMore());
+            response.put("nextCursor", page.getNextCursor());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             System.err.println("Error in getCustomerTransactions: " + e.getMessage());
-            e.printStackTrace();
-            
+
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("success", false);
             errorResponse.put("error", "Failed to fetch transactions: " + e.getMessage());
@@ -1,10 +1,15 @@
 package com.myfinbank.admin.controller;
 
 import com.myfinbank.admin.dto.LoanApprovalDTO;
+import com.myfinbank.admin.dto.LoanBulkDecisionDTO;
+import com.myfinbank.admin.dto.LoanBulkDecisionRequestDTO;
+import com.myfinbank.admin.dto.LoanPageDTO;
+import com.myfinbank.admin.service.AdminService;
 import com.myfinbank.admin.service.LoanApprovalService;
 import com.myfinbank.admin.entity.LoanApplication;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,20 +24,23 @@ import java.util.Map;
 @Controller
 @RequestMapping("/admin/loans")
 @Tag(name = "Loan Management", description = "Loan approval and management APIs")
+@Slf4j
 public class LoanApprovalController {
 
     private final LoanApprovalService loanService;
+    private final AdminService adminService;
 
     // Constructor injection
-    public LoanApprovalController(LoanApprovalService loanService) {
+    public LoanApprovalController(LoanApprovalService loanService, AdminService adminService) {
         this.loanService = loanService;
+        this.adminService = adminService;
     }
 
     // FIXED: Loan approval page - now loads data
     @GetMapping("")
     public String loansPage(Model model) {
         try {
-            List<LoanApprovalDTO> loans = loanService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING);
+            List<LoanApprovalDTO> loans = loanService.getPendingLoanApplications(null, 100).getLoans();
             model.addAttribute("loans", loans);
             System.out.println("Loaded " + loans.size() + " loans");
         } catch (Exception e) {
@@ -71,6 +79,34 @@ public class LoanApprovalController {
         }
     }
 
+    // API: Get one page of pending loan applications, oldest first
+    @GetMapping("/api/pending/page")
+    @ResponseBody
+    @Operation(summary = "Get pending loans page", description = "Retrieve one keyset-paginated page of pending loan applications")
+    public ResponseEntity<LoanPageDTO> getPendingLoansPage(@RequestParam(required = false) Long after,
+                                                           @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(loanService.getPendingLoanApplications(after, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // API: Get one page of loans with a status, in application order
+    @GetMapping("/api/status/{status}/page")
+    @ResponseBody
+    @Operation(summary = "Get loans page by status", description = "Retrieve one keyset-paginated page of loans filtered by status")
+    public ResponseEntity<LoanPageDTO> getLoansPageByStatus(@PathVariable String status,
+                                                            @RequestParam(required = false) Long after,
+                                                            @RequestParam(defaultValue = "50") int size) {
+        try {
+            LoanApplication.LoanStatus loanStatus = LoanApplication.LoanStatus.valueOf(status.toUpperCase());
+            return ResponseEntity.ok(loanService.getLoanApplicationsByStatus(loanStatus, after, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     // API: Get loans by status
     @GetMapping("/api/status/{status}")
     @ResponseBody
@@ -164,15 +200,15 @@ public class LoanApprovalController {
     @Operation(summary = "Get loan statistics", description = "Retrieve loan statistics for admin dashboard")
     public ResponseEntity<Map<String, Object>> getLoanStats() {
         try {
-            List<LoanApprovalDTO> pendingLoans = loanService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING);
-            List<LoanApprovalDTO> approvedLoans = loanService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.APPROVED);
-            List<LoanApprovalDTO> rejectedLoans = loanService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.REJECTED);
+            long pendingLoans = loanService.countByStatus(LoanApplication.LoanStatus.PENDING);
+            long approvedLoans = loanService.countByStatus(LoanApplication.LoanStatus.APPROVED);
+            long rejectedLoans = loanService.countByStatus(LoanApplication.LoanStatus.REJECTED);
 
             Map<String, Object> stats = new HashMap<>();
-            stats.put("pendingLoans", pendingLoans.size());
-            stats.put("approvedLoans", approvedLoans.size());
-            stats.put("rejectedLoans", rejectedLoans.size());
-            stats.put("totalApplications", pendingLoans.size() + approvedLoans.size() + rejectedLoans.size());
+            stats.put("pendingLoans", pendingLoans);
+            stats.put("approvedLoans", approvedLoans);
+            stats.put("rejectedLoans", rejectedLoans);
+            stats.put("totalApplications", pendingLoans + approvedLoans + rejectedLoans);
 
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
@@ -180,41 +216,57 @@ public class LoanApprovalController {
         }
     }
 
-    // API: Process multiple loans (batch approval/rejection)
+    // API: Approve or reject many pending loans in one transaction, with a result per loan
+    @PostMapping("/api/bulk-decision")
+    @ResponseBody
+    @Operation(summary = "Bulk loan decision", description = "Approve or reject a list of pending loans with one batched update")
+    public ResponseEntity<Map<String, Object>> bulkDecision(@RequestBody LoanBulkDecisionRequestDTO request) {
+        try {
+            Long adminId = currentAdminId();
+            LoanApplication.LoanStatus decision = parseDecision(request.getDecision());
+            String remarks = request.getRemarks() != null ? request.getRemarks()
+                    : (decision == LoanApplication.LoanStatus.APPROVED ? "Loan approved by admin" : "Loan rejected by admin");
+
+            LoanBulkDecisionDTO result = loanService.decideLoans(request.getLoanIds(), decision, adminId, remarks);
+            log.info("Bulk {} by admin {}: {} of {} loans decided",
+                    result.getDecision(), adminId, result.getSucceeded(), result.getRequested());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("result", result);
+            response.put("message", String.format("Processed %d loans successfully, %d failed", result.getSucceeded(), result.getFailed()));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("error", "Bulk decision failed: " + e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    // API: Process multiple loans (batch approval/rejection) - kept for existing clients, backed by the bulk decision
     @PostMapping("/api/batch-process")
     @ResponseBody
     @Operation(summary = "Batch process loans", description = "Process multiple loans in batch")
     public ResponseEntity<Map<String, Object>> batchProcessLoans(@RequestBody Map<String, Object> request) {
         try {
-            // Get current authenticated admin ID
-            Long adminId = 1L; // TODO: Get actual admin ID
+            Long adminId = currentAdminId();
 
-            @SuppressWarnings("unchecked")
-            List<Long> loanIds = (List<Long>) request.get("loanIds");
+            // JSON numbers arrive as Integer or Long depending on size
+            List<Long> loanIds = ((List<?>) request.get("loanIds")).stream()
+                    .map(id -> ((Number) id).longValue())
+                    .toList();
             String action = request.get("action").toString(); // "approve" or "reject"
             String remarks = request.getOrDefault("remarks", "").toString();
 
-            Map<String, Object> response = new HashMap<>();
-            int successCount = 0;
-            int errorCount = 0;
-
-            for (Long loanId : loanIds) {
-                try {
-                    if ("approve".equals(action)) {
-                        loanService.approveLoan(loanId, adminId, remarks);
-                    } else if ("reject".equals(action)) {
-                        loanService.rejectLoan(loanId, adminId, remarks);
-                    }
-                    successCount++;
-                } catch (Exception e) {
-                    errorCount++;
-                }
-            }
+            LoanBulkDecisionDTO result = loanService.decideLoans(loanIds, parseDecision(action), adminId, remarks);
 
+            Map<String, Object> response = new HashMap<>();
             response.put("success", true);
-            response.put("message", String.format("Processed %d loans successfully, %d failed", successCount, errorCount));
-            response.put("successCount", successCount);
-            response.put("errorCount", errorCount);
+            response.put("message", String.format("Processed %d loans successfully, %d failed", result.getSucceeded(), result.getFailed()));
+            response.put("successCount", result.getSucceeded());
+            response.put("errorCount", result.getFailed());
+            response.put("results", result.getResults());
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -224,4 +276,22 @@ public class LoanApprovalController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
     }
+
+    // The JWT filter authenticates admins by email
+    private Long currentAdminId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return adminService.findByEmail(authentication.getName()).getAdminId();
+    }
+
+    // Accepts approve/approved and reject/rejected in any case
+    private LoanApplication.LoanStatus parseDecision(String decision) {
+        if (decision == null) {
+            throw new IllegalArgumentException("Decision is required");
+        }
+        return switch (decision.trim().toUpperCase()) {
+            case "APPROVE", "APPROVED" -> LoanApplication.LoanStatus.APPROVED;
+            case "REJECT", "REJECTED" -> LoanApplication.LoanStatus.REJECTED;
+            default -> throw new IllegalArgumentException("Unknown decision: " + decision);
+        };
+    }
 }
@@ -1,13 +1,18 @@
 package com.myfinbank.admin.controller;
 
-import com.myfinbank.admin.service.CustomerManagementService;
-import com.myfinbank.admin.service.LoanApprovalService;
+import com.myfinbank.admin.dto.MonthlyReportDTO;
+import com.myfinbank.admin.service.ReportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -15,10 +20,7 @@ import java.util.Map;
 public class ReportsController {
 
     @Autowired
-    private CustomerManagementService customerService;
-
-    @Autowired
-    private LoanApprovalService loanService;
+    private ReportService reportService;
 
     // Reports page
     @GetMapping("")
@@ -32,27 +34,7 @@ public class ReportsController {
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getDashboardStats() {
         try {
-            Map<String, Object> stats = new HashMap<>();
-            
-            // Customer statistics
-            stats.put("totalCustomers", customerService.getAllCustomers().size());
-            stats.put("activeCustomers", customerService.getActiveCustomers().size());
-            
-            // Loan statistics
-            stats.put("pendingLoans", loanService.getPendingLoanApplications().size());
-            
-            // Get approved loans count using the available method
-            int approvedCount = loanService.getLoanApplicationsByStatus(
-                com.myfinbank.admin.entity.LoanApplication.LoanStatus.APPROVED).size();
-            stats.put("approvedLoans", approvedCount);
-            
-            // Calculate total loans (pending + approved + rejected)
-            int rejectedCount = loanService.getLoanApplicationsByStatus(
-                com.myfinbank.admin.entity.LoanApplication.LoanStatus.REJECTED).size();
-            stats.put("totalLoans", loanService.getPendingLoanApplications().size() + approvedCount + rejectedCount);
-            
-            return ResponseEntity.ok(stats);
-            
+            return ResponseEntity.ok(reportService.getReportSummary());
         } catch (Exception e) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "Failed to fetch dashboard statistics");
@@ -60,18 +42,16 @@ public class ReportsController {
         }
     }
 
-    // API: Get monthly report data
+    // API: Get monthly report data - customer, loan and transaction figures per month
     @GetMapping("/api/monthly")
     @ResponseBody
-    public ResponseEntity<Map<String, Object>> getMonthlyReports() {
+    public ResponseEntity<Map<String, Object>> getMonthlyReports(@RequestParam(defaultValue = "12") int months) {
         try {
+            List<MonthlyReportDTO> monthly = reportService.getMonthlyReport(months);
+
             Map<String, Object> monthlyData = new HashMap<>();
-            
-            // For now, return placeholder data
-            // In a real implementation, you'd query the database for monthly statistics
-            monthlyData.put("message", "Monthly reports functionality coming soon");
+            monthlyData.put("months", monthly);
             monthlyData.put("currentMonth", java.time.LocalDate.now().getMonth().toString());
-            
             return ResponseEntity.ok(monthlyData);
             
         } catch (Exception e) {
@@ -81,23 +61,20 @@ public class ReportsController {
         }
     }
 
-    // API: Export report data
+    // API: Export report data as CSV (type: monthly, customers, loans or transactions), streamed row by row
     @GetMapping("/api/export")
-    @ResponseBody
-    public ResponseEntity<Map<String, Object>> exportReports(@RequestParam(required = false) String type) {
-        try {
-            Map<String, Object> exportData = new HashMap<>();
-            
-            exportData.put("message", "Export functionality coming soon");
-            exportData.put("exportType", type != null ? type : "all");
-            exportData.put("timestamp", java.time.LocalDateTime.now().toString());
-            
-            return ResponseEntity.ok(exportData);
-            
-        } catch (Exception e) {
+    public ResponseEntity<?> exportReports(@RequestParam(defaultValue = "monthly") String type) {
+        if (!reportService.isExportType(type)) {
             Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Failed to export reports");
+            errorResponse.put("error", "Unknown export type: " + type);
             return ResponseEntity.badRequest().body(errorResponse);
         }
+
+        String filename = type + "_report_" + java.time.LocalDate.now() + ".csv";
+        StreamingResponseBody body = outputStream -> reportService.exportCsv(type, outputStream);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
     }
 }
@@ -0,0 +1,14 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatEventDTO {
+    private String type; // MESSAGE, READ or RESYNC
+    private Long customerId;
+    private ChatMessageDTO message; // Only set for MESSAGE events
+}
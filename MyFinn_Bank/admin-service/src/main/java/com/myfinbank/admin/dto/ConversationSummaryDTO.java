@@ -0,0 +1,18 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationSummaryDTO {
+    private Long customerId;
+    private String customerName;
+    private Long lastMessageId;
+    private String lastMessage;
+    private String lastSenderType;
+    private String timestamp;
+    private Long unreadCount;
+}
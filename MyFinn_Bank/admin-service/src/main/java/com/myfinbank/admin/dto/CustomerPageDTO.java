@@ -0,0 +1,15 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerPageDTO {
+    private List<CustomerDTO> customers;
+    private String nextCursor; // Opaque cursor for the next page, null on the last page
+    private Boolean hasMore;
+}
@@ -0,0 +1,17 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBulkDecisionDTO {
+    private String decision;
+    private Integer requested; // Distinct loan ids in the request
+    private Integer succeeded;
+    private Integer failed;
+    private List<LoanDecisionResultDTO> results; // One per distinct loan id, in request order
+}
@@ -0,0 +1,15 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanBulkDecisionRequestDTO {
+    private List<Long> loanIds;
+    private String decision; // APPROVE / APPROVED or REJECT / REJECTED
+    private String remarks;
+}
@@ -0,0 +1,14 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDecisionResultDTO {
+    private Long loanId;
+    private String outcome; // DECIDED, NOT_PENDING or NOT_FOUND
+    private String message;
+}
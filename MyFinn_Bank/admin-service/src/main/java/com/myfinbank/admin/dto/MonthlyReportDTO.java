@@ -0,0 +1,21 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyReportDTO {
+    private String month; // yyyy-MM
+    private Long newCustomers;
+    private Long loanApplications;
+    private Long pendingLoans;
+    private Long approvedLoans;
+    private Long rejectedLoans;
+    private BigDecimal approvedAmount;
+    private Long transactionCount;
+    private BigDecimal transactionVolume;
+}
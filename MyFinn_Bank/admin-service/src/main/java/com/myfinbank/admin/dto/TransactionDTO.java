@@ -0,0 +1,23 @@
+package com.myfinbank.admin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDTO {
+    private Long id;
+    private String transactionId;
+    private BigDecimal amount;
+    private String type;
+    private String status;
+    private String description;
+    private String reference;
+    private LocalDateTime createdAt;
+    private String fromAccount; // Account number, null for deposits
+    private String toAccount; // Account number, null for withdrawals
+}
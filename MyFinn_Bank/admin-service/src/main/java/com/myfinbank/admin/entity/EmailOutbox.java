@@ -0,0 +1,52 @@
+package com.myfinbank.admin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "email_type", nullable = false, length = 50)
+    private String emailType; // email-service endpoint, e.g. loan-approval
+
+    @Column(name = "recipient", nullable = false)
+    private String recipient;
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload; // JSON object of the form parameters
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt = LocalDateTime.now();
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public enum OutboxStatus {
+        PENDING, SENT, FAILED
+    }
+}
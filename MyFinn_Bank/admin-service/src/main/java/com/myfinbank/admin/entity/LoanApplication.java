@@ -69,6 +69,10 @@ public class LoanApplication {
     @Column(name = "approved_date")
     private LocalDateTime approvedDate;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version = 0L; // Bumped on every change, including the conditional decision UPDATEs
+    
     // Enums updated to match loans table
     public enum LoanType {
         PERSONAL, HOME, VEHICLE, EDUCATION, BUSINESS
@@ -0,0 +1,48 @@
+package com.myfinbank.admin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Loan count and requested amount per application day, loan type and status - maintained by DailyRollupService
+@Entity
+@Table(name = "loan_daily_rollup")
+@IdClass(LoanDailyRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDailyRollup {
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "loan_type", length = 20)
+    private String loanType;
+
+    @Id
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @Column(name = "loan_count", nullable = false)
+    private Long loanCount = 0L;
+
+    @Column(name = "total_requested", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalRequested = BigDecimal.ZERO;
+
+    @Column(name = "total_approved", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalApproved = BigDecimal.ZERO;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private String loanType;
+        private String status;
+    }
+}
@@ -0,0 +1,49 @@
+package com.myfinbank.admin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One row per calendar month, maintained by ReportService from the customers, loans and
+// transactions tables so reports never aggregate the raw history on request
+@Entity
+@Table(name = "report_monthly_rollup")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MonthlyReportRollup {
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart; // First day of the month
+
+    @Column(name = "new_customers", nullable = false)
+    private Long newCustomers = 0L;
+
+    @Column(name = "loan_applications", nullable = false)
+    private Long loanApplications = 0L;
+
+    @Column(name = "pending_loans", nullable = false)
+    private Long pendingLoans = 0L;
+
+    @Column(name = "approved_loans", nullable = false)
+    private Long approvedLoans = 0L;
+
+    @Column(name = "rejected_loans", nullable = false)
+    private Long rejectedLoans = 0L;
+
+    @Column(name = "approved_amount", nullable = false, precision = 17, scale = 2)
+    private BigDecimal approvedAmount = BigDecimal.ZERO;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount = 0L;
+
+    @Column(name = "transaction_volume", nullable = false, precision = 17, scale = 2)
+    private BigDecimal transactionVolume = BigDecimal.ZERO;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private LocalDateTime refreshedAt;
+}
@@ -0,0 +1,25 @@
+package com.myfinbank.admin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+// Highest source row id already folded into a rollup table
+@Entity
+@Table(name = "rollup_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupWatermark {
+    @Id
+    @Column(name = "name", length = 50)
+    private String name; // transactions or loans
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+}
@@ -0,0 +1,45 @@
+package com.myfinbank.admin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Transaction count and amount per day, type and status - maintained by DailyRollupService
+@Entity
+@Table(name = "transaction_daily_rollup")
+@IdClass(TransactionDailyRollup.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDailyRollup {
+    @Id
+    @Column(name = "day")
+    private LocalDate day;
+
+    @Id
+    @Column(name = "type", length = 20)
+    private String type;
+
+    @Id
+    @Column(name = "status", length = 20)
+    private String status;
+
+    @Column(name = "txn_count", nullable = false)
+    private Long txnCount = 0L;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private LocalDate day;
+        private String type;
+        private String status;
+    }
+}
@@ -2,8 +2,12 @@ package com.myfinbank.admin.repository;
 
 import com.myfinbank.admin.entity.Admin;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
@@ -25,4 +29,10 @@ public interface AdminRepository extends JpaRepository<Admin, Long> {
     // Custom query to count active admins
     @Query("SELECT COUNT(a) FROM Admin a WHERE a.active = true")
     Long countActiveAdmins();
+    
+    // Record a login time without loading the admin first
+    @Modifying
+    @Transactional
+    @Query("UPDATE Admin a SET a.lastLoginAt = :loginAt WHERE a.email = :email")
+    int updateLastLogin(@Param("email") String email, @Param("loginAt") LocalDateTime loginAt);
 }
@@ -0,0 +1,64 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.dto.ConversationSummaryDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+@Repository
+public class ChatConversationRepository {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Latest message per customer, newest conversation first, keyset-paged on the latest message id.
+    // The grouped MAX(id) is answered from idx_chat_customer (one index probe per customer), and
+    // unread counts are only computed for the rows on the page via idx_chat_customer_unread.
+    private static final String LATEST_PER_CUSTOMER_SQL = """
+        SELECT
+            m.id,
+            m.customer_id,
+            m.message,
+            m.sender_type,
+            m.created_at,
+            (SELECT COUNT(*)
+             FROM chat_messages u
+             WHERE u.customer_id = m.customer_id
+               AND u.sender_type = 'CUSTOMER'
+               AND u.is_read = false) AS unread_count
+        FROM (
+            SELECT customer_id, MAX(id) AS last_id
+            FROM chat_messages
+            GROUP BY customer_id
+            HAVING MAX(id) < ?
+            ORDER BY last_id DESC
+            LIMIT ?
+        ) latest
+        JOIN chat_messages m ON m.id = latest.last_id
+        ORDER BY m.id DESC
+        """;
+
+    // One page of conversation summaries with the latest message id below beforeLastId (null for the first page)
+    @Transactional(readOnly = true)
+    public List<ConversationSummaryDTO> findLatestPerCustomer(Long beforeLastId, int limit) {
+        long upperBound = beforeLastId != null ? beforeLastId : Long.MAX_VALUE;
+        return jdbcTemplate.query(LATEST_PER_CUSTOMER_SQL, (rs, rowNum) -> {
+            ConversationSummaryDTO summary = new ConversationSummaryDTO();
+            summary.setCustomerId(rs.getLong("customer_id"));
+            summary.setLastMessageId(rs.getLong("id"));
+            summary.setLastMessage(rs.getString("message"));
+            summary.setLastSenderType(rs.getString("sender_type"));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            summary.setTimestamp(createdAt != null ? createdAt.toLocalDateTime().format(TIMESTAMP_FORMATTER) : null);
+            summary.setUnreadCount(rs.getLong("unread_count"));
+            return summary;
+        }, upperBound, limit);
+    }
+}
@@ -1,10 +1,13 @@
 package com.myfinbank.admin.repository;
 
 import com.myfinbank.admin.entity.ChatMessage;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 
 @Repository
@@ -18,6 +21,25 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
         return findByCustomerIdOrderByCreatedAtAsc(customerId);
     }
     
+    // Cursor paging over a conversation. The cursor is the message id, so the order is the id alone -
+    // a created_at order could put a message after the cursor that the id filter has already passed.
+    // Backed by idx_chat_customer, whose entries are kept in (customer_id, id) order.
+    
+    // Newest messages of a conversation, newest first
+    List<ChatMessage> findByCustomerIdOrderByIdDesc(Long customerId, Pageable pageable);
+    
+    // Messages newer than the given id, oldest first (incremental polling)
+    List<ChatMessage> findByCustomerIdAndIdGreaterThanOrderByIdAsc(Long customerId, Long afterId, Pageable pageable);
+    
+    // Messages older than the given id, newest first (scrolling back through history)
+    List<ChatMessage> findByCustomerIdAndIdLessThanOrderByIdDesc(Long customerId, Long beforeId, Pageable pageable);
+    
+    // Messages across all conversations newer than the given id, oldest first (push delivery)
+    List<ChatMessage> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    @Query("SELECT MAX(c.id) FROM ChatMessage c")
+    Long findMaxId();
+    
     // Find unread messages for admin dashboard
     List<ChatMessage> findByIsReadFalseAndSenderType(ChatMessage.SenderType senderType);
     
@@ -36,7 +58,12 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long>
     @Query("SELECT DISTINCT c.customerId FROM ChatMessage c WHERE c.isRead = false AND c.senderType = :senderType")
     List<Long> findCustomersWithUnreadMessages(@Param("senderType") ChatMessage.SenderType senderType);
     
-    // Mark all messages as read for a customer conversation
-    @Query("UPDATE ChatMessage c SET c.isRead = true WHERE c.customerId = :customerId")
-    void markMessagesAsRead(@Param("customerId") Long customerId);
+    // Mark unread messages from the given sender as read - backed by idx_chat_customer_unread
+    // (customer_id, sender_type, is_read), returns rows updated
+    @Modifying
+    @Transactional
+    @Query("UPDATE ChatMessage c SET c.isRead = true WHERE c.customerId = :customerId " +
+           "AND c.senderType = :senderType AND c.isRead = false")
+    int markMessagesAsRead(@Param("customerId") Long customerId,
+                           @Param("senderType") ChatMessage.SenderType senderType);
 }
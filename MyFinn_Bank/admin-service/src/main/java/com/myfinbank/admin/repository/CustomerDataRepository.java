@@ -2,22 +2,37 @@ package com.myfinbank.admin.repository;
 
 import com.myfinbank.admin.dto.CustomerDTO;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+// Reads run read-only so they can be served by the replica when one is configured
 @Repository
+@Transactional(readOnly = true)
 public class CustomerDataRepository {
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
+    // Rows pulled per network round trip when streaming (needs useCursorFetch=true on MySQL)
+    @Value("${customer.export.fetch-size:500}")
+    private int exportFetchSize;
+    
     private final RowMapper<CustomerDTO> customerRowMapper = new RowMapper<CustomerDTO>() {
         @Override
         public CustomerDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -42,12 +57,65 @@ public class CustomerDataRepository {
         return jdbcTemplate.query(sql, customerRowMapper);
     }
     
+    // Keyset page ordered by (created_at, id) descending - pass a null id for the first page.
+    // Customers without created_at sort last; a null time in the cursor pages through them by id.
+    public List<CustomerDTO> findPage(LocalDateTime afterCreatedAt, Long afterId, int limit, boolean activeOnly) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM customers WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (activeOnly) {
+            sql.append(" AND active = true");
+        }
+        if (afterId != null && afterCreatedAt != null) {
+            sql.append(" AND (created_at < ? OR created_at IS NULL OR (created_at = ? AND id < ?))");
+            params.add(afterCreatedAt);
+            params.add(afterCreatedAt);
+            params.add(afterId);
+        } else if (afterId != null) {
+            sql.append(" AND created_at IS NULL AND id < ?");
+            params.add(afterId);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.query(sql.toString(), customerRowMapper, params.toArray());
+    }
+    
+    // Stream every customer row to the consumer without building the full list in memory
+    public void streamAll(boolean activeOnly, Consumer<CustomerDTO> consumer) {
+        String sql = "SELECT * FROM customers" +
+                     (activeOnly ? " WHERE active = true" : "") +
+                     " ORDER BY created_at DESC, id DESC";
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, rs -> {
+            consumer.accept(customerRowMapper.mapRow(rs, rs.getRow()));
+        });
+    }
+    
     public Optional<CustomerDTO> findById(Long id) {
         String sql = "SELECT * FROM customers WHERE id = ?";
         List<CustomerDTO> results = jdbcTemplate.query(sql, customerRowMapper, id);
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
     
+    // Load just id, name and email for a set of customers in one query
+    public List<CustomerDTO> findBasicDetailsByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT id, first_name, last_name, email FROM customers WHERE id IN (" + placeholders + ")";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+            CustomerDTO dto = new CustomerDTO();
+            dto.setId(rs.getLong("id"));
+            dto.setFirstName(rs.getString("first_name"));
+            dto.setLastName(rs.getString("last_name"));
+            dto.setEmail(rs.getString("email"));
+            return dto;
+        }, ids.toArray());
+    }
+    
     public Optional<CustomerDTO> findByEmail(String email) {
         String sql = "SELECT * FROM customers WHERE email = ?";
         List<CustomerDTO> results = jdbcTemplate.query(sql, customerRowMapper, email);
@@ -59,13 +127,79 @@ public class CustomerDataRepository {
         return jdbcTemplate.query(sql, customerRowMapper);
     }
     
-    public List<CustomerDTO> searchCustomers(String search) {
+    // Substring match with a full table scan - used when no search index is available
+    public List<CustomerDTO> searchCustomers(String search, int limit) {
         String sql = "SELECT * FROM customers WHERE " +
                      "LOWER(first_name) LIKE LOWER(?) OR " +
                      "LOWER(last_name) LIKE LOWER(?) OR " +
-                     "LOWER(email) LIKE LOWER(?)";
+                     "LOWER(email) LIKE LOWER(?) " +
+                     "ORDER BY created_at DESC LIMIT ?";
         String searchPattern = "%" + search + "%";
-        return jdbcTemplate.query(sql, customerRowMapper, searchPattern, searchPattern, searchPattern);
+        return jdbcTemplate.query(sql, customerRowMapper, searchPattern, searchPattern, searchPattern, limit);
+    }
+    
+    // Word-prefix match against ft_customers_search, best matches first. Every word in the term
+    // must match the start of a word in a name, email or phone (InnoDB splits emails at @ and .).
+    public List<CustomerDTO> searchCustomersFullText(String search, int limit) {
+        StringBuilder booleanQuery = new StringBuilder();
+        for (String word : search.split("[^\\p{L}\\p{N}_]+")) {
+            if (!word.isEmpty()) {
+                booleanQuery.append('+').append(word).append("* ");
+            }
+        }
+        if (booleanQuery.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT * FROM customers " +
+                     "WHERE MATCH(first_name, last_name, email, phone) AGAINST (? IN BOOLEAN MODE) " +
+                     "ORDER BY MATCH(first_name, last_name, email, phone) AGAINST (? IN BOOLEAN MODE) DESC " +
+                     "LIMIT ?";
+        String query = booleanQuery.toString().trim();
+        return jdbcTemplate.query(sql, customerRowMapper, query, query, limit);
+    }
+    
+    // Load full rows for a set of customers, in the order the ids are given
+    public List<CustomerDTO> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT * FROM customers WHERE id IN (" + placeholders + ")";
+        Map<Long, CustomerDTO> byId = new HashMap<>();
+        for (CustomerDTO customer : jdbcTemplate.query(sql, customerRowMapper, ids.toArray())) {
+            byId.put(customer.getId(), customer);
+        }
+        List<CustomerDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            CustomerDTO customer = byId.get(id);
+            if (customer != null) {
+                ordered.add(customer);
+            }
+        }
+        return ordered;
+    }
+    
+    // Stream the searchable fields of customers changed at or after the given time (all customers when null)
+    public void streamSearchFields(LocalDateTime updatedSince, Consumer<CustomerDTO> consumer) {
+        String sql = "SELECT id, first_name, last_name, email, phone, updated_at FROM customers" +
+                     (updatedSince != null ? " WHERE updated_at >= ?" : "");
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            if (updatedSince != null) {
+                ps.setObject(1, updatedSince);
+            }
+            return ps;
+        }, rs -> {
+            CustomerDTO dto = new CustomerDTO();
+            dto.setId(rs.getLong("id"));
+            dto.setFirstName(rs.getString("first_name"));
+            dto.setLastName(rs.getString("last_name"));
+            dto.setEmail(rs.getString("email"));
+            dto.setPhone(rs.getString("phone"));
+            dto.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+            consumer.accept(dto);
+        });
     }
     
     public Long countActiveCustomers() {
@@ -83,12 +217,14 @@ public class CustomerDataRepository {
         return jdbcTemplate.query(sql, customerRowMapper, limit);
     }
     
+    @Transactional
     public boolean deactivateCustomer(Long customerId) {
         String sql = "UPDATE customers SET active = false, updated_at = NOW() WHERE id = ?";
         int updated = jdbcTemplate.update(sql, customerId);
         return updated > 0;
     }
     
+    @Transactional
     public boolean activateCustomer(Long customerId) {
         String sql = "UPDATE customers SET active = true, updated_at = NOW() WHERE id = ?";
         int updated = jdbcTemplate.update(sql, customerId);
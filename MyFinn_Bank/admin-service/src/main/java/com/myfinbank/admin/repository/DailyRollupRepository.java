@@ -0,0 +1,166 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.entity.RollupWatermark;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class DailyRollupRepository {
+
+    public static final String TRANSACTIONS = "transactions";
+    public static final String LOANS = "loans";
+
+    private static final String APPROVED = "APPROVED";
+    private static final String APPROVED_AMOUNT_SUM =
+        "SUM(CASE WHEN status = 'APPROVED' THEN COALESCE(approved_amount, requested_amount) ELSE 0 END)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RollupWatermarkRepository rollupWatermarkRepository;
+
+    // Fold source rows with id in (afterId, upToId] into the rollup, adding to existing buckets
+    private static final String ADD_TRANSACTIONS_SQL = """
+        INSERT INTO transaction_daily_rollup (day, type, status, txn_count, total_amount)
+        SELECT DATE(created_at), type, status, COUNT(*), SUM(amount)
+        FROM transactions
+        WHERE id > ? AND id <= ? AND created_at IS NOT NULL
+        GROUP BY DATE(created_at), type, status
+        ON DUPLICATE KEY UPDATE
+            txn_count = txn_count + VALUES(txn_count),
+            total_amount = total_amount + VALUES(total_amount)
+        """;
+
+    // total_approved counts only approved loans, at their approved amount where one was recorded
+    private static final String ADD_LOANS_SQL = """
+        INSERT INTO loan_daily_rollup (day, loan_type, status, loan_count, total_requested, total_approved)
+        SELECT DATE(applied_at), loan_type, status, COUNT(*), SUM(requested_amount),
+               %s
+        FROM loans
+        WHERE id > ? AND id <= ? AND applied_at IS NOT NULL
+        GROUP BY DATE(applied_at), loan_type, status
+        ON DUPLICATE KEY UPDATE
+            loan_count = loan_count + VALUES(loan_count),
+            total_requested = total_requested + VALUES(total_requested),
+            total_approved = total_approved + VALUES(total_approved)
+        """.formatted(APPROVED_AMOUNT_SUM);
+
+    // Rebuild recent months from source rows already below the watermark - picks up status
+    // changes made by other services, which the id watermark cannot see
+    private static final String REBUILD_TRANSACTIONS_SQL = """
+        INSERT INTO transaction_daily_rollup (day, type, status, txn_count, total_amount)
+        SELECT DATE(created_at), type, status, COUNT(*), SUM(amount)
+        FROM transactions
+        WHERE created_at >= ? AND id <= ?
+        GROUP BY DATE(created_at), type, status
+        """;
+
+    private static final String REBUILD_LOANS_SQL = """
+        INSERT INTO loan_daily_rollup (day, loan_type, status, loan_count, total_requested, total_approved)
+        SELECT DATE(applied_at), loan_type, status, COUNT(*), SUM(requested_amount),
+               %s
+        FROM loans
+        WHERE applied_at >= ? AND id <= ?
+        GROUP BY DATE(applied_at), loan_type, status
+        """.formatted(APPROVED_AMOUNT_SUM);
+
+    private static final String ADJUST_LOAN_BUCKET_SQL = """
+        INSERT INTO loan_daily_rollup (day, loan_type, status, loan_count, total_requested, total_approved)
+        VALUES (?, ?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            loan_count = loan_count + VALUES(loan_count),
+            total_requested = total_requested + VALUES(total_requested),
+            total_approved = total_approved + VALUES(total_approved)
+        """;
+
+    // Loans in a status - the rollup plus loans above its watermark
+    public long countLoansByStatus(String status) {
+        Long count = jdbcTemplate.queryForObject("""
+            SELECT COALESCE(SUM(loan_count), 0) FROM (
+                SELECT loan_count FROM loan_daily_rollup WHERE status = ?
+                UNION ALL
+                SELECT 1 FROM loans
+                WHERE status = ? AND id > COALESCE((SELECT last_id FROM rollup_watermarks WHERE name = 'loans'), 0)
+            ) buckets
+            """, Long.class, status, status);
+        return count != null ? count : 0L;
+    }
+
+    // Lock and read a watermark, creating it at 0 the first time. Callers must be in a transaction.
+    public long lockWatermark(String name) {
+        RollupWatermark watermark = rollupWatermarkRepository.findByNameForUpdate(name)
+                .orElseGet(() -> rollupWatermarkRepository.saveAndFlush(new RollupWatermark(name, 0L, LocalDateTime.now())));
+        return watermark.getLastId() != null ? watermark.getLastId() : 0L;
+    }
+
+    // Read a watermark under a shared lock, which only conflicts with lockWatermark. A missing
+    // watermark reads as 0: nothing has been rolled up yet.
+    public long shareWatermark(String name) {
+        return rollupWatermarkRepository.findByNameForShare(name)
+                .map(RollupWatermark::getLastId)
+                .orElse(0L);
+    }
+
+    public void saveWatermark(String name, long lastId) {
+        jdbcTemplate.update("UPDATE rollup_watermarks SET last_id = ?, updated_at = NOW() WHERE name = ?", lastId, name);
+    }
+
+    public long findMaxSourceId(String name) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + sourceTable(name), Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
+    public int addRange(String name, long afterId, long upToId) {
+        String sql = TRANSACTIONS.equals(name) ? ADD_TRANSACTIONS_SQL : ADD_LOANS_SQL;
+        return jdbcTemplate.update(sql, afterId, upToId);
+    }
+
+    public int rebuildFrom(String name, LocalDate fromDay, long upToId) {
+        String rollupTable = TRANSACTIONS.equals(name) ? "transaction_daily_rollup" : "loan_daily_rollup";
+        jdbcTemplate.update("DELETE FROM " + rollupTable + " WHERE day >= ?", Date.valueOf(fromDay));
+        String sql = TRANSACTIONS.equals(name) ? REBUILD_TRANSACTIONS_SQL : REBUILD_LOANS_SQL;
+        return jdbcTemplate.update(sql, Date.valueOf(fromDay), upToId);
+    }
+
+    // Move one loan between status buckets of its application day
+    public void moveLoan(LocalDate day, String loanType, String fromStatus, String toStatus,
+                         BigDecimal amount, BigDecimal approvedAmount) {
+        moveLoans(fromStatus, toStatus, List.of(new LoanBucketMove(day, loanType, 1, amount, approvedAmount)));
+    }
+
+    // Move groups of loans between status buckets with one batch
+    public void moveLoans(String fromStatus, String toStatus, List<LoanBucketMove> moves) {
+        List<Object[]> rows = new ArrayList<>(moves.size() * 2);
+        for (LoanBucketMove move : moves) {
+            BigDecimal requested = move.amount() != null ? move.amount() : BigDecimal.ZERO;
+            BigDecimal approved = move.approvedAmount() != null ? move.approvedAmount() : BigDecimal.ZERO;
+            Date day = Date.valueOf(move.day());
+            rows.add(new Object[]{day, move.loanType(), fromStatus, -move.count(), requested.negate(),
+                    APPROVED.equals(fromStatus) ? approved.negate() : BigDecimal.ZERO});
+            rows.add(new Object[]{day, move.loanType(), toStatus, move.count(), requested,
+                    APPROVED.equals(toStatus) ? approved : BigDecimal.ZERO});
+        }
+        jdbcTemplate.batchUpdate(ADJUST_LOAN_BUCKET_SQL, rows);
+    }
+
+    // Loans of one application day and type moving together, with their total requested amount and
+    // total approved amount (the requested amount where no approved amount was recorded)
+    public record LoanBucketMove(LocalDate day, String loanType, long count, BigDecimal amount, BigDecimal approvedAmount) {
+    }
+
+    private static String sourceTable(String name) {
+        if (TRANSACTIONS.equals(name) || LOANS.equals(name)) {
+            return name;
+        }
+        throw new IllegalArgumentException("Unknown rollup source: " + name);
+    }
+}
@@ -0,0 +1,76 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.dto.DashboardStatsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public class DashboardStatsRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // All dashboard figures in one round trip - one aggregate per table, cross joined into a single row.
+    // Loan figures come from the daily rollup plus the few loans above its watermark.
+    private static final String DASHBOARD_STATS_SQL = """
+        SELECT
+            c.total_customers,
+            c.active_customers,
+            c.new_customers_today,
+            l.pending_loans,
+            l.approved_loans,
+            l.total_loan_amount,
+            l.new_loans_today,
+            m.unread_messages
+        FROM (
+            SELECT
+                COUNT(*) AS total_customers,
+                COALESCE(SUM(CASE WHEN active = true THEN 1 ELSE 0 END), 0) AS active_customers,
+                COALESCE(SUM(CASE WHEN created_at >= ? THEN 1 ELSE 0 END), 0) AS new_customers_today
+            FROM customers
+        ) c
+        CROSS JOIN (
+            SELECT
+                COALESCE(SUM(CASE WHEN status = 'PENDING' THEN loan_count ELSE 0 END), 0) AS pending_loans,
+                COALESCE(SUM(CASE WHEN status = 'APPROVED' THEN loan_count ELSE 0 END), 0) AS approved_loans,
+                COALESCE(SUM(CASE WHEN status = 'APPROVED' THEN total_requested ELSE 0 END), 0) AS total_loan_amount,
+                COALESCE(SUM(CASE WHEN day >= DATE(?) THEN loan_count ELSE 0 END), 0) AS new_loans_today
+            FROM (
+                SELECT day, status, loan_count, total_requested
+                FROM loan_daily_rollup
+                UNION ALL
+                SELECT DATE(applied_at), status, 1, requested_amount
+                FROM loans
+                WHERE id > COALESCE((SELECT last_id FROM rollup_watermarks WHERE name = 'loans'), 0)
+            ) loan_buckets
+        ) l
+        CROSS JOIN (
+            SELECT COUNT(*) AS unread_messages
+            FROM chat_messages
+            WHERE is_read = false AND sender_type = 'CUSTOMER'
+        ) m
+        """;
+
+    // Build the whole dashboard statistics DTO from a single aggregated query
+    @Transactional(readOnly = true)
+    public DashboardStatsDTO loadDashboardStats(LocalDateTime startOfDay) {
+        return jdbcTemplate.queryForObject(DASHBOARD_STATS_SQL, (rs, rowNum) -> {
+            DashboardStatsDTO stats = new DashboardStatsDTO();
+            stats.setTotalCustomers(rs.getLong("total_customers"));
+            stats.setActiveCustomers(rs.getLong("active_customers"));
+            stats.setNewCustomersToday(rs.getLong("new_customers_today"));
+            stats.setPendingLoanApplications(rs.getLong("pending_loans"));
+            stats.setApprovedLoans(rs.getLong("approved_loans"));
+            BigDecimal totalLoanAmount = rs.getBigDecimal("total_loan_amount");
+            stats.setTotalLoanAmount(totalLoanAmount != null ? totalLoanAmount : BigDecimal.ZERO);
+            stats.setNewLoansToday(rs.getLong("new_loans_today"));
+            stats.setUnreadMessages(rs.getLong("unread_messages"));
+            return stats;
+        }, startOfDay, startOfDay);
+    }
+}
@@ -0,0 +1,31 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.entity.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Due emails, oldest first. Rows locked by another dispatcher are skipped rather than waited on.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM EmailOutbox o WHERE o.status = :status AND o.nextAttemptAt <= :now ORDER BY o.id ASC")
+    List<EmailOutbox> findDueForUpdate(@Param("status") EmailOutbox.OutboxStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    // Queue depth and the age of the oldest waiting email, as [count, min(createdAt)]
+    @Query("SELECT COUNT(o), MIN(o.createdAt) FROM EmailOutbox o WHERE o.status = :status")
+    List<Object[]> summarizeByStatus(@Param("status") EmailOutbox.OutboxStatus status);
+}
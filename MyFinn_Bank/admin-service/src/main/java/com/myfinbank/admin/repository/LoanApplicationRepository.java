@@ -1,12 +1,17 @@
 package com.myfinbank.admin.repository;
 
 import com.myfinbank.admin.entity.LoanApplication;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,6 +26,35 @@ public interface LoanApplicationRepository extends JpaRepository<LoanApplication
     // Find pending loan applications (most important for admin)
     List<LoanApplication> findByStatusOrderByAppliedAtAsc(LoanApplication.LoanStatus status);
     
+    // Keyset page of loans with one status in application order - served from idx_loans_status
+    List<LoanApplication> findByStatusAndIdGreaterThanOrderByIdAsc(LoanApplication.LoanStatus status, Long afterId, Pageable pageable);
+    
+    // Lock the given loans that are still in the status, in id order so concurrent batches lock in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM LoanApplication l WHERE l.id IN :ids AND l.status = :status ORDER BY l.id")
+    List<LoanApplication> findByIdInAndStatusForUpdate(@Param("ids") Collection<Long> ids,
+                                                       @Param("status") LoanApplication.LoanStatus status);
+    
+    // Record one decision on many loans in a single statement, only where they are still in the expected
+    // status. The status check makes this a compare-and-set, so concurrent callers cannot both win.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE LoanApplication l SET l.status = :decision, l.approvedBy = :adminId, l.adminRemarks = :remarks, " +
+           "l.approvedDate = :decidedAt, l.version = l.version + 1 WHERE l.id IN :ids AND l.status = :expected")
+    int updateStatusWhereStatus(@Param("ids") Collection<Long> ids,
+                                @Param("expected") LoanApplication.LoanStatus expected,
+                                @Param("decision") LoanApplication.LoanStatus decision,
+                                @Param("adminId") Long adminId,
+                                @Param("remarks") String remarks,
+                                @Param("decidedAt") LocalDateTime decidedAt);
+    
+    // Count loans per customer for a set of customers - rows are [customerId, count]
+    @Query("SELECT l.customerId, COUNT(l) FROM LoanApplication l WHERE l.customerId IN :customerIds GROUP BY l.customerId")
+    List<Object[]> countLoansByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+    
+    // Count loans per customer across the whole table - rows are [customerId, count]
+    @Query("SELECT l.customerId, COUNT(l) FROM LoanApplication l GROUP BY l.customerId")
+    List<Object[]> countLoansGroupedByCustomer();
+    
     // Count loans by status
     Long countByStatus(LoanApplication.LoanStatus status);
     
@@ -0,0 +1,14 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.entity.MonthlyReportRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyReportRollupRepository extends JpaRepository<MonthlyReportRollup, LocalDate> {
+
+    // Months from the given month onwards, oldest first
+    List<MonthlyReportRollup> findByMonthStartGreaterThanEqualOrderByMonthStartAsc(LocalDate fromMonth);
+}
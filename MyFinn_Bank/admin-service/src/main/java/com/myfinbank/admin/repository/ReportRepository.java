@@ -0,0 +1,146 @@
+package com.myfinbank.admin.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Repository
+public class ReportRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${reports.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    // Recompute new-customer counts for every month in [from, to) with one GROUP BY. New months get
+    // explicit zeros for the other columns, which a table created by Hibernate has no default for.
+    private static final String REFRESH_MONTHLY_CUSTOMERS_SQL = """
+        INSERT INTO report_monthly_rollup (
+            month_start, new_customers, loan_applications, pending_loans, approved_loans, rejected_loans,
+            approved_amount, transaction_count, transaction_volume, refreshed_at)
+        SELECT DATE_FORMAT(created_at, '%Y-%m-01') AS month_start, COUNT(*), 0, 0, 0, 0, 0, 0, 0, NOW()
+        FROM customers
+        WHERE created_at >= ? AND created_at < ?
+        GROUP BY month_start
+        ON DUPLICATE KEY UPDATE
+            new_customers = VALUES(new_customers),
+            refreshed_at = VALUES(refreshed_at)
+        """;
+
+    // Recompute loan and transaction figures for every month from the daily rollups. This reads
+    // one row per day, type and status, so it is cheap enough to cover the whole history each time.
+    // A month with no customers yet is inserted with new_customers = 0.
+    private static final String REFRESH_MONTHLY_ACTIVITY_SQL = """
+        INSERT INTO report_monthly_rollup (
+            month_start, new_customers, loan_applications, pending_loans, approved_loans, rejected_loans,
+            approved_amount, transaction_count, transaction_volume, refreshed_at)
+        SELECT
+            month_start,
+            0,
+            SUM(loan_applications),
+            SUM(pending_loans),
+            SUM(approved_loans),
+            SUM(rejected_loans),
+            SUM(approved_amount),
+            SUM(transaction_count),
+            SUM(transaction_volume),
+            NOW()
+        FROM (
+            SELECT DATE_FORMAT(day, '%Y-%m-01') AS month_start,
+                   SUM(loan_count) AS loan_applications,
+                   SUM(CASE WHEN status = 'PENDING' THEN loan_count ELSE 0 END) AS pending_loans,
+                   SUM(CASE WHEN status = 'APPROVED' THEN loan_count ELSE 0 END) AS approved_loans,
+                   SUM(CASE WHEN status = 'REJECTED' THEN loan_count ELSE 0 END) AS rejected_loans,
+                   SUM(total_approved) AS approved_amount,
+                   0 AS transaction_count,
+                   0 AS transaction_volume
+            FROM loan_daily_rollup
+            GROUP BY month_start
+            UNION ALL
+            SELECT DATE_FORMAT(day, '%Y-%m-01'),
+                   0, 0, 0, 0, 0,
+                   SUM(txn_count), SUM(total_amount)
+            FROM transaction_daily_rollup
+            WHERE status = 'COMPLETED'
+            GROUP BY 1
+        ) monthly
+        GROUP BY month_start
+        ON DUPLICATE KEY UPDATE
+            loan_applications = VALUES(loan_applications),
+            pending_loans = VALUES(pending_loans),
+            approved_loans = VALUES(approved_loans),
+            rejected_loans = VALUES(rejected_loans),
+            approved_amount = VALUES(approved_amount),
+            transaction_count = VALUES(transaction_count),
+            transaction_volume = VALUES(transaction_volume),
+            refreshed_at = VALUES(refreshed_at)
+        """;
+
+    // Each MIN is answered from the leading column of a date index
+    private static final String EARLIEST_ACTIVITY_SQL = """
+        SELECT LEAST(
+            COALESCE((SELECT MIN(created_at) FROM customers), NOW()),
+            COALESCE((SELECT MIN(applied_at) FROM loans), NOW()),
+            COALESCE((SELECT MIN(created_at) FROM transactions), NOW()))
+        """;
+
+    // Fixed set of exports - the type is never interpolated into SQL
+    private static final Map<String, String> EXPORT_QUERIES = Map.of(
+        "monthly", """
+            SELECT DATE_FORMAT(month_start, '%Y-%m') AS month, new_customers, loan_applications, pending_loans,
+                   approved_loans, rejected_loans, approved_amount, transaction_count, transaction_volume
+            FROM report_monthly_rollup
+            ORDER BY month_start""",
+        "customers", """
+            SELECT id, customer_id, first_name, last_name, email, active, created_at
+            FROM customers
+            ORDER BY id""",
+        "loans", """
+            SELECT id, loan_id, customer_id, loan_type, requested_amount, approved_amount, interest_rate,
+                   term_months, status, applied_at, approved_date
+            FROM loans
+            ORDER BY id""",
+        "transactions", """
+            SELECT id, transaction_id, from_account_id, to_account_id, amount, type, status, created_at
+            FROM transactions
+            ORDER BY id""");
+
+    // Customers for months in [from, to); loans and transactions for every month, from the daily rollups
+    public int refreshMonthlyRollup(LocalDateTime from, LocalDateTime to) {
+        int rows = jdbcTemplate.update(REFRESH_MONTHLY_CUSTOMERS_SQL, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        return rows + jdbcTemplate.update(REFRESH_MONTHLY_ACTIVITY_SQL);
+    }
+
+    public LocalDateTime findEarliestActivity() {
+        Timestamp earliest = jdbcTemplate.queryForObject(EARLIEST_ACTIVITY_SQL, Timestamp.class);
+        return earliest != null ? earliest.toLocalDateTime() : LocalDateTime.now();
+    }
+
+    public static boolean isExportType(String type) {
+        return EXPORT_QUERIES.containsKey(type);
+    }
+
+    // Stream every row of an export with a forward-only cursor, one row at a time
+    @Transactional(readOnly = true)
+    public void streamExport(String type, RowCallbackHandler handler) {
+        String sql = EXPORT_QUERIES.get(type);
+        if (sql == null) {
+            throw new IllegalArgumentException("Unknown export type: " + type);
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, handler);
+    }
+}
@@ -0,0 +1,25 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.entity.RollupWatermark;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+// Row locks on the rollup watermarks - the dialect writes the locking clause, so they also run on H2
+@Repository
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, String> {
+
+    // Exclusive lock, taken by the rollup job
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM RollupWatermark w WHERE w.name = :name")
+    Optional<RollupWatermark> findByNameForUpdate(@Param("name") String name);
+
+    // Shared lock, taken by loan decisions - only conflicts with the job's exclusive lock
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT w FROM RollupWatermark w WHERE w.name = :name")
+    Optional<RollupWatermark> findByNameForShare(@Param("name") String name);
+}
@@ -0,0 +1,108 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.dto.TransactionDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@Repository
+public class TransactionHistoryRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final RowMapper<TransactionDTO> transactionRowMapper = (rs, rowNum) -> {
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        return new TransactionDTO(
+                rs.getLong("id"),
+                rs.getString("transaction_id"),
+                rs.getBigDecimal("amount"),
+                rs.getString("type"),
+                rs.getString("status"),
+                rs.getString("description"),
+                rs.getString("reference"),
+                createdAt != null ? createdAt.toLocalDateTime() : null,
+                rs.getString("from_account"),
+                rs.getString("to_account"));
+    };
+
+    @Transactional(readOnly = true)
+    public List<Long> findAccountIdsByCustomerId(Long customerId) {
+        return jdbcTemplate.queryForList("SELECT id FROM accounts WHERE customer_id = ?", Long.class, customerId);
+    }
+
+    // One page of transactions touching any of the accounts, newest first, keyset-paged on
+    // (created_at, id). Each side of the UNION is a range scan on idx_transactions_from_created or
+    // idx_transactions_to_created limited to one page; UNION drops transfers between the customer's
+    // own accounts that both sides return. Account numbers are only joined in for the final page.
+    // Rows without created_at sort last (NULL is lowest), so a cursor with a null time pages
+    // through those by id alone.
+    @Transactional(readOnly = true)
+    public List<TransactionDTO> findPageByAccountIds(Collection<Long> accountIds,
+                                                     LocalDateTime beforeCreatedAt,
+                                                     Long beforeId,
+                                                     int limit) {
+        if (accountIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(accountIds.size(), "?"));
+        String keyset;
+        if (beforeId == null) {
+            keyset = "";
+        } else if (beforeCreatedAt != null) {
+            keyset = " AND (created_at < ? OR created_at IS NULL OR (created_at = ? AND id < ?))";
+        } else {
+            keyset = " AND created_at IS NULL AND id < ?";
+        }
+        String side = "(SELECT id FROM transactions WHERE %s IN (" + placeholders + ")" + keyset
+                + " ORDER BY created_at DESC, id DESC LIMIT ?)";
+
+        String sql = """
+            SELECT
+                t.id,
+                t.transaction_id,
+                t.amount,
+                t.type,
+                t.status,
+                t.description,
+                t.reference,
+                t.created_at,
+                fa.account_number AS from_account,
+                ta.account_number AS to_account
+            FROM (
+                %s
+                UNION
+                %s
+            ) page
+            JOIN transactions t ON t.id = page.id
+            LEFT JOIN accounts fa ON t.from_account_id = fa.id
+            LEFT JOIN accounts ta ON t.to_account_id = ta.id
+            ORDER BY t.created_at DESC, t.id DESC
+            LIMIT ?
+            """.formatted(side.formatted("from_account_id"), side.formatted("to_account_id"));
+
+        List<Object> params = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            params.addAll(accountIds);
+            if (beforeId != null && beforeCreatedAt != null) {
+                params.add(Timestamp.valueOf(beforeCreatedAt));
+                params.add(Timestamp.valueOf(beforeCreatedAt));
+            }
+            if (beforeId != null) {
+                params.add(beforeId);
+            }
+            params.add(limit);
+        }
+        params.add(limit);
+        return jdbcTemplate.query(sql, transactionRowMapper, params.toArray());
+    }
+}
@@ -1,32 +1,71 @@
 package com.myfinbank.admin.service;
 
 import com.myfinbank.admin.entity.ChatMessage;
+import com.myfinbank.admin.dto.ChatEventDTO;
 import com.myfinbank.admin.dto.ChatMessageDTO;
+import com.myfinbank.admin.dto.ConversationSummaryDTO;
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.repository.ChatConversationRepository;
 import com.myfinbank.admin.repository.ChatMessageRepository;
-import com.myfinbank.admin.repository.CustomerDataRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class AdminChatService {
 
+    public static final int MAX_CONVERSATION_PAGE_SIZE = 200;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     @Autowired
     private ChatMessageRepository chatMessageRepository;
 
     @Autowired
-    private CustomerDataRepository customerDataRepository;
+    private ChatConversationRepository chatConversationRepository;
+
+    @Autowired
+    private DashboardStatsCache dashboardStatsCache;
+
+    @Autowired
+    private CustomerNameCache customerNameCache;
+
+    @Autowired
+    private ChatEventHub chatEventHub;
 
     // Get all messages for a specific customer conversation
+    @Transactional(readOnly = true)
     public List<ChatMessageDTO> getCustomerConversation(Long customerId) {
-        return chatMessageRepository.findByCustomerIdOrderByTimestampAsc(customerId)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(chatMessageRepository.findByCustomerIdOrderByTimestampAsc(customerId));
+    }
+
+    // Get only messages newer than afterId, oldest first - used by the polling chat window
+    @Transactional(readOnly = true)
+    public List<ChatMessageDTO> getConversationSince(Long customerId, Long afterId, int limit) {
+        return convertToDTOs(chatMessageRepository.findByCustomerIdAndIdGreaterThanOrderByIdAsc(
+                customerId, afterId, PageRequest.of(0, clampPageSize(limit))));
+    }
+
+    // Get a page of history before beforeId (or the latest page when null), oldest first
+    @Transactional(readOnly = true)
+    public List<ChatMessageDTO> getConversationBefore(Long customerId, Long beforeId, int limit) {
+        PageRequest page = PageRequest.of(0, clampPageSize(limit));
+        List<ChatMessage> newestFirst = beforeId == null
+                ? chatMessageRepository.findByCustomerIdOrderByIdDesc(customerId, page)
+                : chatMessageRepository.findByCustomerIdAndIdLessThanOrderByIdDesc(customerId, beforeId, page);
+
+        List<ChatMessage> oldestFirst = new ArrayList<>(newestFirst);
+        Collections.reverse(oldestFirst);
+        return convertToDTOs(oldestFirst);
     }
 
     // Send message from admin to customer
@@ -42,59 +81,95 @@ public class AdminChatService {
         chatMessage.setCreatedAt(LocalDateTime.now());
 
         ChatMessage savedMessage = chatMessageRepository.save(chatMessage);
-        return convertToDTO(savedMessage);
+        ChatMessageDTO dto = convertToDTOs(List.of(savedMessage)).get(0);
+        chatEventHub.publish(new ChatEventDTO(ChatEventHub.MESSAGE, customerId, dto));
+        return dto;
+    }
+
+    // Get messages from every conversation newer than afterId, oldest first
+    @Transactional(readOnly = true)
+    public List<ChatMessageDTO> getMessagesAfter(Long afterId, int limit) {
+        return convertToDTOs(chatMessageRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, clampPageSize(limit))));
+    }
+
+    // Highest message id stored so far (0 when there are no messages)
+    @Transactional(readOnly = true)
+    public Long getLatestMessageId() {
+        Long maxId = chatMessageRepository.findMaxId();
+        return maxId != null ? maxId : 0L;
     }
 
     // Get customers with unread messages
+    @Transactional(readOnly = true)
     public List<Long> getCustomersWithUnreadMessages() {
         return chatMessageRepository.findCustomersWithUnreadMessages(ChatMessage.SenderType.CUSTOMER);
     }
 
     // Get unread message count for admin dashboard
+    @Transactional(readOnly = true)
     public Long getUnreadMessageCount() {
         return chatMessageRepository.countByIsReadFalseAndSenderType(ChatMessage.SenderType.CUSTOMER);
     }
 
-    // Mark conversation as read when admin opens it
-    public void markConversationAsRead(Long customerId) {
-        // Update all unread customer messages to read
-        List<ChatMessage> unreadMessages = chatMessageRepository.findByCustomerIdOrderByTimestampAsc(customerId)
-                .stream()
-                .filter(msg -> !msg.getIsRead() && msg.getSenderType() == ChatMessage.SenderType.CUSTOMER)
-                .collect(Collectors.toList());
-
-        unreadMessages.forEach(msg -> msg.setIsRead(true));
-        chatMessageRepository.saveAll(unreadMessages);
+    // Mark conversation as read when admin opens it - returns the number of messages marked
+    public int markConversationAsRead(Long customerId) {
+        // Update the unread customer messages in a single statement - the unread index keeps this
+        // to the few rows still unread, however long the conversation history is
+        int marked = chatMessageRepository.markMessagesAsRead(customerId, ChatMessage.SenderType.CUSTOMER);
+        dashboardStatsCache.recordMessagesRead(marked);
+        if (marked > 0) {
+            chatEventHub.publish(new ChatEventDTO(ChatEventHub.READ, customerId, null));
+        }
+        return marked;
     }
 
     // Get recent messages for admin dashboard
+    @Transactional(readOnly = true)
     public List<ChatMessageDTO> getRecentMessages(int limit) {
-        return chatMessageRepository.findTop10ByOrderByTimestampDesc()
+        return convertToDTOs(chatMessageRepository.findTop10ByOrderByTimestampDesc()
                 .stream()
                 .limit(limit)
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    // Get conversation summary for admin - latest message and unread count per customer,
+    // most recent conversation first, paged by the latest message id (null for the first page)
+    @Transactional(readOnly = true)
+    public List<ConversationSummaryDTO> getConversationSummary(Long beforeLastMessageId, int limit) {
+        List<ConversationSummaryDTO> summaries =
+                chatConversationRepository.findLatestPerCustomer(beforeLastMessageId, clampPageSize(limit));
+
+        Map<Long, CustomerDTO> customers = customerNameCache.resolve(summaries.stream()
+                .map(ConversationSummaryDTO::getCustomerId)
+                .collect(Collectors.toSet()));
+        for (ConversationSummaryDTO summary : summaries) {
+            CustomerDTO customer = customers.get(summary.getCustomerId());
+            if (customer != null) {
+                summary.setCustomerName(CustomerNameCache.fullName(customer));
+            }
+        }
+        return summaries;
     }
 
-    // Get conversation summary for admin - shows latest message per customer
-    public Map<Long, ChatMessageDTO> getConversationSummary() {
-        List<ChatMessage> allMessages = chatMessageRepository.findTop10ByOrderByTimestampDesc();
-        
-        return allMessages.stream()
-                .collect(Collectors.groupingBy(
-                    ChatMessage::getCustomerId,
-                    Collectors.collectingAndThen(
-                        Collectors.maxBy((msg1, msg2) -> msg1.getTimestamp().compareTo(msg2.getTimestamp())),
-                        optMsg -> optMsg.map(this::convertToDTO).orElse(null)
-                    )
-                ))
-                .entrySet().stream()
-                .filter(entry -> entry.getValue() != null)
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    private int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_CONVERSATION_PAGE_SIZE));
+    }
+
+    // Convert ChatMessage entities to DTOs, resolving customer names in one batch
+    private List<ChatMessageDTO> convertToDTOs(List<ChatMessage> messages) {
+        Set<Long> customerIds = messages.stream()
+                .map(ChatMessage::getCustomerId)
+                .collect(Collectors.toSet());
+        Map<Long, CustomerDTO> customers = customerNameCache.resolve(customerIds);
+
+        return messages.stream()
+                .map(message -> convertToDTO(message, customers.get(message.getCustomerId())))
+                .collect(Collectors.toList());
     }
 
     // Convert ChatMessage entity to DTO
-    private ChatMessageDTO convertToDTO(ChatMessage message) {
+    private ChatMessageDTO convertToDTO(ChatMessage message, CustomerDTO customer) {
         ChatMessageDTO dto = new ChatMessageDTO();
         dto.setId(message.getId());
         dto.setMessageId(message.getMessageId());
@@ -102,13 +177,11 @@ public class AdminChatService {
         dto.setMessage(message.getMessage());
         dto.setSenderType(message.getSenderType().toString());
         dto.setIsRead(message.getIsRead());
-        dto.setTimestamp(message.getTimestamp()
-                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        dto.setTimestamp(message.getTimestamp().format(TIMESTAMP_FORMATTER));
 
-        // Get customer name
-        customerDataRepository.findById(message.getCustomerId()).ifPresent(customer -> {
-            dto.setCustomerName(customer.getFirstName() + " " + customer.getLastName());
-        });
+        if (customer != null) {
+            dto.setCustomerName(CustomerNameCache.fullName(customer));
+        }
 
         return dto;
     }
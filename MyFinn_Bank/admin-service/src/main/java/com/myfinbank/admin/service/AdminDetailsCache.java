@@ -0,0 +1,85 @@
+package com.myfinbank.admin.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Small LRU cache of admin UserDetails so authenticated requests do not re-read the admins
+// table. Entries expire after a TTL to pick up changes made outside this service, and are
+// evicted explicitly when this service updates or deactivates an admin.
+@Component
+public class AdminDetailsCache {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Counter hits;
+    private final Counter misses;
+
+    // Access-ordered so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<String, Entry> entries;
+
+    public AdminDetailsCache(MeterRegistry meterRegistry,
+                             @Value("${admin.details-cache.max-size:1000}") int maxSize,
+                             @Value("${admin.details-cache.ttl:5m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttl.toMillis();
+        this.hits = Counter.builder("admin.details.cache.hits")
+                .description("Admin lookups served from the UserDetails cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("admin.details.cache.misses")
+                .description("Admin lookups that went to the database")
+                .register(meterRegistry);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > AdminDetailsCache.this.maxSize;
+            }
+        };
+    }
+
+    // Cached details for the email, loading them on a miss. A copy is returned every time because
+    // Spring Security erases the password on the UserDetails it authenticates with.
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        String key = email.toLowerCase();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && now - entry.loadedAtMillis < ttlMillis) {
+                hits.increment();
+                return copyOf(entry.details);
+            }
+        }
+
+        misses.increment();
+        UserDetails loaded = loader.apply(email);
+        synchronized (this) {
+            entries.put(key, new Entry(copyOf(loaded), now));
+        }
+        return loaded;
+    }
+
+    public synchronized void evict(String email) {
+        if (email != null) {
+            entries.remove(email.toLowerCase());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static UserDetails copyOf(UserDetails details) {
+        return User.withUserDetails(details).build();
+    }
+
+    private record Entry(UserDetails details, long loadedAtMillis) {
+    }
+}
@@ -3,6 +3,9 @@ package com.myfinbank.admin.service;
 import com.myfinbank.admin.entity.Admin;
 import com.myfinbank.admin.dto.AdminDTO;
 import com.myfinbank.admin.repository.AdminRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,20 +13,35 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
+@Slf4j
 public class AdminService implements UserDetailsService {
 
     private final AdminRepository adminRepository;
     private final PasswordEncoder passwordEncoder;
+    private final AdminDetailsCache adminDetailsCache;
 
-    public AdminService(AdminRepository adminRepository, PasswordEncoder passwordEncoder) {
+    // Latest login time per admin not yet written - flushed on a schedule so repeated logins
+    // cost at most one UPDATE per admin per interval
+    private final Map<String, LocalDateTime> pendingLastLogins = new ConcurrentHashMap<>();
+
+    public AdminService(AdminRepository adminRepository, PasswordEncoder passwordEncoder,
+                        AdminDetailsCache adminDetailsCache) {
         this.adminRepository = adminRepository;
         this.passwordEncoder = passwordEncoder;
+        this.adminDetailsCache = adminDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        return adminDetailsCache.get(email, this::loadAdminDetails);
+    }
+
+    private UserDetails loadAdminDetails(String email) {
         Admin admin = adminRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Admin not found: " + email));
 
@@ -58,10 +76,28 @@ public class AdminService implements UserDetailsService {
                 .orElseThrow(() -> new RuntimeException("Admin not found: " + email));
     }
 
+    // Remember the login time; it is written by flushLastLogins
     public void updateLastLogin(String email) {
-        Admin admin = findByEmail(email);
-        admin.setLastLoginDate(LocalDateTime.now());
-        adminRepository.save(admin);
+        pendingLastLogins.put(email, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${admin.last-login.flush-interval:60000}")
+    @PreDestroy
+    public void flushLastLogins() {
+        Iterator<Map.Entry<String, LocalDateTime>> pending = pendingLastLogins.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, LocalDateTime> login = pending.next();
+            // Remove before writing so a login recorded meanwhile is kept for the next flush
+            if (!pendingLastLogins.remove(login.getKey(), login.getValue())) {
+                continue;
+            }
+            try {
+                adminRepository.updateLastLogin(login.getKey(), login.getValue());
+            } catch (Exception e) {
+                pendingLastLogins.putIfAbsent(login.getKey(), login.getValue());
+                log.warn("Failed to record last login for {}: {}", login.getKey(), e.getMessage());
+            }
+        }
     }
 
     public boolean existsByEmail(String email) {
@@ -90,6 +126,7 @@ public class AdminService implements UserDetailsService {
         
         // Save updated admin
         Admin savedAdmin = adminRepository.save(existingAdmin);
+        adminDetailsCache.evict(savedAdmin.getEmail());
         
         // Convert to DTO and return
         return convertToDTO(savedAdmin);
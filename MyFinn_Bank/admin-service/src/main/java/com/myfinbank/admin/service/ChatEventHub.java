@@ -0,0 +1,203 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.ChatEventDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// In-memory fan-out of chat events to admin consoles over SSE. Each subscriber has a
+// bounded buffer drained by the delivery executor, so a slow browser never blocks the
+// publisher: when its buffer overflows the backlog is dropped and the subscriber is told
+// to resync from the REST endpoints instead.
+@Component
+@Slf4j
+public class ChatEventHub {
+
+    public static final String MESSAGE = "MESSAGE";
+    public static final String READ = "READ";
+    public static final String RESYNC = "RESYNC";
+
+    // Subscribers to every conversation (the inbox) are keyed under this id
+    private static final Long ALL_CUSTOMERS = 0L;
+
+    private final TaskExecutor deliveryExecutor;
+    private final int bufferSize;
+    private final long emitterTimeoutMillis;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Counter delivered;
+    private final Counter dropped;
+
+    @Autowired
+    public ChatEventHub(MeterRegistry meterRegistry,
+                        @Value("${chat.push.delivery-threads:4}") int deliveryThreads,
+                        @Value("${chat.push.buffer-size:100}") int bufferSize,
+                        @Value("${chat.push.emitter-timeout:30m}") Duration emitterTimeout) {
+        this(createDeliveryExecutor(deliveryThreads), meterRegistry, bufferSize, emitterTimeout);
+    }
+
+    ChatEventHub(TaskExecutor deliveryExecutor,
+                 MeterRegistry meterRegistry,
+                 int bufferSize,
+                 Duration emitterTimeout) {
+        this.deliveryExecutor = deliveryExecutor;
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.delivered = Counter.builder("chat.push.events.delivered")
+                .description("Chat events written to SSE subscribers")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("chat.push.events.dropped")
+                .description("Chat events discarded because a subscriber buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("chat.push.subscribers", this, ChatEventHub::getSubscriberCount)
+                .description("Open SSE chat subscriptions")
+                .register(meterRegistry);
+    }
+
+    // Open a subscription to one conversation, or to all of them when customerId is null
+    public SseEmitter subscribe(Long customerId) {
+        Long key = customerId != null ? customerId : ALL_CUSTOMERS;
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(key, emitter);
+
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return emitter;
+    }
+
+    // Queue an event for everyone watching the event's conversation or the whole inbox
+    public void publish(ChatEventDTO event) {
+        offerTo(subscribers.get(ALL_CUSTOMERS), event);
+        if (event.getCustomerId() != null && !ALL_CUSTOMERS.equals(event.getCustomerId())) {
+            offerTo(subscribers.get(event.getCustomerId()), event);
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return getSubscriberCount() > 0;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (deliveryExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    // Kept private to the hub rather than exposed as a bean, so Spring Boot's default
+    // application task executor (used for MVC async requests) is left in place
+    private static ThreadPoolTaskExecutor createDeliveryExecutor(int deliveryThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(deliveryThreads);
+        executor.setMaxPoolSize(deliveryThreads);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("ChatPush-");
+        executor.initialize();
+        return executor;
+    }
+
+    private void offerTo(Set<Subscriber> targets, ChatEventDTO event) {
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.key, (key, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private final class Subscriber {
+        private final Long key;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<ChatEventDTO> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean overflowed;
+
+        Subscriber(Long key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(ChatEventDTO event) {
+            if (!buffer.offer(event)) {
+                // Too far behind - drop the backlog and let the client catch up over REST
+                dropped.increment(buffer.size() + 1);
+                buffer.clear();
+                overflowed = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                deliveryExecutor.execute(this::drain);
+            } catch (TaskRejectedException e) {
+                draining.set(false);
+                dropped.increment(buffer.size());
+                buffer.clear();
+                overflowed = true;
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed) {
+                    overflowed = false;
+                    send(new ChatEventDTO(RESYNC, key, null));
+                }
+                ChatEventDTO event;
+                while ((event = buffer.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping chat subscriber for {}: {}", key, e.getMessage());
+                buffer.clear();
+                remove(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!buffer.isEmpty() || overflowed) {
+                scheduleDrain();
+            }
+        }
+
+        private void send(ChatEventDTO event) throws IOException {
+            emitter.send(SseEmitter.event().name(event.getType().toLowerCase()).data(event));
+            delivered.increment();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.ChatEventDTO;
+import com.myfinbank.admin.dto.ChatMessageDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Customer messages are written by customer-service, so admin-service notices them with one
+// shared query per interval and pushes them through the hub. Nothing runs while no admin
+// console is subscribed, and the cost does not grow with the number of consoles.
+@Component
+@Slf4j
+public class ChatMessageWatcher {
+
+    private static final int BATCH_SIZE = 200;
+
+    // Ids are allocated before commit, so a message can become visible after one with a higher id.
+    // Each poll re-reads this many ids below the highest seen and skips the ones already published.
+    static final int OVERLAP_IDS = 100;
+
+    private final AdminChatService chatService;
+    private final ChatEventHub chatEventHub;
+
+    // Only touched from the scheduler thread
+    private Long lastSeenId;
+    private final Set<Long> publishedIds = new HashSet<>(); // Seen ids inside the overlap window
+
+    public ChatMessageWatcher(AdminChatService chatService, ChatEventHub chatEventHub) {
+        this.chatService = chatService;
+        this.chatEventHub = chatEventHub;
+    }
+
+    @Scheduled(fixedDelayString = "${chat.push.poll-interval:2000}")
+    public void publishNewCustomerMessages() {
+        if (!chatEventHub.hasSubscribers()) {
+            lastSeenId = null; // Start from "now" when someone subscribes again
+            publishedIds.clear();
+            return;
+        }
+        try {
+            if (lastSeenId == null) {
+                // Messages already there when the first console subscribed are not pushed
+                lastSeenId = chatService.getLatestMessageId();
+                chatService.getMessagesAfter(Math.max(0L, lastSeenId - OVERLAP_IDS), BATCH_SIZE)
+                        .forEach(message -> publishedIds.add(message.getId()));
+                return;
+            }
+
+            long cursor = Math.max(0L, lastSeenId - OVERLAP_IDS);
+            List<ChatMessageDTO> messages;
+            do {
+                messages = chatService.getMessagesAfter(cursor, BATCH_SIZE);
+                for (ChatMessageDTO message : messages) {
+                    cursor = message.getId();
+                    lastSeenId = Math.max(lastSeenId, message.getId());
+                    // Admin messages were already published when they were sent
+                    if (publishedIds.add(message.getId()) && "CUSTOMER".equals(message.getSenderType())) {
+                        chatEventHub.publish(new ChatEventDTO(ChatEventHub.MESSAGE, message.getCustomerId(), message));
+                    }
+                }
+            } while (messages.size() == BATCH_SIZE);
+            long windowStart = lastSeenId - OVERLAP_IDS;
+            publishedIds.removeIf(id -> id <= windowStart);
+        } catch (Exception e) {
+            log.warn("Failed to check for new chat messages: {}", e.getMessage());
+        }
+    }
+}
@@ -1,61 +1,141 @@
 package com.myfinbank.admin.service;
 
 import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.dto.CustomerPageDTO;
+import com.myfinbank.admin.dto.TransactionDTO;
+import com.myfinbank.admin.dto.TransactionPageDTO;
 import com.myfinbank.admin.repository.CustomerDataRepository;
 import com.myfinbank.admin.repository.LoanApplicationRepository;
+import com.myfinbank.admin.repository.TransactionHistoryRepository;
 import com.myfinbank.admin.exception.CustomerNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerManagementService {
 
+    // Above this many customers an IN list gets unwieldy (and MySQL caps prepared
+    // statement parameters), so we count over the whole loans table instead
+    static final int LOAN_COUNT_IN_LIST_LIMIT = 1000;
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    // Streamed customers are enriched with loan counts this many at a time
+    static final int EXPORT_BATCH_SIZE = 500;
+
+    // Values of customer.search.mode
+    static final String SEARCH_MODE_INDEX = "index";
+    static final String SEARCH_MODE_FULLTEXT = "fulltext";
+    static final String SEARCH_MODE_LIKE = "like";
+
     @Autowired
     private CustomerDataRepository customerDataRepository;
 
     @Autowired
     private LoanApplicationRepository loanApplicationRepository;
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
     
     @Autowired
     private EmailNotificationService emailNotificationService;
 
+    @Autowired
+    private DashboardStatsCache dashboardStatsCache;
+
+    @Autowired
+    private CustomerNameCache customerNameCache;
+
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Value("${customer.search.mode:index}")
+    private String searchMode = SEARCH_MODE_INDEX;
+
+    @Value("${customer.search.max-results:50}")
+    private int searchMaxResults = 50;
+
     // Get all customers for admin management
     public List<CustomerDTO> getAllCustomers() {
         List<CustomerDTO> customers = customerDataRepository.findAll();
         // Add loan application counts
-        for (CustomerDTO customer : customers) {
-            customer.setActiveLoanApplications(
-                loanApplicationRepository.findByCustomerId(customer.getId()).size()
-            );
-        }
+        enrichWithLoanCounts(customers);
         return customers;
     }
 
+    // Get one keyset page of customers, newest first
+    public CustomerPageDTO getCustomersPage(String cursor, int size, boolean activeOnly) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterCreatedAt = parseCursorTime(parts[0]);
+            afterId = Long.parseLong(parts[1]);
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<CustomerDTO> customers = customerDataRepository.findPage(afterCreatedAt, afterId, pageSize + 1, activeOnly);
+        boolean hasMore = customers.size() > pageSize;
+        if (hasMore) {
+            customers = new ArrayList<>(customers.subList(0, pageSize));
+        }
+        enrichWithLoanCounts(customers);
+
+        String nextCursor = null;
+        if (hasMore) {
+            CustomerDTO last = customers.get(customers.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new CustomerPageDTO(customers, nextCursor, hasMore);
+    }
+
+    // Stream all customers to the sink, enriching loan counts one batch at a time
+    public void exportCustomers(boolean activeOnly, Consumer<CustomerDTO> sink) {
+        List<CustomerDTO> batch = new ArrayList<>(EXPORT_BATCH_SIZE);
+        customerDataRepository.streamAll(activeOnly, customer -> {
+            batch.add(customer);
+            if (batch.size() == EXPORT_BATCH_SIZE) {
+                enrichWithLoanCounts(batch);
+                batch.forEach(sink);
+                batch.clear();
+            }
+        });
+        enrichWithLoanCounts(batch);
+        batch.forEach(sink);
+    }
+
     // Get active customers only
     public List<CustomerDTO> getActiveCustomers() {
         List<CustomerDTO> customers = customerDataRepository.findActiveCustomers();
         // Add loan application counts
-        for (CustomerDTO customer : customers) {
-            customer.setActiveLoanApplications(
-                loanApplicationRepository.findByCustomerId(customer.getId()).size()
-            );
-        }
+        enrichWithLoanCounts(customers);
         return customers;
     }
 
-    // Search customers by name or email
+    // Search customers by name, email or phone, best matches first
     public List<CustomerDTO> searchCustomers(String searchTerm) {
-        List<CustomerDTO> customers = customerDataRepository.searchCustomers(searchTerm);
-        // Add loan application counts
-        for (CustomerDTO customer : customers) {
-            customer.setActiveLoanApplications(
-                loanApplicationRepository.findByCustomerId(customer.getId()).size()
-            );
+        List<CustomerDTO> customers;
+        if (SEARCH_MODE_FULLTEXT.equals(searchMode)) {
+            customers = customerDataRepository.searchCustomersFullText(searchTerm, searchMaxResults);
+        } else if (SEARCH_MODE_INDEX.equals(searchMode) && customerSearchIndex.isReady()) {
+            customers = customerDataRepository.findByIds(customerSearchIndex.search(searchTerm, searchMaxResults));
+        } else {
+            customers = customerDataRepository.searchCustomers(searchTerm, searchMaxResults);
         }
+        // Add loan application counts
+        enrichWithLoanCounts(customers);
         return customers;
     }
 
@@ -87,7 +167,8 @@ public class CustomerManagementService {
     }
 
 
-    // Activate/deactivate customer account
+    // Activate/deactivate customer account - the deactivation email is queued in the same transaction
+    @Transactional
     public CustomerDTO toggleCustomerStatus(Long customerId) {
         CustomerDTO customer = customerDataRepository.findById(customerId)
                 .orElseThrow(() -> new CustomerNotFoundException("Customer not found with ID: " + customerId));
@@ -100,16 +181,11 @@ public class CustomerManagementService {
         if (wasActive) {
             success = customerDataRepository.deactivateCustomer(customerId);
             
-            // Send deactivation email if customer was successfully deactivated
+            // Queue deactivation email if customer was successfully deactivated
             if (success) {
-                try {
-                    // Get account number for the customer (assuming first account)
-                    String accountNumber = getCustomerAccountNumber(customerId);
-                    emailNotificationService.sendAccountDeactivationEmail(customerId, accountNumber);
-                } catch (Exception e) {
-                    // Log error but don't fail the deactivation process
-                    System.err.println("Failed to send deactivation email: " + e.getMessage());
-                }
+                // Get account number for the customer (assuming first account)
+                String accountNumber = getCustomerAccountNumber(customerId);
+                emailNotificationService.sendAccountDeactivationEmail(customerId, accountNumber);
             }
         } else {
             success = customerDataRepository.activateCustomer(customerId);
@@ -118,6 +194,8 @@ public class CustomerManagementService {
         if (!success) {
             throw new RuntimeException("Failed to update customer status");
         }
+        dashboardStatsCache.recordCustomerStatusChange(!wasActive);
+        customerNameCache.evict(customerId);
         
         // Return updated customer
         return getCustomerById(customerId);
@@ -127,11 +205,7 @@ public class CustomerManagementService {
     public List<CustomerDTO> getRecentCustomers() {
         List<CustomerDTO> customers = customerDataRepository.findRecentCustomers(10);
         // Add loan application counts
-        for (CustomerDTO customer : customers) {
-            customer.setActiveLoanApplications(
-                loanApplicationRepository.findByCustomerId(customer.getId()).size()
-            );
-        }
+        enrichWithLoanCounts(customers);
         return customers;
     }
     
@@ -145,65 +219,88 @@ public class CustomerManagementService {
         return customerDataRepository.countCustomersCreatedAfter(startDate);
     }
     
-    // Get customer transactions
-    public List<Map<String, Object>> getCustomerTransactions(Long customerId) {
+    // Get one keyset page of a customer's transactions, newest first
+    public TransactionPageDTO getCustomerTransactions(Long customerId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            beforeCreatedAt = parseCursorTime(parts[0]);
+            beforeId = Long.parseLong(parts[1]);
+        }
+
+        List<Long> accountIds = transactionHistoryRepository.findAccountIdsByCustomerId(customerId);
+        if (accountIds.isEmpty()) {
+            return new TransactionPageDTO(List.of(), null, false);
+        }
+
+        // Fetch one extra row to know whether another page exists
+        List<TransactionDTO> transactions = transactionHistoryRepository.findPageByAccountIds(
+                accountIds, beforeCreatedAt, beforeId, pageSize + 1);
+        boolean hasMore = transactions.size() > pageSize;
+        if (hasMore) {
+            transactions = new ArrayList<>(transactions.subList(0, pageSize));
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            TransactionDTO last = transactions.get(transactions.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new TransactionPageDTO(transactions, nextCursor, hasMore);
+    }
+
+    // Set loan application counts on a customer listing with a single grouped COUNT query
+    void enrichWithLoanCounts(List<CustomerDTO> customers) {
+        if (customers.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows;
+        if (customers.size() > LOAN_COUNT_IN_LIST_LIMIT) {
+            rows = loanApplicationRepository.countLoansGroupedByCustomer();
+        } else {
+            List<Long> customerIds = customers.stream()
+                    .map(CustomerDTO::getId)
+                    .distinct()
+                    .collect(Collectors.toList());
+            rows = loanApplicationRepository.countLoansByCustomerIds(customerIds);
+        }
+
+        Map<Long, Integer> loanCounts = new HashMap<>();
+        for (Object[] row : rows) {
+            loanCounts.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+        }
+
+        for (CustomerDTO customer : customers) {
+            customer.setActiveLoanApplications(loanCounts.getOrDefault(customer.getId(), 0));
+        }
+    }
+
+    // created_at is nullable; a row without one is encoded with an empty time
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = (createdAt != null ? createdAt.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
         try {
-            System.out.println("CustomerManagementService: Fetching transactions for customer ID: " + customerId);
-            
-            // First, let's check if the customer has any accounts
-            String accountCheckSql = "SELECT COUNT(*) FROM accounts WHERE customer_id = ?";
-            int accountCount = customerDataRepository.getJdbcTemplate().queryForObject(accountCheckSql, Integer.class, customerId);
-            System.out.println("Customer has " + accountCount + " accounts");
-            
-            if (accountCount == 0) {
-                System.out.println("No accounts found for customer " + customerId);
-                return List.of();
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
             }
-            
-            // Query to get all transactions for the customer
-            String sql = """
-                SELECT 
-                    t.transaction_id,
-                    t.amount,
-                    t.type,
-                    t.status,
-                    t.description,
-                    t.reference,
-                    t.created_at,
-                    fa.account_number as from_account,
-                    ta.account_number as to_account
-                FROM transactions t
-                LEFT JOIN accounts fa ON t.from_account_id = fa.id
-                LEFT JOIN accounts ta ON t.to_account_id = ta.id
-                WHERE (fa.customer_id = ? OR ta.customer_id = ?)
-                ORDER BY t.created_at DESC
-                LIMIT 50
-                """;
-            
-            List<Map<String, Object>> transactions = customerDataRepository.getJdbcTemplate().query(sql, (rs, rowNum) -> {
-                Map<String, Object> transaction = new HashMap<>();
-                transaction.put("transactionId", rs.getString("transaction_id"));
-                transaction.put("amount", rs.getBigDecimal("amount"));
-                transaction.put("type", rs.getString("type"));
-                transaction.put("status", rs.getString("status"));
-                transaction.put("description", rs.getString("description"));
-                transaction.put("reference", rs.getString("reference"));
-                transaction.put("createdAt", rs.getTimestamp("created_at"));
-                transaction.put("fromAccount", rs.getString("from_account"));
-                transaction.put("toAccount", rs.getString("to_account"));
-                return transaction;
-            }, customerId, customerId);
-            
-            System.out.println("Found " + transactions.size() + " transactions for customer " + customerId);
-            return transactions;
-            
-        } catch (Exception e) {
-            System.err.println("Error fetching customer transactions: " + e.getMessage());
-            e.printStackTrace(); // Add stack trace for debugging
-            return List.of();
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
         }
     }
 
+    private LocalDateTime parseCursorTime(String value) {
+        return value.isEmpty() ? null : LocalDateTime.parse(value);
+    }
+
     // Helper method to get customer's account number
     private String getCustomerAccountNumber(Long customerId) {
         try {
@@ -0,0 +1,99 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+// Small LRU cache of customer name and email used when converting chat messages and loans
+// to DTOs. Entries expire after a while because customer-service can edit names directly.
+@Component
+public class CustomerNameCache {
+
+    private final CustomerDataRepository customerDataRepository;
+    private final int maxSize;
+    private final long expiryMillis;
+
+    // Access-ordered so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<Long, Entry> entries;
+
+    public CustomerNameCache(CustomerDataRepository customerDataRepository,
+                             @Value("${customer.name-cache.max-size:10000}") int maxSize,
+                             @Value("${customer.name-cache.expiry:10m}") Duration expiry) {
+        this.customerDataRepository = customerDataRepository;
+        this.maxSize = maxSize;
+        this.expiryMillis = expiry.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > CustomerNameCache.this.maxSize;
+            }
+        };
+    }
+
+    // Resolve customers by id, loading every cache miss with a single query
+    public Map<Long, CustomerDTO> resolve(Collection<Long> customerIds) {
+        Map<Long, CustomerDTO> resolved = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            for (Long customerId : new LinkedHashSet<>(customerIds)) {
+                if (customerId == null) {
+                    continue;
+                }
+                Entry entry = entries.get(customerId);
+                if (entry != null && now - entry.loadedAtMillis < expiryMillis) {
+                    resolved.put(customerId, entry.customer);
+                } else {
+                    missing.add(customerId);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<CustomerDTO> loaded = customerDataRepository.findBasicDetailsByIds(missing);
+            synchronized (this) {
+                for (CustomerDTO customer : loaded) {
+                    entries.put(customer.getId(), new Entry(customer, now));
+                    resolved.put(customer.getId(), customer);
+                }
+            }
+        }
+        return resolved;
+    }
+
+    // Get "First Last" for the customer, or null if the customer does not exist
+    public String getName(Long customerId) {
+        if (customerId == null) {
+            return null;
+        }
+        CustomerDTO customer = resolve(List.of(customerId)).get(customerId);
+        return customer != null ? fullName(customer) : null;
+    }
+
+    // Drop a customer after their record changes
+    public synchronized void evict(Long customerId) {
+        entries.remove(customerId);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static String fullName(CustomerDTO customer) {
+        return customer.getFirstName() + " " + customer.getLastName();
+    }
+
+    private record Entry(CustomerDTO customer, long loadedAtMillis) {
+    }
+}
@@ -0,0 +1,353 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// In-memory trigram index over customer name, email and phone, so admin search does not scan
+// the customers table on every keystroke. Customers are written by customer-service, so the
+// index is loaded in full on the first run and then kept current by polling updated_at.
+// Until the first load finishes isReady() is false and callers fall back to SQL.
+@Component
+@Slf4j
+public class CustomerSearchIndex {
+
+    // Rank of a match: whole field, start of a field or word, anywhere in a field
+    static final int EXACT = 0;
+    static final int PREFIX = 1;
+    static final int SUBSTRING = 2;
+
+    // Re-read rows updated this long before the watermark to catch late-committing transactions
+    private static final Duration CHANGE_OVERLAP = Duration.ofMinutes(1);
+
+    private static final Comparator<Match> BEST_FIRST = Comparator
+            .comparingInt(Match::rank)
+            .thenComparing(Comparator.comparingLong(Match::id).reversed());
+
+    private final CustomerDataRepository customerDataRepository;
+    private final boolean enabled;
+    private final Timer searchTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index; // Guarded by lock; null until the first load
+    private LocalDateTime loadedUpTo; // Only touched from refresh(), which is synchronized
+
+    @Autowired
+    public CustomerSearchIndex(CustomerDataRepository customerDataRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${customer.search.mode:index}") String mode) {
+        this(customerDataRepository, meterRegistry, CustomerManagementService.SEARCH_MODE_INDEX.equals(mode));
+    }
+
+    CustomerSearchIndex(CustomerDataRepository customerDataRepository, MeterRegistry meterRegistry, boolean enabled) {
+        this.customerDataRepository = customerDataRepository;
+        this.enabled = enabled;
+        this.searchTimer = Timer.builder("customer.search.index.latency")
+                .description("Time to answer a customer search from the in-memory index")
+                .register(meterRegistry);
+        Gauge.builder("customer.search.index.size", this, CustomerSearchIndex::size)
+                .description("Customers held in the in-memory search index")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.search.refresh-interval:30000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            boolean compact;
+            lock.readLock().lock();
+            try {
+                compact = index == null || index.needsCompaction();
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (compact) {
+                rebuild();
+            } else {
+                applyChanges();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to refresh customer search index: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return index != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids of the best matching customers, best first. Within a rank newer customers come first.
+    public List<Long> search(String term, int limit) {
+        String query = normalize(term);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        return searchTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                return index != null ? index.search(query, limit) : List.<Long>of();
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index != null ? index.live() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Build a fresh index off to the side and swap it in, so searches keep running during the load
+    void rebuild() {
+        long started = System.currentTimeMillis();
+        Index fresh = new Index();
+        LocalDateTime[] newest = {null};
+        customerDataRepository.streamSearchFields(null, customer -> {
+            fresh.put(customer);
+            newest[0] = later(newest[0], customer.getUpdatedAt());
+        });
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loadedUpTo = newest[0];
+        log.info("Customer search index loaded {} customers in {} ms", fresh.live(), System.currentTimeMillis() - started);
+    }
+
+    // Re-index customers changed since the last run
+    void applyChanges() {
+        LocalDateTime since = loadedUpTo != null ? loadedUpTo.minus(CHANGE_OVERLAP) : null;
+        List<CustomerDTO> changed = new ArrayList<>();
+        customerDataRepository.streamSearchFields(since, changed::add);
+        if (changed.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (CustomerDTO customer : changed) {
+                index.put(customer);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (CustomerDTO customer : changed) {
+            loadedUpTo = later(loadedUpTo, customer.getUpdatedAt());
+        }
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    // Searchable fields of one customer, lower-cased
+    private record Doc(long id, String name, String email, String phone) {
+
+        // Best rank of the query in any field, or -1 when it does not occur
+        int rank(String query) {
+            int best = -1;
+            for (String field : new String[]{name, email, phone}) {
+                int rank = rankIn(field, query);
+                if (rank >= 0 && (best < 0 || rank < best)) {
+                    best = rank;
+                }
+            }
+            return best;
+        }
+
+        private static int rankIn(String field, String query) {
+            int at = field.indexOf(query);
+            if (at < 0) {
+                return -1;
+            }
+            if (field.length() == query.length()) {
+                return EXACT;
+            }
+            // A prefix of the field or of any word in it, e.g. "kum" for "rajesh kumar"
+            while (at >= 0) {
+                if (at == 0 || !Character.isLetterOrDigit(field.charAt(at - 1))) {
+                    return PREFIX;
+                }
+                at = field.indexOf(query, at + 1);
+            }
+            return SUBSTRING;
+        }
+    }
+
+    private record Match(int rank, long id) {
+    }
+
+    // Documents are addressed by ordinal so posting lists stay sorted int arrays. An updated
+    // customer gets a new ordinal and the old one is left dead until the next full rebuild.
+    static final class Index {
+        private final List<Doc> docs = new ArrayList<>(); // null where superseded
+        private final Map<Long, Integer> ordinals = new HashMap<>();
+        private final Map<Long, IntList> postings = new HashMap<>();
+        private int dead;
+
+        void put(CustomerDTO customer) {
+            Doc doc = new Doc(customer.getId(),
+                    normalize(customer.getFirstName() + " " + customer.getLastName()),
+                    normalize(customer.getEmail()),
+                    normalize(customer.getPhone()));
+            Integer existing = ordinals.get(doc.id());
+            if (existing != null) {
+                if (doc.equals(docs.get(existing))) {
+                    return;
+                }
+                docs.set(existing, null);
+                dead++;
+            }
+            int ordinal = docs.size();
+            docs.add(doc);
+            ordinals.put(doc.id(), ordinal);
+            for (String field : new String[]{doc.name(), doc.email(), doc.phone()}) {
+                for (int i = 0; i + 3 <= field.length(); i++) {
+                    postings.computeIfAbsent(trigram(field, i), k -> new IntList()).addIfAbsent(ordinal);
+                }
+            }
+        }
+
+        int live() {
+            return docs.size() - dead;
+        }
+
+        // Rebuild once a quarter of the ordinals are dead
+        boolean needsCompaction() {
+            return dead > 1000 && dead > live() / 4;
+        }
+
+        List<Long> search(String query, int limit) {
+            PriorityQueue<Match> worstFirst = new PriorityQueue<>(Math.min(limit, 1024) + 1, BEST_FIRST.reversed());
+            if (query.length() < 3) {
+                // Too short for trigrams - scan every document
+                for (int ordinal = 0; ordinal < docs.size(); ordinal++) {
+                    offer(worstFirst, ordinal, query, limit);
+                }
+            } else {
+                IntList[] lists = postingsFor(query);
+                if (lists == null) {
+                    return List.of();
+                }
+                IntList smallest = lists[0];
+                for (int i = 0; i < smallest.size(); i++) {
+                    int ordinal = smallest.get(i);
+                    if (inAll(lists, ordinal)) {
+                        offer(worstFirst, ordinal, query, limit);
+                    }
+                }
+            }
+            List<Match> matches = new ArrayList<>(worstFirst);
+            matches.sort(BEST_FIRST);
+            return matches.stream().map(Match::id).toList();
+        }
+
+        // Posting lists for every trigram of the query, smallest first, or null if one is missing
+        private IntList[] postingsFor(String query) {
+            IntList[] lists = new IntList[query.length() - 2];
+            for (int i = 0; i < lists.length; i++) {
+                IntList list = postings.get(trigram(query, i));
+                if (list == null) {
+                    return null;
+                }
+                lists[i] = list;
+            }
+            Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+            return lists;
+        }
+
+        private static boolean inAll(IntList[] lists, int ordinal) {
+            for (int i = 1; i < lists.length; i++) {
+                if (!lists[i].contains(ordinal)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Trigrams only narrow the candidates - the match itself is checked against the fields
+        private void offer(PriorityQueue<Match> worstFirst, int ordinal, String query, int limit) {
+            Doc doc = docs.get(ordinal);
+            if (doc == null) {
+                return;
+            }
+            int rank = doc.rank(query);
+            if (rank < 0) {
+                return;
+            }
+            worstFirst.add(new Match(rank, doc.id()));
+            if (worstFirst.size() > limit) {
+                worstFirst.poll();
+            }
+        }
+    }
+
+    // Growable sorted int array; ordinals are only ever appended in increasing order
+    static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void addIfAbsent(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.repository.DailyRollupRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Keeps transaction_daily_rollup and loan_daily_rollup current. New source rows are folded in
+// incrementally above a per-table id watermark. Loan and transaction statuses change long after
+// the row was created (often by customer-service), so the months the monthly report refreshes are
+// rebuilt on a slower schedule. Loan decisions taken in this service move the loan between status
+// buckets immediately.
+@Service
+@Slf4j
+public class DailyRollupService {
+
+    private static final List<String> SOURCES = List.of(DailyRollupRepository.TRANSACTIONS, DailyRollupRepository.LOANS);
+
+    // Bucket rows are locked in (day, loan type) order so concurrent bulk decisions cannot deadlock
+    private static final Comparator<List<Object>> BUCKET_ORDER = Comparator
+            .comparing((List<Object> key) -> (LocalDate) key.get(0))
+            .thenComparing(key -> (String) key.get(1));
+
+    private final DailyRollupRepository dailyRollupRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer refreshTimer;
+
+    // Off where the database is not MySQL, as the rollup SQL is MySQL-only. With no watermark row,
+    // loan decisions leave the rollups alone and loan counts come from the loans table.
+    @Value("${rollup.daily.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${rollup.daily.chunk-size:50000}")
+    private long chunkSize = 50_000;
+
+    // The monthly report recomputes this many months from the rollups, so they are rebuilt too
+    @Value("${reports.rollup.refresh-months:3}")
+    private int reconcileMonths = 3;
+
+    public DailyRollupService(DailyRollupRepository dailyRollupRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry) {
+        this.dailyRollupRepository = dailyRollupRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.refreshTimer = Timer.builder("rollup.daily.refresh")
+                .description("Time spent bringing the daily rollups up to date")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${rollup.daily.interval:60000}")
+    public synchronized void refresh() {
+        if (!enabled) {
+            return;
+        }
+        refreshTimer.record(() -> {
+            for (String source : SOURCES) {
+                try {
+                    catchUp(source);
+                } catch (Exception e) {
+                    log.warn("Failed to refresh {} daily rollup: {}", source, e.getMessage());
+                }
+            }
+        });
+    }
+
+    // Fold rows above the watermark into the rollup, one chunk of ids per transaction
+    void catchUp(String source) {
+        long maxId = dailyRollupRepository.findMaxSourceId(source);
+        boolean more = true;
+        while (more) {
+            more = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                long lastId = dailyRollupRepository.lockWatermark(source);
+                if (lastId >= maxId) {
+                    return false;
+                }
+                long upToId = Math.min(maxId, lastId + chunkSize);
+                dailyRollupRepository.addRange(source, lastId, upToId);
+                dailyRollupRepository.saveWatermark(source, upToId);
+                return upToId < maxId;
+            }));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rollup.daily.reconcile-interval:300000}")
+    public synchronized void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        for (String source : SOURCES) {
+            try {
+                reconcileRecentMonths(source);
+            } catch (Exception e) {
+                log.warn("Failed to reconcile {} daily rollup: {}", source, e.getMessage());
+            }
+        }
+    }
+
+    // Recompute the trailing months from source rows below the watermark
+    void reconcileRecentMonths(String source) {
+        LocalDate fromDay = LocalDate.now().withDayOfMonth(1).minusMonths(Math.max(1, reconcileMonths) - 1L);
+        transactionTemplate.executeWithoutResult(status -> {
+            long lastId = dailyRollupRepository.lockWatermark(source);
+            dailyRollupRepository.rebuildFrom(source, fromDay, lastId);
+        });
+    }
+
+    // Loan decisions call this before touching loan rows. The lock is shared, so decisions do not
+    // block each other, but they wait for and hold off the job, which takes it exclusively. Every
+    // path then locks in the same order: watermark, loan rows, rollup buckets.
+    public void lockLoanWatermark() {
+        dailyRollupRepository.shareWatermark(DailyRollupRepository.LOANS);
+    }
+
+    // Many pending loans are being decided together. Same rules as recordLoanDecision, with one
+    // bucket adjustment per application day and loan type, applied in a fixed order.
+    public void recordLoanDecisions(List<LoanApplication> loans,
+                                    LoanApplication.LoanStatus previousStatus,
+                                    LoanApplication.LoanStatus newStatus) {
+        if (loans.isEmpty() || previousStatus == newStatus) {
+            return;
+        }
+        long lastId = dailyRollupRepository.shareWatermark(DailyRollupRepository.LOANS);
+        Map<List<Object>, DailyRollupRepository.LoanBucketMove> moves = new TreeMap<>(BUCKET_ORDER);
+        for (LoanApplication loan : loans) {
+            if (loan.getAppliedAt() == null || loan.getLoanType() == null || loan.getId() == null || loan.getId() > lastId) {
+                continue;
+            }
+            LocalDate day = loan.getAppliedAt().toLocalDate();
+            String loanType = loan.getLoanType().name();
+            BigDecimal amount = loan.getRequestedAmount() != null ? loan.getRequestedAmount() : BigDecimal.ZERO;
+            BigDecimal approved = approvedAmount(loan);
+            moves.merge(List.of(day, loanType), new DailyRollupRepository.LoanBucketMove(day, loanType, 1, amount, approved),
+                    (a, b) -> new DailyRollupRepository.LoanBucketMove(day, loanType, a.count() + 1,
+                            a.amount().add(amount), a.approvedAmount().add(approved)));
+        }
+        if (!moves.isEmpty()) {
+            dailyRollupRepository.moveLoans(previousStatus.name(), newStatus.name(), new ArrayList<>(moves.values()));
+        }
+    }
+
+    // A pending loan has been approved or rejected. Joins the caller's transaction, which must
+    // already hold lockLoanWatermark() and the loan row. Loans the job has not folded in yet are
+    // skipped because the job will see their new status anyway.
+    public void recordLoanDecision(LoanApplication loan, LoanApplication.LoanStatus previousStatus) {
+        if (loan.getAppliedAt() == null || loan.getLoanType() == null || previousStatus == loan.getStatus()) {
+            return;
+        }
+        long lastId = dailyRollupRepository.shareWatermark(DailyRollupRepository.LOANS);
+        if (loan.getId() != null && loan.getId() <= lastId) {
+            dailyRollupRepository.moveLoan(loan.getAppliedAt().toLocalDate(), loan.getLoanType().name(),
+                    previousStatus.name(), loan.getStatus().name(), loan.getRequestedAmount(), approvedAmount(loan));
+        }
+    }
+
+    // What the loan adds to an approved bucket - the same rule as the rollup SQL
+    private static BigDecimal approvedAmount(LoanApplication loan) {
+        if (loan.getApprovedAmount() != null) {
+            return loan.getApprovedAmount();
+        }
+        return loan.getRequestedAmount() != null ? loan.getRequestedAmount() : BigDecimal.ZERO;
+    }
+}
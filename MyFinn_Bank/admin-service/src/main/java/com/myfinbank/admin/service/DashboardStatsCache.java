@@ -0,0 +1,173 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.DashboardStatsDTO;
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.repository.DashboardStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+// In-process copy of the dashboard counters. Admin actions in this service adjust the
+// counters in place once their transaction commits; anything else (customer-service
+// writes, new chat messages) is picked up by a full reload from the database once the
+// TTL expires.
+@Component
+@Slf4j
+public class DashboardStatsCache {
+
+    private final DashboardStatsRepository dashboardStatsRepository;
+    private final long ttlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter reconciliations;
+
+    // Guarded by this
+    private DashboardStatsDTO stats;
+    private LocalDate loadedForDay;
+    private long loadedAtMillis;
+
+    public DashboardStatsCache(DashboardStatsRepository dashboardStatsRepository,
+                               MeterRegistry meterRegistry,
+                               @Value("${dashboard.stats.cache.ttl:60s}") Duration ttl) {
+        this.dashboardStatsRepository = dashboardStatsRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.hits = Counter.builder("dashboard.stats.cache.hits")
+                .description("Dashboard stats served from the in-process counters")
+                .register(meterRegistry);
+        this.misses = Counter.builder("dashboard.stats.cache.misses")
+                .description("Dashboard stats requests that triggered a full reload")
+                .register(meterRegistry);
+        this.reconciliations = Counter.builder("dashboard.stats.cache.reconciliations")
+                .description("Full reloads of the dashboard counters from the database")
+                .register(meterRegistry);
+        Gauge.builder("dashboard.stats.cache.staleness", this, DashboardStatsCache::getStalenessSeconds)
+                .description("Seconds since the counters were last reconciled with the database")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // Get a snapshot of the dashboard statistics, reloading when stale
+    public synchronized DashboardStatsDTO getStats() {
+        LocalDate today = LocalDate.now();
+        boolean expired = System.currentTimeMillis() - loadedAtMillis >= ttlMillis;
+        if (stats == null || expired || !today.equals(loadedForDay)) {
+            misses.increment();
+            reload(today);
+        } else {
+            hits.increment();
+        }
+        return copyOf(stats);
+    }
+
+    // Drop the cached counters so the next read goes to the database
+    public synchronized void invalidate() {
+        stats = null;
+    }
+
+    // A pending loan was approved or rejected
+    public void recordLoanDecision(LoanApplication.LoanStatus newStatus, BigDecimal amount) {
+        afterCommit(() -> applyLoanDecision(newStatus, amount));
+    }
+
+    // Many pending loans were decided together, with their total requested amount
+    public void recordLoanDecisions(LoanApplication.LoanStatus newStatus, int count, BigDecimal totalAmount) {
+        afterCommit(() -> applyLoanDecisions(newStatus, count, totalAmount));
+    }
+
+    // A customer account was activated or deactivated
+    public void recordCustomerStatusChange(boolean nowActive) {
+        afterCommit(() -> applyCustomerStatusChange(nowActive));
+    }
+
+    // Unread customer messages were marked as read
+    public void recordMessagesRead(long count) {
+        afterCommit(() -> applyMessagesRead(count));
+    }
+
+    public synchronized double getStalenessSeconds() {
+        if (stats == null) {
+            return 0;
+        }
+        return (System.currentTimeMillis() - loadedAtMillis) / 1000.0;
+    }
+
+    // Inside a transaction the change is only applied once it commits, so a rollback never
+    // leaves the counters ahead of the database; outside one it is applied right away
+    private void afterCommit(Runnable delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            delta.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                delta.run();
+            }
+        });
+    }
+
+    private void applyLoanDecision(LoanApplication.LoanStatus newStatus, BigDecimal amount) {
+        applyLoanDecisions(newStatus, 1, amount);
+    }
+
+    private synchronized void applyLoanDecisions(LoanApplication.LoanStatus newStatus, int count, BigDecimal amount) {
+        if (stats == null || count <= 0) {
+            return;
+        }
+        stats.setPendingLoanApplications(Math.max(0, stats.getPendingLoanApplications() - count));
+        if (newStatus == LoanApplication.LoanStatus.APPROVED) {
+            stats.setApprovedLoans(stats.getApprovedLoans() + count);
+            if (amount != null) {
+                stats.setTotalLoanAmount(stats.getTotalLoanAmount().add(amount));
+            }
+        }
+    }
+
+    private synchronized void applyCustomerStatusChange(boolean nowActive) {
+        if (stats == null) {
+            return;
+        }
+        long delta = nowActive ? 1 : -1;
+        stats.setActiveCustomers(Math.max(0, stats.getActiveCustomers() + delta));
+    }
+
+    private synchronized void applyMessagesRead(long count) {
+        if (stats == null || count <= 0) {
+            return;
+        }
+        stats.setUnreadMessages(Math.max(0, stats.getUnreadMessages() - count));
+    }
+
+    private void reload(LocalDate today) {
+        stats = dashboardStatsRepository.loadDashboardStats(today.atStartOfDay());
+        if (stats.getTotalLoanAmount() == null) {
+            stats.setTotalLoanAmount(BigDecimal.ZERO);
+        }
+        loadedForDay = today;
+        loadedAtMillis = System.currentTimeMillis();
+        reconciliations.increment();
+        log.debug("Dashboard stats reconciled from database: {}", stats);
+    }
+
+    private DashboardStatsDTO copyOf(DashboardStatsDTO source) {
+        return new DashboardStatsDTO(
+                source.getTotalCustomers(),
+                source.getActiveCustomers(),
+                source.getPendingLoanApplications(),
+                source.getApprovedLoans(),
+                source.getTotalLoanAmount(),
+                source.getUnreadMessages(),
+                source.getNewCustomersToday(),
+                source.getNewLoansToday());
+    }
+}
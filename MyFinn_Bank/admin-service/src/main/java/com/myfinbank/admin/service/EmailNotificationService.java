@@ -1,23 +1,30 @@
 package com.myfinbank.admin.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.admin.entity.EmailOutbox;
 import com.myfinbank.admin.entity.LoanApplication;
 import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.exception.CustomerNotFoundException;
 import com.myfinbank.admin.repository.CustomerDataRepository;
+import com.myfinbank.admin.repository.EmailOutboxRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 
+// Customer emails are not sent from the request thread: they are written to the email_outbox
+// table in the same transaction as the change that caused them, and EmailOutboxDispatcher
+// delivers them to email-service in the background.
 @Service
 @Slf4j
 public class EmailNotificationService {
@@ -26,127 +33,103 @@ public class EmailNotificationService {
     private CustomerDataRepository customerDataRepository;
     
     @Autowired
-    private RestTemplate restTemplate;
+    private EmailOutboxRepository emailOutboxRepository;
     
-    @Value("${email-service.name:email-service}")
-    private String emailServiceName;
+    @Autowired
+    private ObjectMapper objectMapper;
     
     private final NumberFormat currencyFormatter = NumberFormat.getCurrencyInstance(new Locale("en", "IN"));
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
 
-    // Send loan approval email
+    // Queue loan approval email
     public void sendLoanApprovalEmail(Long customerId, LoanApplication loan) {
-        try {
-            CustomerDTO customer = customerDataRepository.findById(customerId)
-                    .orElseThrow(() -> new RuntimeException("Customer not found: " + customerId));
-            
-            String url = "http://localhost:8083/api/emails/loan-approval";
-            
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("to", customer.getEmail());
-            params.add("customerName", customer.getFirstName() + " " + customer.getLastName());
-            params.add("loanType", formatLoanType(loan.getLoanType().toString()));
-            params.add("requestedAmount", formatCurrency(loan.getRequestedAmount()));
-            params.add("applicationId", loan.getLoanId() != null ? loan.getLoanId().toString() : "APP" + loan.getId());
-            params.add("applicationDate", loan.getAppliedAt().format(dateFormatter));
-            
-            log.info("Sending loan approval email to: {} via service: {}", customer.getEmail(), emailServiceName);
-            
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, params, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Loan approval email sent successfully to: {}", customer.getEmail());
-            } else {
-                log.warn("Failed to send loan approval email. Status: {}", response.getStatusCode());
-            }
-            
-        } catch (Exception e) {
-            log.error("Error sending loan approval email to customer: {} - {}", customerId, e.getMessage());
-        }
+        queueLoanEmail("loan-approval", customerId, loan);
     }
 
-    // Send loan rejection email
+    // Queue loan rejection email
     public void sendLoanRejectionEmail(Long customerId, LoanApplication loan) {
-        try {
-            CustomerDTO customer = customerDataRepository.findById(customerId)
-                    .orElseThrow(() -> new RuntimeException("Customer not found: " + customerId));
-            
-            String url = "http://localhost:8083/api/emails/loan-rejected";
-            
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("to", customer.getEmail());
-            params.add("customerName", customer.getFirstName() + " " + customer.getLastName());
-            params.add("loanType", formatLoanType(loan.getLoanType().toString()));
-            params.add("requestedAmount", formatCurrency(loan.getRequestedAmount()));
-            params.add("applicationId", loan.getLoanId() != null ? loan.getLoanId().toString() : "APP" + loan.getId());
-            params.add("applicationDate", loan.getAppliedAt().format(dateFormatter));
-            
-            log.info("Sending loan rejection email to: {} via service: {}", customer.getEmail(), emailServiceName);
-            
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, params, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Loan rejection email sent successfully to: {}", customer.getEmail());
-            } else {
-                log.warn("Failed to send loan rejection email. Status: {}", response.getStatusCode());
+        queueLoanEmail("loan-rejected", customerId, loan);
+    }
+
+    // Queue approval or rejection emails for many loans, looking the customers up with one query
+    public void sendLoanDecisionEmails(List<LoanApplication> loans, LoanApplication.LoanStatus decision) {
+        String emailType = decision == LoanApplication.LoanStatus.APPROVED ? "loan-approval" : "loan-rejected";
+        Map<Long, CustomerDTO> customers = new HashMap<>();
+        List<Long> customerIds = loans.stream().map(LoanApplication::getCustomerId).distinct().toList();
+        for (CustomerDTO customer : customerDataRepository.findBasicDetailsByIds(customerIds)) {
+            customers.put(customer.getId(), customer);
+        }
+        for (LoanApplication loan : loans) {
+            CustomerDTO customer = customers.get(loan.getCustomerId());
+            if (customer == null) {
+                log.warn("Not queuing {} email for loan {}: customer {} not found", emailType, loan.getId(), loan.getCustomerId());
+                continue;
             }
-            
-        } catch (Exception e) {
-            log.error("Error sending loan rejection email to customer: {} - {}", customerId, e.getMessage());
+            enqueue(emailType, customer.getEmail(), loanParams(customer, loan));
         }
     }
 
-    // Send account deactivation email
+    // Queue account deactivation email
     public void sendAccountDeactivationEmail(Long customerId, String accountNumber) {
-        try {
-            CustomerDTO customer = customerDataRepository.findById(customerId)
-                    .orElseThrow(() -> new RuntimeException("Customer not found: " + customerId));
-            
-            String url = "http://" + emailServiceName + "/api/emails/account-deactivated";
-            
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("to", customer.getEmail());
-            params.add("customerName", customer.getFirstName() + " " + customer.getLastName());
-            params.add("accountNumber", accountNumber);
-            
-            log.info("Sending account deactivation email to: {} via service: {}", customer.getEmail(), emailServiceName);
-            
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, params, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Account deactivation email sent successfully to: {}", customer.getEmail());
-            } else {
-                log.warn("Failed to send account deactivation email. Status: {}", response.getStatusCode());
-            }
-            
-        } catch (Exception e) {
-            log.error("Error sending account deactivation email to customer: {} - {}", customerId, e.getMessage());
-        }
+        CustomerDTO customer = findCustomer(customerId);
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("to", customer.getEmail());
+        params.put("customerName", customer.getFirstName() + " " + customer.getLastName());
+        params.put("accountNumber", accountNumber);
+        enqueue("account-deactivated", customer.getEmail(), params);
     }
     
-    // Send zero balance alert to admin
+    // Queue zero balance alert to admin
     public void sendZeroBalanceAlertToAdmin(String adminEmail, CustomerDTO customer, String accountNumber) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("to", adminEmail);
+        params.put("customerName", customer.getFirstName() + " " + customer.getLastName() + " (" + customer.getEmail() + ")");
+        params.put("accountNumber", accountNumber);
+        enqueue("balance-alert", adminEmail, params);
+    }
+
+    // Write the email to the outbox. Joins the caller's transaction, so the email is only
+    // sent if the loan or customer update that triggered it commits.
+    @Transactional
+    public EmailOutbox enqueue(String emailType, String recipient, Map<String, String> params) {
+        EmailOutbox entry = new EmailOutbox();
+        entry.setEmailType(emailType);
+        entry.setRecipient(recipient);
         try {
-            String url = "http://" + emailServiceName + "/api/emails/balance-alert";
-            
-            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-            params.add("to", adminEmail);
-            params.add("customerName", customer.getFirstName() + " " + customer.getLastName() + " (" + customer.getEmail() + ")");
-            params.add("accountNumber", accountNumber);
-            
-            log.info("Sending zero balance alert to admin: {} via service: {}", adminEmail, emailServiceName);
-            
-            ResponseEntity<Map> response = restTemplate.postForEntity(url, params, Map.class);
-            
-            if (response.getStatusCode().is2xxSuccessful()) {
-                log.info("Zero balance alert sent successfully to admin: {}", adminEmail);
-            } else {
-                log.warn("Failed to send zero balance alert. Status: {}", response.getStatusCode());
-            }
-            
-        } catch (Exception e) {
-            log.error("Error sending zero balance alert to admin: {} - {}", adminEmail, e.getMessage());
+            entry.setPayload(objectMapper.writeValueAsString(params));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Email parameters cannot be serialized", e);
+        }
+        EmailOutbox saved = emailOutboxRepository.save(entry);
+        log.info("Queued {} email to: {} (outbox id {})", emailType, recipient, saved.getId());
+        return saved;
+    }
+
+    // Runs inside the loan decision's transaction, so a missing customer is logged and skipped
+    // rather than thrown - the email must never undo the decision
+    private void queueLoanEmail(String emailType, Long customerId, LoanApplication loan) {
+        Optional<CustomerDTO> customer = customerId != null ? customerDataRepository.findById(customerId) : Optional.empty();
+        if (customer.isEmpty()) {
+            log.warn("Not queuing {} email for loan {}: customer {} not found", emailType, loan.getId(), customerId);
+            return;
         }
+        enqueue(emailType, customer.get().getEmail(), loanParams(customer.get(), loan));
+    }
+
+    private CustomerDTO findCustomer(Long customerId) {
+        return customerDataRepository.findById(customerId)
+                .orElseThrow(() -> new CustomerNotFoundException("Customer not found: " + customerId));
+    }
+
+    private Map<String, String> loanParams(CustomerDTO customer, LoanApplication loan) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("to", customer.getEmail());
+        params.put("customerName", customer.getFirstName() + " " + customer.getLastName());
+        params.put("loanType", loan.getLoanType() != null ? formatLoanType(loan.getLoanType().toString()) : "");
+        params.put("requestedAmount", formatCurrency(loan.getRequestedAmount()));
+        params.put("applicationId", loan.getLoanId() != null ? loan.getLoanId().toString() : "APP" + loan.getId());
+        params.put("applicationDate", loan.getAppliedAt() != null ? loan.getAppliedAt().format(dateFormatter) : "");
+        return params;
     }
     
     // Helper methods
@@ -0,0 +1,222 @@
+package com.myfinbank.admin.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.admin.entity.EmailOutbox;
+import com.myfinbank.admin.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Background sender for the email outbox. Due rows are claimed in small batches (locked with
+// SKIP LOCKED and leased for as long as sending them can take, so several admin-service instances never send the same
+// email), posted to email-service, and written back in one batch. Failures are retried with
+// exponential backoff until max-attempts, after which the row is parked as FAILED.
+@Component
+@Slf4j
+public class EmailOutboxDispatcher {
+
+    private static final TypeReference<Map<String, String>> PARAMS_TYPE = new TypeReference<>() {};
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${email-service.name:email-service}")
+    private String emailServiceName = "email-service";
+
+    @Value("${email.outbox.batch-size:50}")
+    private int batchSize = 50;
+
+    @Value("${email.outbox.max-attempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${email.outbox.initial-backoff:5s}")
+    private Duration initialBackoff = Duration.ofSeconds(5);
+
+    @Value("${email.outbox.max-backoff:10m}")
+    private Duration maxBackoff = Duration.ofMinutes(10);
+
+    // Margin on top of the worst-case time to send a claimed batch
+    @Value("${email.outbox.lease:2m}")
+    private Duration lease = Duration.ofMinutes(2);
+
+    @Value("${email-service.connect-timeout:5s}")
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    @Value("${email-service.read-timeout:10s}")
+    private Duration readTimeout = Duration.ofSeconds(10);
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer deliveryLatency;
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 RestTemplate restTemplate,
+                                 ObjectMapper objectMapper,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.restTemplate = restTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.sent = Counter.builder("email.outbox.sent")
+                .description("Outbox emails accepted by email-service")
+                .register(meterRegistry);
+        this.retried = Counter.builder("email.outbox.retries")
+                .description("Outbox deliveries that failed and were rescheduled")
+                .register(meterRegistry);
+        this.failed = Counter.builder("email.outbox.failed")
+                .description("Outbox emails given up on after the last attempt")
+                .register(meterRegistry);
+        this.deliveryLatency = Timer.builder("email.outbox.delivery.latency")
+                .description("Time from queueing an email to email-service accepting it")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.queue.depth", queueDepth, AtomicLong::get)
+                .description("Emails waiting in the outbox")
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.queue.oldest", oldestPendingSeconds, AtomicLong::get)
+                .description("Age of the oldest email waiting in the outbox")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:1000}")
+    public void dispatch() {
+        try {
+            List<EmailOutbox> batch;
+            do {
+                batch = claimBatch();
+                for (EmailOutbox entry : batch) {
+                    deliver(entry);
+                }
+                if (!batch.isEmpty()) {
+                    emailOutboxRepository.saveAll(batch);
+                }
+            } while (batch.size() == batchSize);
+        } catch (Exception e) {
+            log.warn("Email outbox dispatch failed: {}", e.getMessage());
+        } finally {
+            refreshQueueMetrics();
+        }
+    }
+
+    // Lock the next due rows and push their next attempt past the lease, so the rows stay
+    // invisible to other dispatchers while we send them outside the transaction
+    private List<EmailOutbox> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutbox> due = emailOutboxRepository.findDueForUpdate(
+                    EmailOutbox.OutboxStatus.PENDING, now, PageRequest.of(0, batchSize));
+            LocalDateTime leasedUntil = now.plus(leaseFor(due.size()));
+            for (EmailOutbox entry : due) {
+                entry.setNextAttemptAt(leasedUntil);
+            }
+            return due.isEmpty() ? due : emailOutboxRepository.saveAll(due);
+        });
+    }
+
+    private void deliver(EmailOutbox entry) {
+        String url = "http://" + emailServiceName + "/api/emails/" + entry.getEmailType();
+        try {
+            MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+            objectMapper.readValue(entry.getPayload(), PARAMS_TYPE).forEach(params::add);
+
+            // Lets email-service recognise a resend of an email it already accepted, e.g. after a timeout
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(IDEMPOTENCY_KEY, "email-outbox-" + entry.getId());
+
+            ResponseEntity<Map> response = restTemplate.postForEntity(url, new HttpEntity<>(params, headers), Map.class);
+            if (response.getStatusCode().is2xxSuccessful()) {
+                markSent(entry);
+            } else {
+                markFailed(entry, "HTTP " + response.getStatusCode().value(), false);
+            }
+        } catch (HttpClientErrorException e) {
+            // The request itself is wrong - retrying will not help, except when throttled
+            boolean permanent = e.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS;
+            markFailed(entry, "HTTP " + e.getStatusCode().value() + ": " + e.getStatusText(), permanent);
+        } catch (Exception e) {
+            markFailed(entry, e.getMessage(), false);
+        }
+    }
+
+    private void markSent(EmailOutbox entry) {
+        LocalDateTime now = LocalDateTime.now();
+        entry.setStatus(EmailOutbox.OutboxStatus.SENT);
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setSentAt(now);
+        entry.setLastError(null);
+        sent.increment();
+        deliveryLatency.record(Duration.between(entry.getCreatedAt(), now));
+        log.info("Sent {} email to: {}", entry.getEmailType(), entry.getRecipient());
+    }
+
+    private void markFailed(EmailOutbox entry, String error, boolean permanent) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+
+        if (permanent || attempts >= maxAttempts) {
+            entry.setStatus(EmailOutbox.OutboxStatus.FAILED);
+            failed.increment();
+            log.error("Giving up on {} email to: {} after {} attempts - {}",
+                    entry.getEmailType(), entry.getRecipient(), attempts, error);
+        } else {
+            entry.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+            retried.increment();
+            log.warn("Failed to send {} email to: {} (attempt {}), will retry - {}",
+                    entry.getEmailType(), entry.getRecipient(), attempts, error);
+        }
+    }
+
+    // Rows are sent one after another, each bounded by the connect and read timeouts, so the
+    // last row of the batch is written back at most this long after the claim
+    Duration leaseFor(int rows) {
+        return connectTimeout.plus(readTimeout).multipliedBy(rows).plus(lease);
+    }
+
+    // initialBackoff, doubled for every further attempt, capped at maxBackoff
+    Duration backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void refreshQueueMetrics() {
+        try {
+            Object[] summary = emailOutboxRepository.summarizeByStatus(EmailOutbox.OutboxStatus.PENDING).get(0);
+            queueDepth.set(summary[0] != null ? ((Number) summary[0]).longValue() : 0);
+            LocalDateTime oldest = (LocalDateTime) summary[1];
+            oldestPendingSeconds.set(oldest != null ? Duration.between(oldest, LocalDateTime.now()).toSeconds() : 0);
+        } catch (Exception e) {
+            log.debug("Could not refresh email outbox metrics: {}", e.getMessage());
+        }
+    }
+}
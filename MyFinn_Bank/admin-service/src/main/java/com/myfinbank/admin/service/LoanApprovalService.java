@@ -1,99 +1,224 @@
 package com.myfinbank.admin.service;
 
 import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.dto.CustomerDTO;
 import com.myfinbank.admin.dto.LoanApprovalDTO;
+import com.myfinbank.admin.dto.LoanBulkDecisionDTO;
+import com.myfinbank.admin.dto.LoanDecisionResultDTO;
+import com.myfinbank.admin.dto.LoanPageDTO;
 import com.myfinbank.admin.repository.LoanApplicationRepository;
-import com.myfinbank.admin.repository.CustomerDataRepository;
 import com.myfinbank.admin.exception.LoanProcessingException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 @Service
 public class LoanApprovalService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
+    static final int MAX_BULK_DECISION_SIZE = 1000;
+
+    // Per-loan outcomes of a bulk decision
+    public static final String DECIDED = "DECIDED";
+    public static final String NOT_PENDING = "NOT_PENDING";
+    public static final String NOT_FOUND = "NOT_FOUND";
+
+    // Outcome of a decision on a loan that was no longer pending, used for metrics
+    static final String CONFLICT = "CONFLICT";
+
+    private static final String MODE_SINGLE = "single";
+    private static final String MODE_BULK = "bulk";
+
+    private static final DateTimeFormatter CREATED_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     @Autowired
     private LoanApplicationRepository loanRepository;
 
     @Autowired
-    private CustomerDataRepository customerDataRepository;
+    private CustomerNameCache customerNameCache;
 
     @Autowired
     private EmailNotificationService emailService; // For sending approval/rejection emails
 
+    @Autowired
+    private DashboardStatsCache dashboardStatsCache;
+
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     // Get all pending loan applications for admin review
     public List<LoanApprovalDTO> getPendingLoanApplications() {
-        return loanRepository.findByStatusOrderByAppliedAtAsc(LoanApplication.LoanStatus.PENDING)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(loanRepository.findByStatusOrderByAppliedAtAsc(LoanApplication.LoanStatus.PENDING));
     }
 
     // Get loan applications by status
     public List<LoanApprovalDTO> getLoanApplicationsByStatus(LoanApplication.LoanStatus status) {
-        return loanRepository.findByStatus(status)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(loanRepository.findByStatus(status));
     }
 
-    // Approve loan application
-    public LoanApprovalDTO approveLoan(Long loanId, Long adminId, String remarks) {
-        LoanApplication loan = loanRepository.findById(loanId)
-                .orElseThrow(() -> new LoanProcessingException("Loan application not found: " + loanId));
+    // Get one keyset page of pending loan applications, oldest first
+    public LoanPageDTO getPendingLoanApplications(Long afterId, int size) {
+        return getLoanApplicationsByStatus(LoanApplication.LoanStatus.PENDING, afterId, size);
+    }
 
-        if (loan.getStatus() != LoanApplication.LoanStatus.PENDING) {
-            throw new LoanProcessingException("Loan application is not in pending status");
+    // Get one keyset page of loan applications with the given status, in application order
+    public LoanPageDTO getLoanApplicationsByStatus(LoanApplication.LoanStatus status, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        List<LoanApplication> loans = loanRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                status, afterId != null ? afterId : 0L, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = loans.size() > pageSize;
+        if (hasMore) {
+            loans = loans.subList(0, pageSize);
         }
+        Long nextCursor = hasMore ? loans.get(loans.size() - 1).getId() : null;
+        return new LoanPageDTO(convertToDTOs(loans), nextCursor, hasMore);
+    }
 
-        // Update loan status
-        loan.setStatus(LoanApplication.LoanStatus.APPROVED);
-        loan.setApprovedBy(adminId);
-        loan.setRemarks(remarks);
-        loan.setApprovedDate(LocalDateTime.now());
-
-        LoanApplication savedLoan = loanRepository.save(loan);
-
-        // Send approval email to customer
-        try {
-            emailService.sendLoanApprovalEmail(loan.getCustomerId(), savedLoan);
-        } catch (Exception e) {
-            // Log email error but don't fail the approval process
-            System.err.println("Failed to send approval email: " + e.getMessage());
-        }
+    // Count loan applications per status
+    public long countByStatus(LoanApplication.LoanStatus status) {
+        Long count = loanRepository.countByStatus(status);
+        return count != null ? count : 0L;
+    }
 
-        return convertToDTO(savedLoan);
+    // Approve loan application - the approval email is queued in the same transaction
+    @Transactional
+    public LoanApprovalDTO approveLoan(Long loanId, Long adminId, String remarks) {
+        return decideLoan(loanId, LoanApplication.LoanStatus.APPROVED, adminId, remarks);
     }
 
-    // Reject loan application
+    // Reject loan application - the rejection email is queued in the same transaction
+    @Transactional
     public LoanApprovalDTO rejectLoan(Long loanId, Long adminId, String remarks) {
+        return decideLoan(loanId, LoanApplication.LoanStatus.REJECTED, adminId, remarks);
+    }
+
+    // Decide one loan with a conditional UPDATE instead of read-check-save, so when two admins
+    // act on the same loan at once exactly one UPDATE matches a PENDING row and the other loses
+    private LoanApprovalDTO decideLoan(Long loanId, LoanApplication.LoanStatus decision, Long adminId, String remarks) {
+        // Rollup watermark before the loan row - the same lock order as the rollup job
+        dailyRollupService.lockLoanWatermark();
+        int updated = loanRepository.updateStatusWhereStatus(List.of(loanId), LoanApplication.LoanStatus.PENDING,
+                decision, adminId, remarks, LocalDateTime.now());
+        if (updated == 0) {
+            boolean exists = loanRepository.findById(loanId).isPresent();
+            recordOutcome(exists ? CONFLICT : NOT_FOUND, MODE_SINGLE, 1);
+            throw new LoanProcessingException(exists
+                    ? "Loan application is not in pending status"
+                    : "Loan application not found: " + loanId);
+        }
+        recordOutcome(DECIDED, MODE_SINGLE, 1);
+
+        // The update cleared the persistence context, so this reads the decided row
         LoanApplication loan = loanRepository.findById(loanId)
                 .orElseThrow(() -> new LoanProcessingException("Loan application not found: " + loanId));
+        dailyRollupService.recordLoanDecision(loan, LoanApplication.LoanStatus.PENDING);
+        dashboardStatsCache.recordLoanDecision(decision, loan.getRequestedAmount());
+
+        // Queue approval or rejection email to customer
+        if (decision == LoanApplication.LoanStatus.APPROVED) {
+            emailService.sendLoanApprovalEmail(loan.getCustomerId(), loan);
+        } else {
+            emailService.sendLoanRejectionEmail(loan.getCustomerId(), loan);
+        }
+        return convertToDTO(loan);
+    }
 
-        if (loan.getStatus() != LoanApplication.LoanStatus.PENDING) {
-            throw new LoanProcessingException("Loan application is not in pending status");
+    // Approve or reject many pending loans at once. The pending ones are locked with one SELECT and
+    // updated with one UPDATE guarded by status = PENDING; the rest are reported and left alone.
+    // Notification emails go to the outbox in the same transaction and are delivered in the background.
+    @Transactional
+    public LoanBulkDecisionDTO decideLoans(List<Long> loanIds, LoanApplication.LoanStatus decision,
+                                           Long adminId, String remarks) {
+        if (decision == null || decision == LoanApplication.LoanStatus.PENDING) {
+            throw new LoanProcessingException("Decision must be APPROVED or REJECTED");
+        }
+        List<Long> ids = loanIds == null ? List.of() : loanIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            throw new LoanProcessingException("No loan ids given");
+        }
+        if (ids.size() > MAX_BULK_DECISION_SIZE) {
+            throw new LoanProcessingException("At most " + MAX_BULK_DECISION_SIZE + " loans can be decided at once");
         }
 
-        // Update loan status
-        loan.setStatus(LoanApplication.LoanStatus.REJECTED);
-        loan.setApprovedBy(adminId);
-        loan.setRemarks(remarks);
-        loan.setApprovedDate(LocalDateTime.now());
+        // Rollup watermark before loan rows - the same lock order as the rollup job
+        dailyRollupService.lockLoanWatermark();
+        List<LoanApplication> pending = loanRepository.findByIdInAndStatusForUpdate(ids, LoanApplication.LoanStatus.PENDING);
+        Map<Long, LoanDecisionResultDTO> results = new HashMap<>();
 
-        LoanApplication savedLoan = loanRepository.save(loan);
+        if (!pending.isEmpty()) {
+            dailyRollupService.recordLoanDecisions(pending, LoanApplication.LoanStatus.PENDING, decision);
+            LocalDateTime decidedAt = LocalDateTime.now();
+            List<Long> pendingIds = pending.stream().map(LoanApplication::getId).toList();
+            int updated = loanRepository.updateStatusWhereStatus(pendingIds, LoanApplication.LoanStatus.PENDING,
+                    decision, adminId, remarks, decidedAt);
+            if (updated != pending.size()) {
+                // The rows were locked above, so this only happens if something bypassed the lock
+                throw new LoanProcessingException("Expected to decide " + pending.size() + " loans but updated " + updated);
+            }
 
-        // Send rejection email to customer
-        try {
-            emailService.sendLoanRejectionEmail(loan.getCustomerId(), savedLoan);
-        } catch (Exception e) {
-            // Log email error but don't fail the rejection process
-            System.err.println("Failed to send rejection email: " + e.getMessage());
+            // The update cleared the persistence context, so these copies are detached and safe to edit
+            BigDecimal decidedAmount = BigDecimal.ZERO;
+            for (LoanApplication loan : pending) {
+                loan.setStatus(decision);
+                loan.setApprovedBy(adminId);
+                loan.setRemarks(remarks);
+                loan.setApprovedDate(decidedAt);
+                if (loan.getRequestedAmount() != null) {
+                    decidedAmount = decidedAmount.add(loan.getRequestedAmount());
+                }
+                results.put(loan.getId(), new LoanDecisionResultDTO(loan.getId(), DECIDED, "Loan " + decision.name().toLowerCase()));
+            }
+            emailService.sendLoanDecisionEmails(pending, decision);
+            // One cache adjustment for the whole batch, applied once the transaction commits
+            dashboardStatsCache.recordLoanDecisions(decision, pending.size(), decidedAmount);
         }
 
-        return convertToDTO(savedLoan);
+        // Explain the ids that were not decided
+        List<Long> undecided = ids.stream().filter(id -> !results.containsKey(id)).toList();
+        if (!undecided.isEmpty()) {
+            for (LoanApplication loan : loanRepository.findAllById(undecided)) {
+                results.put(loan.getId(), new LoanDecisionResultDTO(loan.getId(), NOT_PENDING,
+                        "Loan application is already " + loan.getStatus()));
+            }
+        }
+
+        List<LoanDecisionResultDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ordered.add(results.getOrDefault(id, new LoanDecisionResultDTO(id, NOT_FOUND, "Loan application not found")));
+        }
+        int notFound = ids.size() - results.size();
+        recordOutcome(DECIDED, MODE_BULK, pending.size());
+        recordOutcome(CONFLICT, MODE_BULK, results.size() - pending.size());
+        recordOutcome(NOT_FOUND, MODE_BULK, notFound);
+        return new LoanBulkDecisionDTO(decision.name(), ids.size(), pending.size(), ids.size() - pending.size(), ordered);
+    }
+
+    // Count decision attempts by outcome - conflicts are loans someone else decided first
+    private void recordOutcome(String outcome, String mode, int count) {
+        if (count > 0) {
+            Counter.builder("loan.decisions")
+                    .description("Loan approval and rejection attempts by outcome")
+                    .tag("outcome", outcome.toLowerCase())
+                    .tag("mode", mode)
+                    .register(meterRegistry)
+                    .increment(count);
+        }
     }
 
     // Get loan details by ID
@@ -103,8 +228,23 @@ public class LoanApprovalService {
         return convertToDTO(loan);
     }
 
-    // Convert LoanApplication entity to DTO
+    // Convert loans to DTOs, resolving every customer's name and email with at most one query
+    private List<LoanApprovalDTO> convertToDTOs(List<LoanApplication> loans) {
+        Map<Long, CustomerDTO> customers = customerNameCache.resolve(
+                loans.stream().map(LoanApplication::getCustomerId).toList());
+        List<LoanApprovalDTO> dtos = new ArrayList<>(loans.size());
+        for (LoanApplication loan : loans) {
+            dtos.add(convertToDTO(loan, customers.get(loan.getCustomerId())));
+        }
+        return dtos;
+    }
+
     private LoanApprovalDTO convertToDTO(LoanApplication loan) {
+        return convertToDTOs(List.of(loan)).get(0);
+    }
+
+    // Convert LoanApplication entity to DTO
+    private LoanApprovalDTO convertToDTO(LoanApplication loan, CustomerDTO customer) {
         LoanApprovalDTO dto = new LoanApprovalDTO();
         dto.setLoanId(loan.getLoanId());
         dto.setCustomerId(loan.getCustomerId());
@@ -118,15 +258,13 @@ public class LoanApprovalService {
         dto.setEmploymentDetails(loan.getEmploymentDetails());
         dto.setRemarks(loan.getRemarks());
         if (loan.getAppliedAt() != null) {
-            dto.setCreatedDate(loan.getAppliedAt()
-                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+            dto.setCreatedDate(loan.getAppliedAt().format(CREATED_DATE_FORMATTER));
         }
 
-        // Get customer details
-        customerDataRepository.findById(loan.getCustomerId()).ifPresent(customer -> {
-            dto.setCustomerName(customer.getFirstName() + " " + customer.getLastName());
+        if (customer != null) {
+            dto.setCustomerName(CustomerNameCache.fullName(customer));
             dto.setCustomerEmail(customer.getEmail());
-        });
+        }
 
         return dto;
     }
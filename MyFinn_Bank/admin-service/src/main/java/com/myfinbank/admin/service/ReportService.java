@@ -0,0 +1,185 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.DashboardStatsDTO;
+import com.myfinbank.admin.dto.MonthlyReportDTO;
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.entity.MonthlyReportRollup;
+import com.myfinbank.admin.repository.DailyRollupRepository;
+import com.myfinbank.admin.repository.MonthlyReportRollupRepository;
+import com.myfinbank.admin.repository.ReportRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class ReportService {
+
+    public static final int MAX_REPORT_MONTHS = 120;
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private MonthlyReportRollupRepository rollupRepository;
+
+    @Autowired
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private DashboardStatsCache dashboardStatsCache;
+
+    // New customers are counted from the customers table for this many trailing months; loan and
+    // transaction figures are rebuilt for all months from the daily rollups
+    @Value("${reports.rollup.refresh-months:3}")
+    private int refreshMonths = 3;
+
+    // Bring the monthly rollup up to date. The first run backfills customers from the earliest
+    // activity; later runs only recount the trailing refresh window.
+    @Scheduled(fixedDelayString = "${reports.rollup.refresh-interval:300000}")
+    public synchronized void refreshMonthlyRollup() {
+        try {
+            LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+            LocalDate fromMonth = rollupRepository.count() == 0
+                    ? reportRepository.findEarliestActivity().toLocalDate().withDayOfMonth(1)
+                    : currentMonth.minusMonths(Math.max(1, refreshMonths) - 1L);
+
+            long started = System.currentTimeMillis();
+            int rows = reportRepository.refreshMonthlyRollup(
+                    fromMonth.atStartOfDay(), currentMonth.plusMonths(1).atStartOfDay());
+            log.debug("Monthly report rollup refreshed from {} ({} rows) in {} ms",
+                    fromMonth, rows, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            log.warn("Failed to refresh monthly report rollup: {}", e.getMessage());
+        }
+    }
+
+    // Monthly figures for the last n months (including the current one), oldest first
+    public List<MonthlyReportDTO> getMonthlyReport(int months) {
+        if (rollupRepository.count() == 0) {
+            refreshMonthlyRollup(); // First request before the scheduler has run
+        }
+        int clamped = Math.max(1, Math.min(months, MAX_REPORT_MONTHS));
+        LocalDate fromMonth = LocalDate.now().withDayOfMonth(1).minusMonths(clamped - 1L);
+        return rollupRepository.findByMonthStartGreaterThanEqualOrderByMonthStartAsc(fromMonth)
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Headline counts for the reports page, from the cached dashboard counters
+    public Map<String, Object> getReportSummary() {
+        DashboardStatsDTO dashboard = dashboardStatsCache.getStats();
+        long rejected = dailyRollupRepository.countLoansByStatus(LoanApplication.LoanStatus.REJECTED.name());
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalCustomers", dashboard.getTotalCustomers());
+        stats.put("activeCustomers", dashboard.getActiveCustomers());
+        stats.put("pendingLoans", dashboard.getPendingLoanApplications());
+        stats.put("approvedLoans", dashboard.getApprovedLoans());
+        stats.put("rejectedLoans", rejected);
+        stats.put("totalLoans", dashboard.getPendingLoanApplications() + dashboard.getApprovedLoans() + rejected);
+        return stats;
+    }
+
+    public boolean isExportType(String type) {
+        return ReportRepository.isExportType(type);
+    }
+
+    // Write an export as CSV straight from the database cursor - memory use does not depend on row count
+    public void exportCsv(String type, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        boolean[] headerWritten = {false};
+        try {
+            reportRepository.streamExport(type, rs -> {
+                try {
+                    ResultSetMetaData meta = rs.getMetaData();
+                    int columns = meta.getColumnCount();
+                    if (!headerWritten[0]) {
+                        for (int i = 1; i <= columns; i++) {
+                            writeCsvField(writer, meta.getColumnLabel(i), i == 1);
+                        }
+                        writer.write("\r\n");
+                        headerWritten[0] = true;
+                    }
+                    for (int i = 1; i <= columns; i++) {
+                        writeCsvField(writer, rs.getString(i), i == 1);
+                    }
+                    writer.write("\r\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    // RFC 4180 quoting, plus a leading quote on values a spreadsheet would run as a formula
+    static void writeCsvField(Writer writer, String value, boolean first) throws IOException {
+        if (!first) {
+            writer.write(',');
+        }
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        char lead = value.charAt(0);
+        // A leading minus is only left alone on plain numbers, so negative amounts stay numeric
+        boolean formula = lead == '=' || lead == '+' || lead == '@' || lead == '\t' || lead == '\r'
+                || (lead == '-' && !isNumber(value));
+        if (formula) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private MonthlyReportDTO convertToDTO(MonthlyReportRollup rollup) {
+        return new MonthlyReportDTO(
+                rollup.getMonthStart().format(MONTH_FORMATTER),
+                rollup.getNewCustomers(),
+                rollup.getLoanApplications(),
+                rollup.getPendingLoans(),
+                rollup.getApprovedLoans(),
+                rollup.getRejectedLoans(),
+                rollup.getApprovedAmount(),
+                rollup.getTransactionCount(),
+                rollup.getTransactionVolume());
+    }
+}
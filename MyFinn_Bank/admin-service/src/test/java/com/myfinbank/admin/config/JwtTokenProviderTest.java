@@ -0,0 +1,59 @@
+package com.myfinbank.admin.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtTokenProviderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret("myfinbank-admin-secret-key-for-unit-tests-only");
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(meterRegistry, 100);
+        tokenProvider = new JwtTokenProvider(jwtConfig, verifiedTokenCache);
+    }
+
+    @Test
+    void testGetVerifiedEmail_SecondRequestIsServedFromCache() {
+        String token = tokenFor("admin@myfinbank.com");
+
+        assertEquals("admin@myfinbank.com", tokenProvider.getVerifiedEmail(token));
+        assertEquals("admin@myfinbank.com", tokenProvider.getVerifiedEmail(token));
+
+        assertEquals(1.0, meterRegistry.get("jwt.verified.cache.misses").counter().count());
+        assertEquals(1.0, meterRegistry.get("jwt.verified.cache.hits").counter().count());
+    }
+
+    @Test
+    void testGetVerifiedEmail_RejectsTamperedToken() {
+        String token = tokenFor("admin@myfinbank.com");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertNull(tokenProvider.getVerifiedEmail(tampered));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    @Test
+    void testGetPrincipal_ExpiredEntryIsNotReturned() {
+        verifiedTokenCache.put("some-token", "admin@myfinbank.com", System.currentTimeMillis() - 1);
+
+        assertNull(verifiedTokenCache.getPrincipal("some-token"));
+        assertEquals(0, verifiedTokenCache.size());
+    }
+
+    private String tokenFor(String email) {
+        return tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+}
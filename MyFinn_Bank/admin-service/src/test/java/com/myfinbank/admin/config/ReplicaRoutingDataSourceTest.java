@@ -0,0 +1,126 @@
+package com.myfinbank.admin.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Primary and replica are two separate in-memory H2 databases, each holding its own name
+class ReplicaRoutingDataSourceTest {
+
+    private static final String LAG_QUERY = "SELECT Seconds_Behind_Source FROM replica_status";
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcTemplate replicaAdmin;
+    private DataSource primary;
+    private DataSource replica;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        primary = database("primary");
+        replica = database("replica");
+        replicaAdmin = new JdbcTemplate(replica);
+        replicaAdmin.execute("CREATE TABLE replica_status (Seconds_Behind_Source BIGINT)");
+        replicaAdmin.update("INSERT INTO replica_status VALUES (0)");
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing(LAG_QUERY));
+
+        assertEquals("replica", inTransaction(dataSource, true));
+        assertEquals("primary", inTransaction(dataSource, false));
+        assertEquals("primary", new JdbcTemplate(dataSource).queryForObject("SELECT name FROM server", String.class));
+        assertEquals(1.0, connections("replica"));
+        assertEquals(0.0, meterRegistry.get("datasource.replica.fallbacks").counter().count());
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimaryUntilItCatchesUp() {
+        replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = 30");
+        ReplicaRoutingDataSource routing = routing(LAG_QUERY);
+
+        assertFalse(routing.isReplicaUsable());
+        assertEquals(30.0, routing.getLagSeconds());
+        assertEquals("primary", inTransaction(routing, true));
+        assertEquals(1.0, meterRegistry.get("datasource.replica.fallbacks").counter().count());
+
+        replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = 2");
+        routing.checkReplica();
+
+        assertTrue(routing.isReplicaUsable());
+        assertEquals("replica", inTransaction(routing, true));
+    }
+
+    @Test
+    void testStoppedReplicationFallsBackToPrimary() {
+        replicaAdmin.update("UPDATE replica_status SET Seconds_Behind_Source = NULL");
+        ReplicaRoutingDataSource routing = routing(LAG_QUERY);
+
+        assertFalse(routing.isReplicaUsable());
+        assertTrue(Double.isNaN(routing.getLagSeconds()));
+        assertEquals("primary", inTransaction(routing, true));
+    }
+
+    @Test
+    void testFailingLagCheckFallsBackToPrimary() {
+        ReplicaRoutingDataSource routing = routing("SHOW REPLICA STATUS");
+
+        assertFalse(routing.isReplicaUsable());
+        assertEquals("primary", inTransaction(routing, true));
+    }
+
+    @Test
+    void testBlankLagQueryOnlyChecksTheConnection() {
+        ReplicaRoutingDataSource routing = routing("");
+
+        assertTrue(routing.isReplicaUsable());
+        assertEquals(0.0, meterRegistry.get("datasource.replica.lag").gauge().value());
+        assertEquals("replica", inTransaction(routing, true));
+    }
+
+    private ReplicaRoutingDataSource routing(String lagQuery) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, Duration.ofSeconds(5),
+                lagQuery, meterRegistry);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    // Name of the database a transaction actually ran against, wired the way the application wires it
+    private String inTransaction(ReplicaRoutingDataSource routing, boolean readOnly) {
+        return inTransaction(new LazyConnectionDataSourceProxy(routing), readOnly);
+    }
+
+    private String inTransaction(DataSource dataSource, boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM server", String.class));
+    }
+
+    private double connections(String pool) {
+        return meterRegistry.get("datasource.routing.connections").tag("pool", pool).counter().count();
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE server (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO server VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,84 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.dto.CustomerDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Pages through customers with the real keyset SQL, including customers without created_at
+@JdbcTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:customer-pages;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(CustomerDataRepository.class)
+class CustomerDataRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Autowired
+    private CustomerDataRepository customerDataRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("""
+            CREATE TABLE customers (
+                id BIGINT PRIMARY KEY, customer_id VARCHAR(20), email VARCHAR(100), first_name VARCHAR(50),
+                last_name VARCHAR(50), phone VARCHAR(20), address VARCHAR(255), active BOOLEAN,
+                email_verified BOOLEAN, created_at DATETIME, updated_at DATETIME)""");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE customers");
+    }
+
+    @Test
+    void testFindPage_ReachesCustomersWithoutCreatedAtAfterDatedOnes() {
+        insert(1, START, true);
+        insert(2, null, true);
+        insert(3, START.plusMinutes(1), true);
+        insert(4, START.plusMinutes(1), true);
+        insert(5, null, false);
+        insert(6, null, true);
+
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        List<CustomerDTO> page;
+        do {
+            page = customerDataRepository.findPage(afterCreatedAt, afterId, 2, true);
+            for (CustomerDTO customer : page) {
+                seen.add(customer.getId());
+                afterCreatedAt = customer.getCreatedAt();
+                afterId = customer.getId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(List.of(4L, 3L, 1L, 6L, 2L), seen);
+    }
+
+    private void insert(long id, LocalDateTime createdAt, boolean active) {
+        jdbcTemplate.update("""
+            INSERT INTO customers (id, customer_id, email, first_name, last_name, active, email_verified, created_at)
+            VALUES (?, ?, ?, 'Asha', 'Rao', ?, true, ?)""",
+                id, "CUST" + id, "c" + id + "@gmail.com", active, createdAt != null ? Timestamp.valueOf(createdAt) : null);
+    }
+}
@@ -0,0 +1,143 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.entity.LoanApplication;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Runs the conditional decision UPDATE against a real database, so the compare-and-set is the
+// database's and not a stand-in. Each call commits in its own transaction, as in production.
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loan-decisions;MODE=MySQL;NON_KEYWORDS=DAY;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanApplicationRepositoryTest {
+
+    @Autowired
+    private LoanApplicationRepository loanRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testUpdateStatusWhereStatus_OnlyMatchesRowsStillInExpectedStatus() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<Long> ids = insertPendingLoans(2);
+        Long decided = ids.get(0);
+
+        int first = tx.execute(status -> loanRepository.updateStatusWhereStatus(List.of(decided),
+                LoanApplication.LoanStatus.PENDING, LoanApplication.LoanStatus.APPROVED, 1L, "first", LocalDateTime.now()));
+        int second = tx.execute(status -> loanRepository.updateStatusWhereStatus(ids,
+                LoanApplication.LoanStatus.PENDING, LoanApplication.LoanStatus.REJECTED, 2L, "second", LocalDateTime.now()));
+
+        assertEquals(1, first);
+        assertEquals(1, second);
+        LoanApplication approved = loanRepository.findById(decided).orElseThrow();
+        assertEquals(LoanApplication.LoanStatus.APPROVED, approved.getStatus());
+        assertEquals(1L, approved.getApprovedBy());
+        assertEquals(1L, approved.getVersion());
+        assertEquals(LoanApplication.LoanStatus.REJECTED, loanRepository.findById(ids.get(1)).orElseThrow().getStatus());
+    }
+
+    // Many admins deciding the same loans at once, each decision in its own committed transaction.
+    // Exactly one UPDATE per loan may match the PENDING row; every other one must update nothing.
+    @Test
+    void testUpdateStatusWhereStatus_ConcurrentDecisionsHaveExactlyOneWinnerPerLoan() throws Exception {
+        int loanCount = 20;
+        int threads = 8;
+        List<Long> ids = insertPendingLoans(loanCount);
+
+        Map<Long, List<Long>> winners = new ConcurrentHashMap<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> losses = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long adminId = t + 1;
+            LoanApplication.LoanStatus decision = t % 2 == 0
+                    ? LoanApplication.LoanStatus.APPROVED
+                    : LoanApplication.LoanStatus.REJECTED;
+            losses.add(pool.submit(() -> {
+                TransactionTemplate tx = new TransactionTemplate(transactionManager);
+                start.await();
+                int lost = 0;
+                for (Long id : ids) {
+                    Integer updated = tx.execute(status -> loanRepository.updateStatusWhereStatus(List.of(id),
+                            LoanApplication.LoanStatus.PENDING, decision, adminId, "admin " + adminId, LocalDateTime.now()));
+                    if (updated == 1) {
+                        winners.computeIfAbsent(id, k -> new ArrayList<>()).add(adminId);
+                    } else {
+                        lost++;
+                    }
+                }
+                return lost;
+            }));
+        }
+        start.countDown();
+        int lost = 0;
+        for (Future<Integer> loss : losses) {
+            lost += loss.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertEquals(loanCount, winners.size());
+        assertEquals(threads * loanCount - loanCount, lost);
+        for (Long id : ids) {
+            List<Long> admins = winners.get(id);
+            assertEquals(1, admins.size(), "loan " + id + " decided by " + admins);
+            // The committed row carries the winner's decision and nobody else's
+            LoanApplication loan = loanRepository.findById(id).orElseThrow();
+            long winner = admins.get(0);
+            assertEquals(winner, loan.getApprovedBy());
+            assertEquals(winner % 2 == 1 ? LoanApplication.LoanStatus.APPROVED : LoanApplication.LoanStatus.REJECTED,
+                    loan.getStatus());
+            assertEquals(1L, loan.getVersion());
+        }
+    }
+
+    private List<Long> insertPendingLoans(int count) {
+        List<LoanApplication> loans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LoanApplication loan = new LoanApplication();
+            loan.setCustomerId(7L);
+            loan.setRequestedAmount(new BigDecimal("25000.00"));
+            loan.setLoanType(LoanApplication.LoanType.PERSONAL);
+            loans.add(loan);
+        }
+        List<Long> ids = loanRepository.saveAll(loans).stream().map(LoanApplication::getId).toList();
+        ids.forEach(id -> assertNull(loanRepository.findById(id).orElseThrow().getApprovedBy()));
+        return ids;
+    }
+}
@@ -0,0 +1,200 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.entity.LoanDailyRollup;
+import com.myfinbank.admin.service.CustomerNameCache;
+import com.myfinbank.admin.service.DailyRollupService;
+import com.myfinbank.admin.service.DashboardStatsCache;
+import com.myfinbank.admin.service.EmailNotificationService;
+import com.myfinbank.admin.service.LoanApprovalService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs loan decisions and the rollup job against a real database, so the watermark locks and
+// every rollup statement on the decision path are executed, not mocked
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loan-rollups;MODE=MySQL;NON_KEYWORDS=DAY;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        // The tests run the job themselves
+        "rollup.daily.interval=3600000",
+        "rollup.daily.reconcile-interval=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({LoanApprovalService.class, DailyRollupService.class, DailyRollupRepository.class,
+        LoanDecisionRollupTest.Metrics.class})
+class LoanDecisionRollupTest {
+
+    private static final LocalDateTime APPLIED_AT = LocalDateTime.of(2025, 3, 14, 11, 30);
+
+    @Autowired
+    private LoanApprovalService loanApprovalService;
+
+    @Autowired
+    private DailyRollupService dailyRollupService;
+
+    @Autowired
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Autowired
+    private LoanApplicationRepository loanRepository;
+
+    @Autowired
+    private RollupWatermarkRepository rollupWatermarkRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private CustomerNameCache customerNameCache;
+
+    @MockitoBean
+    private EmailNotificationService emailService;
+
+    @MockitoBean
+    private DashboardStatsCache dashboardStatsCache;
+
+    @AfterEach
+    void tearDown() {
+        loanRepository.deleteAllInBatch();
+        rollupWatermarkRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM loan_daily_rollup");
+        jdbcTemplate.update("DELETE FROM transaction_daily_rollup");
+    }
+
+    @Test
+    void testDecideLoan_BeforeFirstRollupLeavesRollupsAlone() {
+        List<Long> ids = insertPendingLoans(2);
+
+        loanApprovalService.approveLoan(ids.get(0), 1L, "ok");
+
+        assertEquals(0, bucketCount("APPROVED"));
+        assertEquals(1, dailyRollupRepository.countLoansByStatus("APPROVED"));
+        assertEquals(1, dailyRollupRepository.countLoansByStatus("PENDING"));
+    }
+
+    @Test
+    void testDecideLoan_MovesRolledUpLoanBetweenBuckets() {
+        List<Long> ids = insertPendingLoans(3);
+        dailyRollupService.refresh();
+        assertEquals(3, bucketCount("PENDING"));
+
+        loanApprovalService.approveLoan(ids.get(0), 1L, "ok");
+        loanApprovalService.rejectLoan(ids.get(1), 1L, "no");
+
+        assertEquals(1, bucketCount("PENDING"));
+        assertEquals(1, bucketCount("APPROVED"));
+        assertEquals(1, bucketCount("REJECTED"));
+        assertEquals(0, new BigDecimal("25000.00").compareTo(bucket("APPROVED").getTotalApproved()));
+        assertEquals(1, dailyRollupRepository.countLoansByStatus("APPROVED"));
+    }
+
+    @Test
+    void testDecideLoans_MovesBulkDecisionAndLaterLoansAreFoldedInByTheJob() {
+        List<Long> rolledUp = insertPendingLoans(2);
+        dailyRollupService.refresh();
+        List<Long> newer = insertPendingLoans(1);
+
+        List<Long> ids = new ArrayList<>(rolledUp);
+        ids.addAll(newer);
+        loanApprovalService.decideLoans(ids, LoanApplication.LoanStatus.REJECTED, 1L, "bulk");
+
+        // Only the rolled-up loans were moved; the newer one is still above the watermark
+        assertEquals(2, bucketCount("REJECTED"));
+        assertEquals(3, dailyRollupRepository.countLoansByStatus("REJECTED"));
+
+        dailyRollupService.refresh();
+        assertEquals(3, bucketCount("REJECTED"));
+        assertEquals(0, bucketCount("PENDING"));
+        assertEquals(3, dailyRollupRepository.countLoansByStatus("REJECTED"));
+    }
+
+    // customer-service changes a loan more than a few days after it was applied for and rolled up
+    @Test
+    void testReconcile_PicksUpStatusChangedElsewhereOnOlderRow() {
+        LocalDateTime appliedAt = LocalDateTime.now().minusDays(40);
+        List<Long> ids = insertPendingLoans(1, appliedAt);
+        dailyRollupService.refresh();
+        jdbcTemplate.update("UPDATE loans SET status = 'APPROVED' WHERE id = ?", ids.get(0));
+
+        dailyRollupService.refresh();
+        assertEquals(1, bucketCount(appliedAt.toLocalDate(), "PENDING"));
+
+        dailyRollupService.reconcile();
+        assertEquals(0, bucketCount(appliedAt.toLocalDate(), "PENDING"));
+        assertEquals(1, bucketCount(appliedAt.toLocalDate(), "APPROVED"));
+    }
+
+    private List<Long> insertPendingLoans(int count) {
+        return insertPendingLoans(count, APPLIED_AT);
+    }
+
+    private List<Long> insertPendingLoans(int count, LocalDateTime appliedAt) {
+        List<LoanApplication> loans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LoanApplication loan = new LoanApplication();
+            loan.setCustomerId(7L);
+            loan.setRequestedAmount(new BigDecimal("25000.00"));
+            loan.setLoanType(LoanApplication.LoanType.PERSONAL);
+            loan.setAppliedAt(appliedAt);
+            loans.add(loan);
+        }
+        return loanRepository.saveAll(loans).stream().map(LoanApplication::getId).toList();
+    }
+
+    private long bucketCount(String status) {
+        return bucketCount(APPLIED_AT.toLocalDate(), status);
+    }
+
+    private long bucketCount(LocalDate day, String status) {
+        LoanDailyRollup bucket = bucket(day, status);
+        return bucket != null ? bucket.getLoanCount() : 0L;
+    }
+
+    private LoanDailyRollup bucket(String status) {
+        return bucket(APPLIED_AT.toLocalDate(), status);
+    }
+
+    private LoanDailyRollup bucket(LocalDate day, String status) {
+        List<LoanDailyRollup> rows = jdbcTemplate.query(
+                "SELECT loan_count, total_requested, total_approved FROM loan_daily_rollup WHERE day = ? AND loan_type = ? AND status = ?",
+                (rs, i) -> new LoanDailyRollup(day, "PERSONAL", status,
+                        rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3)),
+                Date.valueOf(day), "PERSONAL", status);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.myfinbank.admin.repository;
+
+import com.myfinbank.admin.dto.TransactionDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Pages through a customer's transactions with the real keyset SQL, including rows without created_at
+@JdbcTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transaction-history;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TransactionHistoryRepository.class)
+class TransactionHistoryRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+    @Autowired
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, customer_id BIGINT, account_number VARCHAR(20))");
+        jdbcTemplate.execute("""
+            CREATE TABLE transactions (
+                id BIGINT PRIMARY KEY, transaction_id VARCHAR(50), from_account_id BIGINT, to_account_id BIGINT,
+                amount DECIMAL(15,2), type VARCHAR(20), status VARCHAR(20), description VARCHAR(255),
+                reference VARCHAR(100), created_at DATETIME)""");
+        jdbcTemplate.update("INSERT INTO accounts VALUES (11, 7, 'ACC11'), (12, 7, 'ACC12'), (99, 8, 'ACC99')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE transactions");
+        jdbcTemplate.execute("DROP TABLE accounts");
+    }
+
+    @Test
+    void testFindPageByAccountIds_ReachesRowsWithoutCreatedAtAfterDatedOnes() {
+        insert(1, 11, 99, START);
+        insert(2, 99, 12, START.plusMinutes(1));
+        insert(3, 11, 12, START.plusMinutes(2)); // Between the customer's own accounts - listed once
+        insert(4, 11, 99, null);
+        insert(5, 99, 11, null);
+        insert(6, 99, 12, START.plusMinutes(2));
+
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        List<TransactionDTO> page;
+        do {
+            page = transactionHistoryRepository.findPageByAccountIds(List.of(11L, 12L), beforeCreatedAt, beforeId, 2);
+            for (TransactionDTO transaction : page) {
+                seen.add(transaction.getId());
+                beforeCreatedAt = transaction.getCreatedAt();
+                beforeId = transaction.getId();
+            }
+        } while (page.size() == 2);
+
+        assertEquals(List.of(6L, 3L, 2L, 1L, 5L, 4L), seen);
+    }
+
+    private void insert(long id, long fromAccountId, long toAccountId, LocalDateTime createdAt) {
+        jdbcTemplate.update("""
+            INSERT INTO transactions (id, transaction_id, from_account_id, to_account_id, amount, type, status, created_at)
+            VALUES (?, ?, ?, ?, 100.00, 'TRANSFER', 'COMPLETED', ?)""",
+                id, "TXN" + id, fromAccountId, toAccountId, createdAt != null ? Timestamp.valueOf(createdAt) : null);
+    }
+}
@@ -0,0 +1,187 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.ChatMessageDTO;
+import com.myfinbank.admin.dto.ConversationSummaryDTO;
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.entity.ChatMessage;
+import com.myfinbank.admin.repository.ChatConversationRepository;
+import com.myfinbank.admin.repository.ChatMessageRepository;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdminChatServiceTest {
+
+    @Mock
+    private ChatMessageRepository chatMessageRepository;
+
+    @Mock
+    private CustomerDataRepository customerDataRepository;
+
+    @Mock
+    private ChatConversationRepository chatConversationRepository;
+
+    @Mock
+    private DashboardStatsCache dashboardStatsCache;
+
+    @Mock
+    private ChatEventHub chatEventHub;
+
+    private CustomerNameCache customerNameCache;
+
+    private AdminChatService adminChatService;
+
+    @BeforeEach
+    void setUp() {
+        customerNameCache = new CustomerNameCache(customerDataRepository, 100, Duration.ofMinutes(10));
+        adminChatService = new AdminChatService();
+        ReflectionTestUtils.setField(adminChatService, "chatMessageRepository", chatMessageRepository);
+        ReflectionTestUtils.setField(adminChatService, "chatConversationRepository", chatConversationRepository);
+        ReflectionTestUtils.setField(adminChatService, "dashboardStatsCache", dashboardStatsCache);
+        ReflectionTestUtils.setField(adminChatService, "customerNameCache", customerNameCache);
+        ReflectionTestUtils.setField(adminChatService, "chatEventHub", chatEventHub);
+    }
+
+    @Test
+    void testGetCustomerConversation_ResolvesNameOnceForWholeConversation() {
+        when(chatMessageRepository.findByCustomerIdOrderByTimestampAsc(7L)).thenReturn(messages(7L, 500));
+        when(customerDataRepository.findBasicDetailsByIds(anyCollection())).thenReturn(List.of(customer(7L)));
+
+        List<ChatMessageDTO> conversation = adminChatService.getCustomerConversation(7L);
+
+        assertEquals(500, conversation.size());
+        assertEquals("Rajesh Kumar", conversation.get(499).getCustomerName());
+        verify(customerDataRepository, times(1)).findBasicDetailsByIds(anyCollection());
+        verify(customerDataRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testGetCustomerConversation_SecondOpenIsServedFromCache() {
+        when(chatMessageRepository.findByCustomerIdOrderByTimestampAsc(7L)).thenReturn(messages(7L, 20));
+        when(customerDataRepository.findBasicDetailsByIds(anyCollection())).thenReturn(List.of(customer(7L)));
+
+        adminChatService.getCustomerConversation(7L);
+        adminChatService.getCustomerConversation(7L);
+
+        verify(customerDataRepository, times(1)).findBasicDetailsByIds(anyCollection());
+    }
+
+    @Test
+    void testEvict_ForcesReload() {
+        when(customerDataRepository.findBasicDetailsByIds(anyCollection())).thenReturn(List.of(customer(7L)));
+
+        customerNameCache.getName(7L);
+        customerNameCache.evict(7L);
+        customerNameCache.getName(7L);
+
+        verify(customerDataRepository, times(2)).findBasicDetailsByIds(anyCollection());
+    }
+
+    @Test
+    void testMarkConversationAsRead_UsesSingleBulkUpdateAndReturnsCount() {
+        when(chatMessageRepository.markMessagesAsRead(7L, ChatMessage.SenderType.CUSTOMER)).thenReturn(4);
+
+        int marked = adminChatService.markConversationAsRead(7L);
+
+        assertEquals(4, marked);
+        verify(chatMessageRepository, never()).findByCustomerIdOrderByCreatedAtAsc(anyLong());
+        verify(chatMessageRepository, never()).saveAll(any());
+        verify(dashboardStatsCache).recordMessagesRead(4);
+        verify(chatEventHub).publish(any());
+    }
+
+    @Test
+    void testMarkConversationAsRead_PicksUpMessagesCommittedSinceLastRead() {
+        // A lower id can commit after a higher one, so every open re-checks the unread rows
+        when(chatMessageRepository.markMessagesAsRead(7L, ChatMessage.SenderType.CUSTOMER)).thenReturn(4, 0, 1);
+
+        adminChatService.markConversationAsRead(7L);
+        int nothingNew = adminChatService.markConversationAsRead(7L);
+        int lateMessage = adminChatService.markConversationAsRead(7L);
+
+        assertEquals(0, nothingNew);
+        assertEquals(1, lateMessage);
+        verify(chatMessageRepository, times(3)).markMessagesAsRead(any(), any());
+        verify(chatEventHub, times(2)).publish(any());
+    }
+
+    @Test
+    void testGetConversationBefore_ReturnsOlderPageOldestFirst() {
+        List<ChatMessage> newestFirst = messages(7L, 3);
+        Collections.reverse(newestFirst);
+        when(chatMessageRepository.findByCustomerIdAndIdLessThanOrderByIdDesc(7L, 4L, PageRequest.of(0, 3)))
+                .thenReturn(newestFirst);
+        when(customerDataRepository.findBasicDetailsByIds(anyCollection())).thenReturn(List.of(customer(7L)));
+
+        List<ChatMessageDTO> page = adminChatService.getConversationBefore(7L, 4L, 3);
+
+        assertEquals(List.of(1L, 2L, 3L), page.stream().map(ChatMessageDTO::getId).toList());
+    }
+
+    @Test
+    void testGetConversationSummary_OneRowPerCustomerWithNamesResolvedInOneBatch() {
+        when(chatConversationRepository.findLatestPerCustomer(null, 50)).thenReturn(List.of(
+                new ConversationSummaryDTO(8L, null, 30L, "Latest from 8", "CUSTOMER", "2025-01-01 10:30:00", 2L),
+                new ConversationSummaryDTO(7L, null, 20L, "Latest from 7", "ADMIN", "2025-01-01 10:20:00", 0L)));
+        when(customerDataRepository.findBasicDetailsByIds(anyCollection())).thenReturn(List.of(customer(7L), customer(8L)));
+
+        List<ConversationSummaryDTO> summaries = adminChatService.getConversationSummary(null, 50);
+
+        assertEquals(List.of(8L, 7L), summaries.stream().map(ConversationSummaryDTO::getCustomerId).toList());
+        assertEquals("Rajesh Kumar", summaries.get(0).getCustomerName());
+        assertEquals(2L, summaries.get(0).getUnreadCount());
+        verify(customerDataRepository, times(1)).findBasicDetailsByIds(anyCollection());
+        verify(chatMessageRepository, never()).findTop10ByOrderByCreatedAtDesc();
+    }
+
+    @Test
+    void testGetConversationSummary_ClampsPageSize() {
+        adminChatService.getConversationSummary(100L, 10_000);
+
+        verify(chatConversationRepository).findLatestPerCustomer(100L, AdminChatService.MAX_CONVERSATION_PAGE_SIZE);
+    }
+
+    private List<ChatMessage> messages(Long customerId, int count) {
+        List<ChatMessage> messages = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            ChatMessage message = new ChatMessage();
+            message.setId(id);
+            message.setCustomerId(customerId);
+            message.setMessage("Message " + id);
+            message.setSenderType(ChatMessage.SenderType.CUSTOMER);
+            message.setCreatedAt(LocalDateTime.of(2025, 1, 1, 10, 0).plusMinutes(id));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private CustomerDTO customer(Long id) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setFirstName("Rajesh");
+        customer.setLastName("Kumar");
+        customer.setEmail("rajesh.kumar@gmail.com");
+        return customer;
+    }
+}
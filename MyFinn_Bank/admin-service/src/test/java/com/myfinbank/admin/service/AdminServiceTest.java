@@ -0,0 +1,108 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.entity.Admin;
+import com.myfinbank.admin.repository.AdminRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdminServiceTest {
+
+    @Mock
+    private AdminRepository adminRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+
+    private AdminService adminService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdminDetailsCache adminDetailsCache = new AdminDetailsCache(meterRegistry, 100, Duration.ofMinutes(5));
+        adminService = new AdminService(adminRepository, passwordEncoder, adminDetailsCache);
+    }
+
+    @Test
+    void testLoadUserByUsername_RepeatRequestsDoNotHitDatabase() {
+        when(adminRepository.findByEmail("admin@myfinbank.com")).thenReturn(Optional.of(admin()));
+
+        adminService.loadUserByUsername("admin@myfinbank.com");
+        adminService.loadUserByUsername("admin@myfinbank.com");
+        adminService.loadUserByUsername("admin@myfinbank.com");
+
+        verify(adminRepository, times(1)).findByEmail("admin@myfinbank.com");
+    }
+
+    @Test
+    void testLoadUserByUsername_ErasedCredentialsDoNotLeakIntoCache() {
+        when(adminRepository.findByEmail("admin@myfinbank.com")).thenReturn(Optional.of(admin()));
+
+        UserDetails first = adminService.loadUserByUsername("admin@myfinbank.com");
+        ((CredentialsContainer) first).eraseCredentials(); // What Spring Security does after a login
+        UserDetails second = adminService.loadUserByUsername("admin@myfinbank.com");
+
+        assertNull(first.getPassword());
+        assertEquals("$2a$10$hash", second.getPassword());
+    }
+
+    @Test
+    void testUpdateAdmin_EvictsCachedDetails() {
+        Admin admin = admin();
+        when(adminRepository.findByEmail("admin@myfinbank.com")).thenReturn(Optional.of(admin));
+        when(adminRepository.findById(1L)).thenReturn(Optional.of(admin));
+        when(adminRepository.save(any(Admin.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        adminService.loadUserByUsername("admin@myfinbank.com");
+        adminService.updateAdmin(1L, new Admin());
+        adminService.loadUserByUsername("admin@myfinbank.com");
+
+        verify(adminRepository, times(2)).findByEmail("admin@myfinbank.com");
+    }
+
+    @Test
+    void testUpdateLastLogin_RepeatedLoginsCoalesceIntoOneUpdate() {
+        adminService.updateLastLogin("admin@myfinbank.com");
+        adminService.updateLastLogin("admin@myfinbank.com");
+        adminService.updateLastLogin("admin@myfinbank.com");
+        verify(adminRepository, never()).updateLastLogin(anyString(), any());
+
+        adminService.flushLastLogins();
+        adminService.flushLastLogins();
+
+        verify(adminRepository, times(1)).updateLastLogin(eq("admin@myfinbank.com"), any());
+        verify(adminRepository, never()).findByEmail(anyString());
+    }
+
+    private Admin admin() {
+        Admin admin = new Admin();
+        admin.setAdminId(1L);
+        admin.setEmail("admin@myfinbank.com");
+        admin.setPassword("$2a$10$hash");
+        admin.setFirstName("John");
+        admin.setLastName("Smith");
+        admin.setIsActive(true);
+        return admin;
+    }
+}
@@ -0,0 +1,62 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.ChatEventDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatEventHubTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private List<Runnable> pendingDeliveries;
+    private ChatEventHub chatEventHub;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pendingDeliveries = new ArrayList<>();
+        // Deliveries are held back so the test controls when a subscriber catches up
+        chatEventHub = new ChatEventHub(pendingDeliveries::add, meterRegistry, 3, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testPublish_OnlyReachesMatchingSubscribers() {
+        chatEventHub.subscribe(7L);
+        chatEventHub.subscribe(null);
+
+        chatEventHub.publish(new ChatEventDTO(ChatEventHub.MESSAGE, 8L, null));
+
+        // Only the inbox subscriber is interested in customer 8
+        assertEquals(1, pendingDeliveries.size());
+        assertEquals(2, chatEventHub.getSubscriberCount());
+    }
+
+    @Test
+    void testPublish_SlowSubscriberOverflowDropsBacklogInsteadOfBlocking() {
+        chatEventHub.subscribe(7L);
+
+        for (int i = 0; i < 5; i++) {
+            chatEventHub.publish(new ChatEventDTO(ChatEventHub.MESSAGE, 7L, null));
+        }
+
+        // One drain is scheduled no matter how many events queue up
+        assertEquals(1, pendingDeliveries.size());
+        assertEquals(4.0, meterRegistry.get("chat.push.events.dropped").counter().count());
+    }
+
+    @Test
+    void testHasSubscribers() {
+        assertFalse(chatEventHub.hasSubscribers());
+        chatEventHub.subscribe(7L);
+        assertTrue(chatEventHub.hasSubscribers());
+        assertEquals(1.0, meterRegistry.get("chat.push.subscribers").gauge().value());
+    }
+}
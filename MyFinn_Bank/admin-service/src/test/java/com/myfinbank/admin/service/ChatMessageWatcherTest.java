@@ -0,0 +1,87 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.ChatEventDTO;
+import com.myfinbank.admin.dto.ChatMessageDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMessageWatcherTest {
+
+    @Mock
+    private AdminChatService chatService;
+
+    @Mock
+    private ChatEventHub chatEventHub;
+
+    // Committed messages, as getMessagesAfter would see them
+    private final List<ChatMessageDTO> committed = new ArrayList<>();
+
+    private ChatMessageWatcher watcher;
+
+    @BeforeEach
+    void setUp() {
+        watcher = new ChatMessageWatcher(chatService, chatEventHub);
+        when(chatEventHub.hasSubscribers()).thenReturn(true);
+        when(chatService.getMessagesAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            return committed.stream()
+                    .filter(message -> message.getId() > afterId)
+                    .sorted(Comparator.comparing(ChatMessageDTO::getId))
+                    .limit(limit)
+                    .toList();
+        });
+        for (long id = 1; id <= 10; id++) {
+            commit(id);
+        }
+    }
+
+    @Test
+    void testPublish_MessagesThereBeforeSubscribingAreNotPushed() {
+        when(chatService.getLatestMessageId()).thenReturn(10L);
+
+        watcher.publishNewCustomerMessages();
+        watcher.publishNewCustomerMessages();
+
+        verify(chatEventHub, never()).publish(any());
+    }
+
+    // Message 11 got its id first but commits after message 12
+    @Test
+    void testPublish_LowerIdCommittedLateIsStillPushedOnce() {
+        when(chatService.getLatestMessageId()).thenReturn(10L);
+        watcher.publishNewCustomerMessages();
+
+        commit(12L);
+        watcher.publishNewCustomerMessages();
+        commit(11L);
+        watcher.publishNewCustomerMessages();
+        watcher.publishNewCustomerMessages();
+
+        ArgumentCaptor<ChatEventDTO> events = ArgumentCaptor.forClass(ChatEventDTO.class);
+        verify(chatEventHub, atLeastOnce()).publish(events.capture());
+        assertEquals(List.of(12L, 11L), events.getAllValues().stream().map(event -> event.getMessage().getId()).toList());
+    }
+
+    private void commit(long id) {
+        committed.add(new ChatMessageDTO(id, "MSG" + id, 7L, "Asha Rao", "hello " + id, "CUSTOMER", null, false));
+    }
+}
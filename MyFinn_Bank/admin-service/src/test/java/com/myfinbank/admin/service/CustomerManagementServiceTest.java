@@ -0,0 +1,237 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.dto.CustomerPageDTO;
+import com.myfinbank.admin.dto.TransactionDTO;
+import com.myfinbank.admin.dto.TransactionPageDTO;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import com.myfinbank.admin.repository.LoanApplicationRepository;
+import com.myfinbank.admin.repository.TransactionHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerManagementServiceTest {
+
+    @Mock
+    private CustomerDataRepository customerDataRepository;
+
+    @Mock
+    private LoanApplicationRepository loanApplicationRepository;
+
+    @Mock
+    private EmailNotificationService emailNotificationService;
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    @Mock
+    private CustomerSearchIndex customerSearchIndex;
+
+    @InjectMocks
+    private CustomerManagementService customerManagementService;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 500, 5000})
+    void testGetAllCustomers_IssuesOneLoanCountQueryRegardlessOfSize(int customerCount) {
+        when(customerDataRepository.findAll()).thenReturn(customers(customerCount));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 3L});
+        if (customerCount > CustomerManagementService.LOAN_COUNT_IN_LIST_LIMIT) {
+            when(loanApplicationRepository.countLoansGroupedByCustomer()).thenReturn(rows);
+        } else {
+            when(loanApplicationRepository.countLoansByCustomerIds(anyCollection())).thenReturn(rows);
+        }
+
+        List<CustomerDTO> result = customerManagementService.getAllCustomers();
+
+        assertEquals(customerCount, result.size());
+        assertEquals(3, result.get(0).getActiveLoanApplications());
+        verify(loanApplicationRepository, never()).findByCustomerId(anyLong());
+        verifyNoMoreInteractions(loanApplicationRepository);
+    }
+
+    @Test
+    void testSearchCustomers_MergesCountsAndDefaultsMissingToZero() {
+        when(customerDataRepository.searchCustomers("kumar", 50)).thenReturn(customers(3));
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{2L, 4L});
+        when(loanApplicationRepository.countLoansByCustomerIds(List.of(1L, 2L, 3L))).thenReturn(rows);
+
+        List<CustomerDTO> result = customerManagementService.searchCustomers("kumar");
+
+        assertEquals(0, result.get(0).getActiveLoanApplications());
+        assertEquals(4, result.get(1).getActiveLoanApplications());
+        assertEquals(0, result.get(2).getActiveLoanApplications());
+    }
+
+    @Test
+    void testSearchCustomers_UsesIndexOnceLoaded() {
+        when(customerSearchIndex.isReady()).thenReturn(true);
+        when(customerSearchIndex.search("kumar", 50)).thenReturn(List.of(2L, 1L));
+        when(customerDataRepository.findByIds(List.of(2L, 1L))).thenReturn(customers(2));
+
+        List<CustomerDTO> result = customerManagementService.searchCustomers("kumar");
+
+        assertEquals(2, result.size());
+        verify(customerDataRepository, never()).searchCustomers(any(), anyInt());
+    }
+
+    @Test
+    void testSearchCustomers_FullTextModeBypassesIndex() {
+        ReflectionTestUtils.setField(customerManagementService, "searchMode", CustomerManagementService.SEARCH_MODE_FULLTEXT);
+        when(customerDataRepository.searchCustomersFullText("kumar", 50)).thenReturn(List.of());
+
+        customerManagementService.searchCustomers("kumar");
+
+        verifyNoInteractions(customerSearchIndex);
+        verify(customerDataRepository, never()).searchCustomers(any(), anyInt());
+    }
+
+    @Test
+    void testGetRecentCustomers_WithNoCustomersSkipsLoanQuery() {
+        when(customerDataRepository.findRecentCustomers(10)).thenReturn(List.of());
+
+        List<CustomerDTO> result = customerManagementService.getRecentCustomers();
+
+        assertEquals(0, result.size());
+        verifyNoInteractions(loanApplicationRepository);
+    }
+
+    @Test
+    void testGetCustomersPage_CursorResumesAfterLastRow() {
+        List<CustomerDTO> firstPage = customers(3);
+        when(customerDataRepository.findPage(null, null, 3, false)).thenReturn(firstPage);
+        when(loanApplicationRepository.countLoansByCustomerIds(anyCollection())).thenReturn(List.of());
+
+        CustomerPageDTO page = customerManagementService.getCustomersPage(null, 2, false);
+
+        assertEquals(2, page.getCustomers().size());
+        assertTrue(page.getHasMore());
+
+        CustomerDTO last = firstPage.get(1);
+        when(customerDataRepository.findPage(last.getCreatedAt(), last.getId(), 3, false))
+                .thenReturn(List.of(firstPage.get(2)));
+
+        CustomerPageDTO next = customerManagementService.getCustomersPage(page.getNextCursor(), 2, false);
+
+        assertEquals(1, next.getCustomers().size());
+        assertFalse(next.getHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetCustomerTransactions_ResolvesAccountsOnceAndPagesWithCursor() {
+        List<TransactionDTO> firstPage = transactions(3);
+        when(transactionHistoryRepository.findAccountIdsByCustomerId(7L)).thenReturn(List.of(11L, 12L));
+        when(transactionHistoryRepository.findPageByAccountIds(List.of(11L, 12L), null, null, 3)).thenReturn(firstPage);
+
+        TransactionPageDTO page = customerManagementService.getCustomerTransactions(7L, null, 2);
+
+        assertEquals(List.of(1L, 2L), page.getTransactions().stream().map(TransactionDTO::getId).toList());
+        assertTrue(page.getHasMore());
+
+        TransactionDTO last = firstPage.get(1);
+        when(transactionHistoryRepository.findPageByAccountIds(List.of(11L, 12L), last.getCreatedAt(), last.getId(), 3))
+                .thenReturn(List.of(firstPage.get(2)));
+
+        TransactionPageDTO next = customerManagementService.getCustomerTransactions(7L, page.getNextCursor(), 2);
+
+        assertEquals(1, next.getTransactions().size());
+        assertFalse(next.getHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetCustomerTransactions_WithoutAccountsSkipsHistoryQuery() {
+        when(transactionHistoryRepository.findAccountIdsByCustomerId(7L)).thenReturn(List.of());
+
+        TransactionPageDTO page = customerManagementService.getCustomerTransactions(7L, null, 50);
+
+        assertTrue(page.getTransactions().isEmpty());
+        assertFalse(page.getHasMore());
+        verify(transactionHistoryRepository, never()).findPageByAccountIds(anyCollection(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testGetCustomersPage_PageEndingOnNullCreatedAtGivesUsableCursor() {
+        List<CustomerDTO> firstPage = customers(3);
+        firstPage.get(1).setCreatedAt(null);
+        firstPage.get(2).setCreatedAt(null);
+        when(customerDataRepository.findPage(null, null, 3, false)).thenReturn(firstPage);
+        when(loanApplicationRepository.countLoansByCustomerIds(anyCollection())).thenReturn(List.of());
+
+        CustomerPageDTO page = customerManagementService.getCustomersPage(null, 2, false);
+
+        when(customerDataRepository.findPage(null, 2L, 3, false)).thenReturn(List.of(firstPage.get(2)));
+
+        CustomerPageDTO next = customerManagementService.getCustomersPage(page.getNextCursor(), 2, false);
+
+        assertEquals(1, next.getCustomers().size());
+        assertEquals(3L, next.getCustomers().get(0).getId());
+    }
+
+    // created_at is nullable - those rows sort last and the cursor pages through them by id
+    @Test
+    void testGetCustomerTransactions_PageEndingOnNullCreatedAtGivesUsableCursor() {
+        List<TransactionDTO> firstPage = transactions(3);
+        firstPage.get(1).setCreatedAt(null);
+        firstPage.get(2).setCreatedAt(null);
+        when(transactionHistoryRepository.findAccountIdsByCustomerId(7L)).thenReturn(List.of(11L));
+        when(transactionHistoryRepository.findPageByAccountIds(List.of(11L), null, null, 3)).thenReturn(firstPage);
+
+        TransactionPageDTO page = customerManagementService.getCustomerTransactions(7L, null, 2);
+
+        when(transactionHistoryRepository.findPageByAccountIds(List.of(11L), null, 2L, 3))
+                .thenReturn(List.of(firstPage.get(2)));
+
+        TransactionPageDTO next = customerManagementService.getCustomerTransactions(7L, page.getNextCursor(), 2);
+
+        assertEquals(List.of(3L), next.getTransactions().stream().map(TransactionDTO::getId).toList());
+    }
+
+    private List<TransactionDTO> transactions(int count) {
+        List<TransactionDTO> transactions = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            transactions.add(new TransactionDTO(id, "TXN" + id, new BigDecimal("100.00"), "TRANSFER", "COMPLETED",
+                    null, null, LocalDateTime.of(2025, 1, 1, 0, 0).minusMinutes(id), "ACC1", "ACC2"));
+        }
+        return transactions;
+    }
+
+    private List<CustomerDTO> customers(int count) {
+        List<CustomerDTO> customers = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            CustomerDTO customer = new CustomerDTO();
+            customer.setId(id);
+            customer.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).minusMinutes(id));
+            customers.add(customer);
+        }
+        return customers;
+    }
+}
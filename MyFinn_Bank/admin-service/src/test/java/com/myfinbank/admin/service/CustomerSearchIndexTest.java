@@ -0,0 +1,153 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerSearchIndexTest {
+
+    private static final LocalDateTime LOADED_AT = LocalDateTime.of(2025, 6, 1, 9, 0);
+
+    @Mock
+    private CustomerDataRepository customerDataRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testSearch_RanksExactThenPrefixThenSubstringAndNewestFirst() {
+        CustomerSearchIndex index = loaded(
+                customer(1L, "Rajesh", "Kumar", "rajesh.kumar@gmail.com", "9876500001"),
+                customer(2L, "Anil", "Kumaran", "anil@yahoo.com", "9876500002"),
+                customer(3L, "Priya", "Sharma", "priya.kumarsharma@gmail.com", "9876500003"),
+                customer(4L, "Vikram", "Rakumar", "vikram@outlook.com", "9876500004"),
+                customer(5L, "Sunita", "Rao", "kumar", "9876500005"));
+
+        assertEquals(List.of(5L, 3L, 2L, 1L, 4L), index.search("kumar", 10));
+        assertEquals(List.of(5L, 3L), index.search("kumar", 2));
+        assertEquals(List.of(1L), index.search("  Rajesh   KUMAR ", 10));
+        assertEquals(List.of(4L), index.search("9876500004", 10));
+    }
+
+    @Test
+    void testSearch_ShortTermsScanEveryCustomer() {
+        CustomerSearchIndex index = loaded(
+                customer(1L, "Rajesh", "Kumar", "rajesh@gmail.com", null),
+                customer(2L, "Kiran", "Rao", "kiran@gmail.com", null));
+
+        assertEquals(List.of(2L, 1L), index.search("ra", 10));
+        assertEquals(List.of(2L), index.search("ki", 10));
+    }
+
+    @Test
+    void testSearch_TrigramHitsAreVerifiedAgainstFields() {
+        CustomerSearchIndex index = loaded(customer(1L, "Abc", "Bcd", "xyz@abc.com", null));
+
+        // Every trigram of "abcd" is in the document, but not the whole term
+        assertTrue(index.search("abcd", 10).isEmpty());
+        assertTrue(index.search("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void testRefresh_AppliesChangedCustomersWithoutFullReload() {
+        CustomerSearchIndex index = loaded(customer(1L, "Rajesh", "Kumar", "rajesh@gmail.com", null));
+        doAnswer(invocation -> {
+            Consumer<CustomerDTO> consumer = invocation.getArgument(1);
+            consumer.accept(customer(1L, "Rajesh", "Verma", "rajesh@gmail.com", null));
+            consumer.accept(customer(2L, "Meena", "Kumari", "meena@gmail.com", null));
+            return null;
+        }).when(customerDataRepository).streamSearchFields(eq(LOADED_AT.minusMinutes(1)), any());
+
+        index.refresh();
+
+        assertEquals(List.of(2L), index.search("kumar", 10));
+        assertEquals(List.of(1L), index.search("verma", 10));
+        assertEquals(2, index.size());
+        assertEquals(2.0, meterRegistry.get("customer.search.index.size").gauge().value());
+    }
+
+    @Test
+    void testSearch_MatchesBruteForceOverManyCustomers() {
+        List<CustomerDTO> customers = new ArrayList<>();
+        String[] first = {"Rajesh", "Priya", "Anil", "Sunita", "Vikram", "Meena", "Kiran", "Deepak"};
+        String[] last = {"Kumar", "Sharma", "Verma", "Rao", "Iyer", "Gupta", "Nair", "Singh"};
+        for (long id = 1; id <= 20_000; id++) {
+            String firstName = first[(int) (id % first.length)];
+            String lastName = last[(int) (id / first.length % last.length)];
+            customers.add(customer(id, firstName, lastName,
+                    (firstName + "." + lastName + id + "@example.com").toLowerCase(), String.valueOf(9_000_000_000L + id)));
+        }
+        CustomerSearchIndex index = loaded(customers.toArray(new CustomerDTO[0]));
+
+        for (String term : List.of("sharma", "a.k", "99", "1234", "nair19", "example", "zz")) {
+            List<Long> expected = customers.stream()
+                    .filter(c -> (c.getFirstName() + " " + c.getLastName()).toLowerCase().contains(term)
+                            || c.getEmail().contains(term) || c.getPhone().contains(term))
+                    .map(CustomerDTO::getId)
+                    .toList();
+            List<Long> found = index.search(term, customers.size());
+            assertEquals(expected.size(), found.size(), term);
+            assertTrue(found.containsAll(expected), term);
+        }
+    }
+
+    @Test
+    void testDisabled_NeverLoadsAndIsNotReady() {
+        CustomerSearchIndex index = new CustomerSearchIndex(customerDataRepository, meterRegistry, false);
+
+        index.refresh();
+
+        assertFalse(index.isReady());
+        verify(customerDataRepository, never()).streamSearchFields(any(), any());
+    }
+
+    private CustomerSearchIndex loaded(CustomerDTO... customers) {
+        doAnswer(invocation -> {
+            Consumer<CustomerDTO> consumer = invocation.getArgument(1);
+            for (CustomerDTO customer : customers) {
+                consumer.accept(customer);
+            }
+            return null;
+        }).when(customerDataRepository).streamSearchFields(isNull(), any());
+        CustomerSearchIndex index = new CustomerSearchIndex(customerDataRepository, meterRegistry, true);
+        index.refresh();
+        assertTrue(index.isReady());
+        return index;
+    }
+
+    private CustomerDTO customer(Long id, String firstName, String lastName, String email, String phone) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setFirstName(firstName);
+        customer.setLastName(lastName);
+        customer.setEmail(email);
+        customer.setPhone(phone);
+        customer.setUpdatedAt(LOADED_AT);
+        return customer;
+    }
+}
@@ -0,0 +1,144 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.repository.DailyRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRollupServiceTest {
+
+    private static final String LOANS = DailyRollupRepository.LOANS;
+
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
+    private DailyRollupService dailyRollupService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        dailyRollupService = new DailyRollupService(dailyRollupRepository, transactionTemplate, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testCatchUp_FoldsNewRowsInChunksAndAdvancesWatermark() {
+        when(dailyRollupRepository.findMaxSourceId(LOANS)).thenReturn(120_000L);
+        when(dailyRollupRepository.lockWatermark(LOANS)).thenReturn(10L, 50_010L, 100_010L);
+
+        dailyRollupService.catchUp(LOANS);
+
+        InOrder order = inOrder(dailyRollupRepository);
+        order.verify(dailyRollupRepository).addRange(LOANS, 10L, 50_010L);
+        order.verify(dailyRollupRepository).saveWatermark(LOANS, 50_010L);
+        order.verify(dailyRollupRepository).addRange(LOANS, 50_010L, 100_010L);
+        order.verify(dailyRollupRepository).saveWatermark(LOANS, 100_010L);
+        order.verify(dailyRollupRepository).addRange(LOANS, 100_010L, 120_000L);
+        order.verify(dailyRollupRepository).saveWatermark(LOANS, 120_000L);
+    }
+
+    @Test
+    void testCatchUp_DoesNothingWhenWatermarkIsCurrent() {
+        when(dailyRollupRepository.findMaxSourceId(LOANS)).thenReturn(42L);
+        when(dailyRollupRepository.lockWatermark(LOANS)).thenReturn(42L);
+
+        dailyRollupService.catchUp(LOANS);
+
+        verify(dailyRollupRepository, never()).addRange(any(), anyLong(), anyLong());
+        verify(dailyRollupRepository, never()).saveWatermark(any(), anyLong());
+    }
+
+    @Test
+    void testReconcileRecentMonths_RebuildsTrailingMonthsBelowWatermark() {
+        when(dailyRollupRepository.lockWatermark(LOANS)).thenReturn(500L);
+
+        dailyRollupService.reconcileRecentMonths(LOANS);
+
+        verify(dailyRollupRepository).rebuildFrom(LOANS, LocalDate.now().withDayOfMonth(1).minusMonths(2), 500L);
+    }
+
+    @Test
+    void testRecordLoanDecision_MovesLoanBetweenBucketsWhenAlreadyRolledUp() {
+        when(dailyRollupRepository.shareWatermark(LOANS)).thenReturn(100L);
+
+        dailyRollupService.recordLoanDecision(loan(99L, LoanApplication.LoanStatus.APPROVED),
+                LoanApplication.LoanStatus.PENDING);
+
+        verify(dailyRollupRepository).moveLoan(LocalDate.of(2025, 3, 14), "PERSONAL",
+                "PENDING", "APPROVED", new BigDecimal("25000.00"), new BigDecimal("25000.00"));
+    }
+
+    @Test
+    void testRecordLoanDecision_SkipsLoansAboveWatermark() {
+        when(dailyRollupRepository.shareWatermark(LOANS)).thenReturn(100L);
+
+        dailyRollupService.recordLoanDecision(loan(101L, LoanApplication.LoanStatus.REJECTED),
+                LoanApplication.LoanStatus.PENDING);
+
+        verify(dailyRollupRepository, never()).moveLoan(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testRecordLoanDecisions_GroupsLoansByDayAndTypeIntoOneBatchInLockOrder() {
+        when(dailyRollupRepository.shareWatermark(LOANS)).thenReturn(100L);
+        LoanApplication sameBucket = loan(98L, LoanApplication.LoanStatus.PENDING);
+        LoanApplication otherType = loan(97L, LoanApplication.LoanStatus.PENDING);
+        otherType.setLoanType(LoanApplication.LoanType.HOME);
+
+        dailyRollupService.recordLoanDecisions(
+                List.of(loan(99L, LoanApplication.LoanStatus.PENDING), sameBucket, otherType, loan(150L, LoanApplication.LoanStatus.PENDING)),
+                LoanApplication.LoanStatus.PENDING, LoanApplication.LoanStatus.REJECTED);
+
+        LocalDate day = LocalDate.of(2025, 3, 14);
+        verify(dailyRollupRepository).moveLoans("PENDING", "REJECTED", List.of(
+                new DailyRollupRepository.LoanBucketMove(day, "HOME", 1, new BigDecimal("25000.00"), new BigDecimal("25000.00")),
+                new DailyRollupRepository.LoanBucketMove(day, "PERSONAL", 2, new BigDecimal("50000.00"), new BigDecimal("50000.00"))));
+    }
+
+    @Test
+    void testLockLoanWatermark_TakesSharedLockSoDecisionsDoNotSerialise() {
+        dailyRollupService.lockLoanWatermark();
+
+        verify(dailyRollupRepository).shareWatermark(LOANS);
+        verify(dailyRollupRepository, never()).lockWatermark(any());
+    }
+
+    @Test
+    void testRecordLoanDecision_IgnoresUnchangedStatus() {
+        dailyRollupService.recordLoanDecision(loan(5L, LoanApplication.LoanStatus.PENDING),
+                LoanApplication.LoanStatus.PENDING);
+
+        verify(dailyRollupRepository, never()).shareWatermark(eq(LOANS));
+    }
+
+    private LoanApplication loan(Long id, LoanApplication.LoanStatus status) {
+        LoanApplication loan = new LoanApplication();
+        loan.setId(id);
+        loan.setLoanType(LoanApplication.LoanType.PERSONAL);
+        loan.setStatus(status);
+        loan.setRequestedAmount(new BigDecimal("25000.00"));
+        loan.setAppliedAt(LocalDateTime.of(2025, 3, 14, 11, 30));
+        return loan;
+    }
+}
@@ -0,0 +1,143 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.DashboardStatsDTO;
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.repository.DashboardStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardStatsCacheTest {
+
+    @Mock
+    private DashboardStatsRepository dashboardStatsRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testGetStats_ServesFromCacheWithinTtl() {
+        when(dashboardStatsRepository.loadDashboardStats(any())).thenAnswer(invocation -> stats());
+        DashboardStatsCache cache = new DashboardStatsCache(dashboardStatsRepository, meterRegistry, Duration.ofMinutes(5));
+
+        cache.getStats();
+        cache.getStats();
+        cache.getStats();
+
+        verify(dashboardStatsRepository, times(1)).loadDashboardStats(any());
+        assertEquals(2.0, meterRegistry.get("dashboard.stats.cache.hits").counter().count());
+        assertEquals(1.0, meterRegistry.get("dashboard.stats.cache.misses").counter().count());
+    }
+
+    @Test
+    void testGetStats_ReloadsOnceTtlExpires() {
+        when(dashboardStatsRepository.loadDashboardStats(any())).thenAnswer(invocation -> stats());
+        DashboardStatsCache cache = new DashboardStatsCache(dashboardStatsRepository, meterRegistry, Duration.ZERO);
+
+        cache.getStats();
+        cache.getStats();
+
+        verify(dashboardStatsRepository, times(2)).loadDashboardStats(any());
+        assertEquals(2.0, meterRegistry.get("dashboard.stats.cache.reconciliations").counter().count());
+    }
+
+    @Test
+    void testIncrementalUpdates_AdjustCachedCounters() {
+        when(dashboardStatsRepository.loadDashboardStats(any())).thenAnswer(invocation -> stats());
+        DashboardStatsCache cache = new DashboardStatsCache(dashboardStatsRepository, meterRegistry, Duration.ofMinutes(5));
+        cache.getStats();
+
+        cache.recordLoanDecision(LoanApplication.LoanStatus.APPROVED, new BigDecimal("1000.00"));
+        cache.recordLoanDecision(LoanApplication.LoanStatus.REJECTED, new BigDecimal("500.00"));
+        cache.recordCustomerStatusChange(false);
+        cache.recordMessagesRead(3);
+
+        DashboardStatsDTO result = cache.getStats();
+        assertEquals(3L, result.getPendingLoanApplications());
+        assertEquals(3L, result.getApprovedLoans());
+        assertEquals(new BigDecimal("6000.00"), result.getTotalLoanAmount());
+        assertEquals(7L, result.getActiveCustomers());
+        assertEquals(1L, result.getUnreadMessages());
+        verify(dashboardStatsRepository, times(1)).loadDashboardStats(any());
+    }
+
+    @Test
+    void testRecordLoanDecisions_AdjustsCountersForTheWholeBatch() {
+        when(dashboardStatsRepository.loadDashboardStats(any())).thenAnswer(invocation -> stats());
+        DashboardStatsCache cache = new DashboardStatsCache(dashboardStatsRepository, meterRegistry, Duration.ofMinutes(5));
+        cache.getStats();
+
+        cache.recordLoanDecisions(LoanApplication.LoanStatus.APPROVED, 3, new BigDecimal("4500.00"));
+
+        DashboardStatsDTO result = cache.getStats();
+        assertEquals(2L, result.getPendingLoanApplications());
+        assertEquals(5L, result.getApprovedLoans());
+        assertEquals(new BigDecimal("9500.00"), result.getTotalLoanAmount());
+    }
+
+    @Test
+    void testIncrementalUpdates_AppliedOnlyAfterCommit() {
+        when(dashboardStatsRepository.loadDashboardStats(any())).thenAnswer(invocation -> stats());
+        DashboardStatsCache cache = new DashboardStatsCache(dashboardStatsRepository, meterRegistry, Duration.ofMinutes(5));
+        cache.getStats();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.recordLoanDecision(LoanApplication.LoanStatus.APPROVED, new BigDecimal("1000.00"));
+            cache.recordMessagesRead(3);
+            assertEquals(5L, cache.getStats().getPendingLoanApplications());
+            assertEquals(4L, cache.getStats().getUnreadMessages());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        DashboardStatsDTO result = cache.getStats();
+        assertEquals(4L, result.getPendingLoanApplications());
+        assertEquals(3L, result.getApprovedLoans());
+        assertEquals(1L, result.getUnreadMessages());
+    }
+
+    @Test
+    void testIncrementalUpdates_DroppedOnRollback() {
+        when(dashboardStatsRepository.loadDashboardStats(any())).thenAnswer(invocation -> stats());
+        DashboardStatsCache cache = new DashboardStatsCache(dashboardStatsRepository, meterRegistry, Duration.ofMinutes(5));
+        cache.getStats();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.recordCustomerStatusChange(false);
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(8L, cache.getStats().getActiveCustomers());
+    }
+
+    private DashboardStatsDTO stats() {
+        return new DashboardStatsDTO(10L, 8L, 5L, 2L, new BigDecimal("5000.00"), 4L, 1L, 1L);
+    }
+}
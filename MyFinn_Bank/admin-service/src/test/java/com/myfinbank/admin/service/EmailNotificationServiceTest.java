@@ -0,0 +1,84 @@
+package com.myfinbank.admin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.entity.EmailOutbox;
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import com.myfinbank.admin.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailNotificationServiceTest {
+
+    @Mock
+    private CustomerDataRepository customerDataRepository;
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private EmailNotificationService emailService;
+
+    @BeforeEach
+    void setUp() {
+        emailService = new EmailNotificationService();
+        ReflectionTestUtils.setField(emailService, "customerDataRepository", customerDataRepository);
+        ReflectionTestUtils.setField(emailService, "emailOutboxRepository", emailOutboxRepository);
+        ReflectionTestUtils.setField(emailService, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void testSendLoanApprovalEmail_SkipsMissingCustomerInsteadOfThrowing() {
+        when(customerDataRepository.findById(7L)).thenReturn(Optional.empty());
+
+        emailService.sendLoanApprovalEmail(7L, loan());
+
+        verify(emailOutboxRepository, never()).save(any());
+    }
+
+    @Test
+    void testSendLoanRejectionEmail_QueuesLoanWithoutApplicationDate() {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(7L);
+        customer.setEmail("asha@gmail.com");
+        customer.setFirstName("Asha");
+        customer.setLastName("Rao");
+        when(customerDataRepository.findById(7L)).thenReturn(Optional.of(customer));
+        when(emailOutboxRepository.save(any(EmailOutbox.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanApplication loan = loan();
+        loan.setAppliedAt(null);
+
+        emailService.sendLoanRejectionEmail(7L, loan);
+
+        ArgumentCaptor<EmailOutbox> queued = ArgumentCaptor.forClass(EmailOutbox.class);
+        verify(emailOutboxRepository).save(queued.capture());
+        assertEquals("loan-rejected", queued.getValue().getEmailType());
+        assertEquals("asha@gmail.com", queued.getValue().getRecipient());
+        assertTrue(queued.getValue().getPayload().contains("\"applicationDate\":\"\""));
+    }
+
+    private LoanApplication loan() {
+        LoanApplication loan = new LoanApplication();
+        loan.setId(42L);
+        loan.setCustomerId(7L);
+        loan.setLoanType(LoanApplication.LoanType.PERSONAL);
+        loan.setRequestedAmount(new BigDecimal("25000.00"));
+        return loan;
+    }
+}
@@ -0,0 +1,173 @@
+package com.myfinbank.admin.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.admin.entity.EmailOutbox;
+import com.myfinbank.admin.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxDispatcherTest {
+
+    @Mock
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        dispatcher = new EmailOutboxDispatcher(emailOutboxRepository, restTemplate, new ObjectMapper(),
+                transactionTemplate, meterRegistry);
+        lenient().when(emailOutboxRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        lenient().when(emailOutboxRepository.summarizeByStatus(EmailOutbox.OutboxStatus.PENDING))
+                .thenReturn(Collections.singletonList(new Object[]{0L, null}));
+    }
+
+    @Test
+    void testDispatch_SendsDueEmailsAndMarksThemSent() {
+        EmailOutbox entry = entry(1L);
+        when(emailOutboxRepository.findDueForUpdate(eq(EmailOutbox.OutboxStatus.PENDING), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(entry)));
+        when(restTemplate.postForEntity(eq("http://email-service/api/emails/loan-approval"), any(), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("success", true)));
+
+        dispatcher.dispatch();
+
+        ArgumentCaptor<HttpEntity> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(any(String.class), request.capture(), eq(Map.class));
+        assertEquals("email-outbox-1", request.getValue().getHeaders().getFirst("Idempotency-Key"));
+        assertEquals(EmailOutbox.OutboxStatus.SENT, entry.getStatus());
+        assertNotNull(entry.getSentAt());
+        assertEquals(1, entry.getAttempts());
+        assertEquals(1.0, meterRegistry.get("email.outbox.sent").counter().count());
+        assertEquals(1L, meterRegistry.get("email.outbox.delivery.latency").timer().count());
+    }
+
+    @Test
+    void testDispatch_TransientFailureIsRescheduledWithBackoff() {
+        EmailOutbox entry = entry(1L);
+        when(emailOutboxRepository.findDueForUpdate(eq(EmailOutbox.OutboxStatus.PENDING), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(entry)));
+        when(restTemplate.postForEntity(any(String.class), any(), eq(Map.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        assertEquals(EmailOutbox.OutboxStatus.PENDING, entry.getStatus());
+        assertEquals(1, entry.getAttempts());
+        assertTrue(entry.getNextAttemptAt().isAfter(before.plusSeconds(4)));
+        assertEquals(1.0, meterRegistry.get("email.outbox.retries").counter().count());
+    }
+
+    @Test
+    void testDispatch_ClientErrorIsNotRetried() {
+        EmailOutbox entry = entry(1L);
+        when(emailOutboxRepository.findDueForUpdate(eq(EmailOutbox.OutboxStatus.PENDING), any(), any()))
+                .thenReturn(new ArrayList<>(List.of(entry)));
+        when(restTemplate.postForEntity(any(String.class), any(), eq(Map.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+        dispatcher.dispatch();
+
+        assertEquals(EmailOutbox.OutboxStatus.FAILED, entry.getStatus());
+        assertEquals(1.0, meterRegistry.get("email.outbox.failed").counter().count());
+    }
+
+    @Test
+    void testDispatch_NothingDueMakesNoCalls() {
+        when(emailOutboxRepository.findDueForUpdate(eq(EmailOutbox.OutboxStatus.PENDING), any(), any()))
+                .thenReturn(new ArrayList<>());
+
+        dispatcher.dispatch();
+
+        verify(restTemplate, never()).postForEntity(any(String.class), any(), eq(Map.class));
+        verify(emailOutboxRepository, never()).saveAll(anyList());
+        verify(emailOutboxRepository, times(1)).summarizeByStatus(EmailOutbox.OutboxStatus.PENDING);
+    }
+
+    @Test
+    void testDispatch_LeaseCoversEveryRowTimingOut() {
+        List<EmailOutbox> batch = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            batch.add(entry(id));
+        }
+        List<LocalDateTime> leasedUntil = new ArrayList<>();
+        when(emailOutboxRepository.findDueForUpdate(eq(EmailOutbox.OutboxStatus.PENDING), any(), any()))
+                .thenReturn(batch);
+        when(emailOutboxRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<EmailOutbox> saved = invocation.getArgument(0);
+            if (leasedUntil.isEmpty()) {
+                saved.forEach(entry -> leasedUntil.add(entry.getNextAttemptAt()));
+            }
+            return saved;
+        });
+        when(restTemplate.postForEntity(any(String.class), any(), eq(Map.class)))
+                .thenReturn(ResponseEntity.ok(Map.of("success", true)));
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.dispatch();
+
+        // 3 rows x (5s connect + 10s read) + 2m margin
+        assertEquals(Duration.ofSeconds(165), dispatcher.leaseFor(3));
+        assertEquals(3, leasedUntil.size());
+        leasedUntil.forEach(until -> assertTrue(!until.isBefore(before.plusSeconds(165))));
+    }
+
+    @Test
+    void testBackoff_DoublesUpToTheCap() {
+        assertEquals(Duration.ofSeconds(5), dispatcher.backoff(1));
+        assertEquals(Duration.ofSeconds(20), dispatcher.backoff(3));
+        assertEquals(Duration.ofMinutes(10), dispatcher.backoff(30));
+    }
+
+    private EmailOutbox entry(Long id) {
+        EmailOutbox entry = new EmailOutbox();
+        entry.setId(id);
+        entry.setEmailType("loan-approval");
+        entry.setRecipient("rajesh.kumar@gmail.com");
+        entry.setPayload("{\"to\":\"rajesh.kumar@gmail.com\",\"customerName\":\"Rajesh Kumar\"}");
+        entry.setCreatedAt(LocalDateTime.now().minusSeconds(2));
+        return entry;
+    }
+}
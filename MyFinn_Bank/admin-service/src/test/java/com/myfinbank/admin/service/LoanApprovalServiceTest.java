@@ -0,0 +1,258 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.dto.CustomerDTO;
+import com.myfinbank.admin.dto.LoanApprovalDTO;
+import com.myfinbank.admin.dto.LoanBulkDecisionDTO;
+import com.myfinbank.admin.dto.LoanDecisionResultDTO;
+import com.myfinbank.admin.dto.LoanPageDTO;
+import com.myfinbank.admin.entity.LoanApplication;
+import com.myfinbank.admin.exception.LoanProcessingException;
+import com.myfinbank.admin.repository.CustomerDataRepository;
+import com.myfinbank.admin.repository.LoanApplicationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoanApprovalServiceTest {
+
+    @Mock
+    private LoanApplicationRepository loanRepository;
+
+    @Mock
+    private CustomerDataRepository customerDataRepository;
+
+    @Mock
+    private EmailNotificationService emailService;
+
+    @Mock
+    private DashboardStatsCache dashboardStatsCache;
+
+    @Mock
+    private DailyRollupService dailyRollupService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private LoanApprovalService loanApprovalService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        loanApprovalService = new LoanApprovalService();
+        ReflectionTestUtils.setField(loanApprovalService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(loanApprovalService, "loanRepository", loanRepository);
+        ReflectionTestUtils.setField(loanApprovalService, "emailService", emailService);
+        ReflectionTestUtils.setField(loanApprovalService, "dashboardStatsCache", dashboardStatsCache);
+        ReflectionTestUtils.setField(loanApprovalService, "dailyRollupService", dailyRollupService);
+        ReflectionTestUtils.setField(loanApprovalService, "customerNameCache",
+                new CustomerNameCache(customerDataRepository, 10_000, Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void testGetPendingLoanApplications_ResolvesAllCustomersInOneQuery() {
+        List<LoanApplication> loans = loans(5000, 1L);
+        when(loanRepository.findByStatusOrderByAppliedAtAsc(LoanApplication.LoanStatus.PENDING)).thenReturn(loans);
+        when(customerDataRepository.findBasicDetailsByIds(anyCollection())).thenAnswer(invocation -> {
+            List<CustomerDTO> customers = new ArrayList<>();
+            for (Object id : invocation.<java.util.Collection<?>>getArgument(0)) {
+                customers.add(customer((Long) id));
+            }
+            return customers;
+        });
+
+        List<LoanApprovalDTO> result = loanApprovalService.getPendingLoanApplications();
+
+        assertEquals(5000, result.size());
+        assertEquals("Customer 7 Kumar", result.get(6).getCustomerName());
+        assertEquals("2025-03-14 11:30:00", result.get(0).getCreatedDate());
+        verify(customerDataRepository, times(1)).findBasicDetailsByIds(anyCollection());
+        verify(customerDataRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testGetLoanApplicationsByStatus_PagesByLoanId() {
+        when(loanRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                LoanApplication.LoanStatus.APPROVED, 0L, PageRequest.of(0, 3))).thenReturn(loans(3, 1L));
+
+        LoanPageDTO page = loanApprovalService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.APPROVED, null, 2);
+
+        assertEquals(2, page.getLoans().size());
+        assertTrue(page.getHasMore());
+        assertEquals(2L, page.getNextCursor());
+
+        when(loanRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                LoanApplication.LoanStatus.APPROVED, 2L, PageRequest.of(0, 3))).thenReturn(loans(1, 3L));
+
+        LoanPageDTO next = loanApprovalService.getLoanApplicationsByStatus(LoanApplication.LoanStatus.APPROVED, 2L, 2);
+
+        assertEquals(1, next.getLoans().size());
+        assertFalse(next.getHasMore());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testGetPendingLoanApplications_ClampsPageSize() {
+        loanApprovalService.getPendingLoanApplications(null, 100_000);
+
+        verify(loanRepository).findByStatusAndIdGreaterThanOrderByIdAsc(LoanApplication.LoanStatus.PENDING, 0L,
+                PageRequest.of(0, LoanApprovalService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testDecideLoans_UpdatesPendingLoansWithOneStatementAndReportsEveryId() {
+        List<LoanApplication> pending = loans(2, 1L);
+        when(loanRepository.findByIdInAndStatusForUpdate(List.of(1L, 2L, 3L, 4L), LoanApplication.LoanStatus.PENDING))
+                .thenReturn(pending);
+        when(loanRepository.updateStatusWhereStatus(eq(List.of(1L, 2L)), eq(LoanApplication.LoanStatus.PENDING),
+                eq(LoanApplication.LoanStatus.APPROVED), eq(9L), eq("Month end"), any())).thenReturn(2);
+        LoanApplication alreadyRejected = loans(1, 3L).get(0);
+        alreadyRejected.setStatus(LoanApplication.LoanStatus.REJECTED);
+        when(loanRepository.findAllById(List.of(3L, 4L))).thenReturn(List.of(alreadyRejected));
+
+        LoanBulkDecisionDTO result = loanApprovalService.decideLoans(List.of(1L, 2L, 3L, 2L, 4L),
+                LoanApplication.LoanStatus.APPROVED, 9L, "Month end");
+
+        assertEquals(4, result.getRequested());
+        assertEquals(2, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of(LoanApprovalService.DECIDED, LoanApprovalService.DECIDED,
+                        LoanApprovalService.NOT_PENDING, LoanApprovalService.NOT_FOUND),
+                result.getResults().stream().map(LoanDecisionResultDTO::getOutcome).toList());
+
+        InOrder order = inOrder(dailyRollupService, loanRepository);
+        order.verify(dailyRollupService).lockLoanWatermark();
+        order.verify(loanRepository).findByIdInAndStatusForUpdate(any(), any());
+        order.verify(dailyRollupService).recordLoanDecisions(pending,
+                LoanApplication.LoanStatus.PENDING, LoanApplication.LoanStatus.APPROVED);
+        order.verify(loanRepository).updateStatusWhereStatus(any(), any(), any(), any(), any(), any());
+        verify(emailService).sendLoanDecisionEmails(pending, LoanApplication.LoanStatus.APPROVED);
+        verify(dashboardStatsCache).recordLoanDecisions(eq(LoanApplication.LoanStatus.APPROVED), eq(2), any());
+        verify(dashboardStatsCache, never()).recordLoanDecision(any(), any());
+        verify(loanRepository, never()).save(any());
+        assertEquals(LoanApplication.LoanStatus.APPROVED, pending.get(0).getStatus());
+    }
+
+    @Test
+    void testDecideLoans_NothingPendingSkipsUpdateAndEmails() {
+        when(loanRepository.findByIdInAndStatusForUpdate(List.of(5L), LoanApplication.LoanStatus.PENDING)).thenReturn(List.of());
+        when(loanRepository.findAllById(List.of(5L))).thenReturn(List.of());
+
+        LoanBulkDecisionDTO result = loanApprovalService.decideLoans(List.of(5L), LoanApplication.LoanStatus.REJECTED, 9L, null);
+
+        assertEquals(0, result.getSucceeded());
+        assertEquals(LoanApprovalService.NOT_FOUND, result.getResults().get(0).getOutcome());
+        verify(loanRepository, never()).updateStatusWhereStatus(any(), any(), any(), any(), any(), any());
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void testDecideLoans_RejectsPendingAsDecision() {
+        assertThrows(LoanProcessingException.class, () ->
+                loanApprovalService.decideLoans(List.of(1L), LoanApplication.LoanStatus.PENDING, 9L, null));
+        verifyNoInteractions(loanRepository);
+    }
+
+    @Test
+    void testApproveLoan_DecidesWithConditionalUpdateInsteadOfSave() {
+        when(loanRepository.updateStatusWhereStatus(eq(List.of(1L)), eq(LoanApplication.LoanStatus.PENDING),
+                eq(LoanApplication.LoanStatus.APPROVED), eq(9L), eq("Looks good"), any())).thenReturn(1);
+        LoanApplication decided = loans(1, 1L).get(0);
+        decided.setStatus(LoanApplication.LoanStatus.APPROVED);
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(decided));
+
+        LoanApprovalDTO result = loanApprovalService.approveLoan(1L, 9L, "Looks good");
+
+        assertEquals("APPROVED", result.getStatus());
+        InOrder order = inOrder(dailyRollupService, loanRepository);
+        order.verify(dailyRollupService).lockLoanWatermark();
+        order.verify(loanRepository).updateStatusWhereStatus(any(), any(), any(), any(), any(), any());
+        order.verify(dailyRollupService).recordLoanDecision(decided, LoanApplication.LoanStatus.PENDING);
+        verify(emailService).sendLoanApprovalEmail(1L, decided);
+        verify(loanRepository, never()).save(any());
+        assertEquals(1.0, decisions("decided", "single"));
+    }
+
+    @Test
+    void testRejectLoan_AlreadyDecidedLoanIsCountedAsConflict() {
+        LoanApplication approved = loans(1, 1L).get(0);
+        approved.setStatus(LoanApplication.LoanStatus.APPROVED);
+        when(loanRepository.findById(1L)).thenReturn(Optional.of(approved));
+
+        LoanProcessingException e = assertThrows(LoanProcessingException.class,
+                () -> loanApprovalService.rejectLoan(1L, 9L, null));
+
+        assertEquals("Loan application is not in pending status", e.getMessage());
+        verify(dailyRollupService, never()).recordLoanDecision(any(), any());
+        verifyNoInteractions(emailService, dashboardStatsCache);
+        assertEquals(1.0, decisions("conflict", "single"));
+    }
+
+    @Test
+    void testRejectLoan_UnknownLoanIsCountedAsNotFound() {
+        when(loanRepository.findById(1L)).thenReturn(Optional.empty());
+
+        LoanProcessingException e = assertThrows(LoanProcessingException.class,
+                () -> loanApprovalService.rejectLoan(1L, 9L, null));
+
+        assertEquals("Loan application not found: 1", e.getMessage());
+        assertEquals(1.0, decisions("not_found", "single"));
+    }
+
+    private double decisions(String outcome, String mode) {
+        var counter = meterRegistry.find("loan.decisions").tag("outcome", outcome).tag("mode", mode).counter();
+        return counter != null ? counter.count() : 0.0;
+    }
+
+    private List<LoanApplication> loans(int count, long firstId) {
+        List<LoanApplication> loans = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            LoanApplication loan = new LoanApplication();
+            loan.setId(id);
+            loan.setCustomerId(id);
+            loan.setLoanType(LoanApplication.LoanType.PERSONAL);
+            loan.setStatus(LoanApplication.LoanStatus.PENDING);
+            loan.setRequestedAmount(new BigDecimal("25000.00"));
+            loan.setAppliedAt(LocalDateTime.of(2025, 3, 14, 11, 30));
+            loans.add(loan);
+        }
+        return loans;
+    }
+
+    private CustomerDTO customer(Long id) {
+        CustomerDTO customer = new CustomerDTO();
+        customer.setId(id);
+        customer.setFirstName("Customer " + id);
+        customer.setLastName("Kumar");
+        customer.setEmail("customer" + id + "@gmail.com");
+        return customer;
+    }
+}
@@ -0,0 +1,93 @@
+package com.myfinbank.admin.service;
+
+import com.myfinbank.admin.repository.DailyRollupRepository;
+import com.myfinbank.admin.repository.MonthlyReportRollupRepository;
+import com.myfinbank.admin.repository.ReportRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReportServiceTest {
+
+    @Mock
+    private ReportRepository reportRepository;
+
+    @Mock
+    private MonthlyReportRollupRepository rollupRepository;
+
+    @Mock
+    private DailyRollupRepository dailyRollupRepository;
+
+    @Mock
+    private DashboardStatsCache dashboardStatsCache;
+
+    @InjectMocks
+    private ReportService reportService;
+
+    @Test
+    void testRefreshMonthlyRollup_FirstRunBackfillsFromEarliestActivity() {
+        when(rollupRepository.count()).thenReturn(0L);
+        when(reportRepository.findEarliestActivity()).thenReturn(LocalDateTime.of(2023, 5, 17, 9, 30));
+
+        reportService.refreshMonthlyRollup();
+
+        LocalDate nextMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        verify(reportRepository).refreshMonthlyRollup(LocalDate.of(2023, 5, 1).atStartOfDay(), nextMonth.atStartOfDay());
+    }
+
+    @Test
+    void testRefreshMonthlyRollup_LaterRunsOnlyRecomputeRecentMonths() {
+        when(rollupRepository.count()).thenReturn(24L);
+
+        reportService.refreshMonthlyRollup();
+
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        verify(reportRepository).refreshMonthlyRollup(currentMonth.minusMonths(2).atStartOfDay(),
+                currentMonth.plusMonths(1).atStartOfDay());
+        verify(reportRepository, never()).findEarliestActivity();
+    }
+
+    @Test
+    void testGetMonthlyReport_ServesFromRollupWithoutRefreshing() {
+        when(rollupRepository.count()).thenReturn(24L);
+
+        reportService.getMonthlyReport(12);
+
+        verify(rollupRepository).findByMonthStartGreaterThanEqualOrderByMonthStartAsc(
+                LocalDate.now().withDayOfMonth(1).minusMonths(11));
+        verify(reportRepository, never()).refreshMonthlyRollup(any(), any());
+    }
+
+    @Test
+    void testWriteCsvField_QuotesAndNeutralisesFormulas() throws IOException {
+        StringWriter out = new StringWriter();
+
+        ReportService.writeCsvField(out, "Kumar, Rajesh", true);
+        ReportService.writeCsvField(out, "said \"hi\"", false);
+        ReportService.writeCsvField(out, "=SUM(A1)", false);
+        ReportService.writeCsvField(out, null, false);
+        ReportService.writeCsvField(out, "-250.00", false);
+
+        assertEquals("\"Kumar, Rajesh\",\"said \"\"hi\"\"\",'=SUM(A1),,-250.00", out.toString());
+
+        StringWriter formulas = new StringWriter();
+        ReportService.writeCsvField(formulas, "-2+3+cmd|' /C calc'!A0", true);
+        ReportService.writeCsvField(formulas, "\t=1+1", false);
+        ReportService.writeCsvField(formulas, "@SUM(A1)", false);
+        assertEquals("'-2+3+cmd|' /C calc'!A0,'\t=1+1,'@SUM(A1)", formulas.toString());
+    }
+}
@@ -81,6 +81,7 @@ CREATE TABLE loans (
     processed_at DATETIME,
     approved_date DATETIME,
     created_date DATETIME DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (customer_id) REFERENCES customers(id),
     FOREIGN KEY (approved_by) REFERENCES admins(admin_id)
 );
@@ -156,6 +157,62 @@ CREATE TABLE chat_messages (
     FOREIGN KEY (admin_id) REFERENCES admins(admin_id)
 );
 
+-- Emails waiting to be delivered to email-service (written with the change that triggered them)
+CREATE TABLE email_outbox (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    email_type VARCHAR(50) NOT NULL,
+    recipient VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(500),
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at DATETIME,
+    INDEX idx_email_outbox_due (status, next_attempt_at, id)
+);
+
+-- Monthly reporting figures, maintained from customers, loans and transactions by admin-service
+CREATE TABLE report_monthly_rollup (
+    month_start DATE PRIMARY KEY,
+    new_customers BIGINT NOT NULL DEFAULT 0,
+    loan_applications BIGINT NOT NULL DEFAULT 0,
+    pending_loans BIGINT NOT NULL DEFAULT 0,
+    approved_loans BIGINT NOT NULL DEFAULT 0,
+    rejected_loans BIGINT NOT NULL DEFAULT 0,
+    approved_amount DECIMAL(17,2) NOT NULL DEFAULT 0.00,
+    transaction_count BIGINT NOT NULL DEFAULT 0,
+    transaction_volume DECIMAL(17,2) NOT NULL DEFAULT 0.00,
+    refreshed_at DATETIME NOT NULL
+);
+
+-- Daily rollups maintained incrementally above an id watermark by admin-service
+CREATE TABLE transaction_daily_rollup (
+    day DATE NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    txn_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (day, type, status)
+);
+
+CREATE TABLE loan_daily_rollup (
+    day DATE NOT NULL,
+    loan_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    loan_count BIGINT NOT NULL DEFAULT 0,
+    total_requested DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    total_approved DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (day, loan_type, status),
+    INDEX idx_loan_rollup_status (status)
+);
+
+CREATE TABLE rollup_watermarks (
+    name VARCHAR(50) PRIMARY KEY,
+    last_id BIGINT NOT NULL DEFAULT 0,
+    updated_at DATETIME NOT NULL
+);
+
 -- =====================================================
 -- DUMMY DATA INSERTION
 -- =====================================================
@@ -256,11 +313,19 @@ INSERT INTO chat_messages (customer_id, admin_id, message, sender_type, sender_i
 -- Create Indexes for Better Performance
 -- =====================================================
 CREATE INDEX idx_customers_email ON customers(email);
+CREATE INDEX idx_customers_created ON customers(created_at, id);
+CREATE INDEX idx_customers_updated ON customers(updated_at);
+-- Only needed when admin-service runs with customer.search.mode=fulltext
+-- CREATE FULLTEXT INDEX ft_customers_search ON customers(first_name, last_name, email, phone);
 CREATE INDEX idx_accounts_customer ON accounts(customer_id);
 CREATE INDEX idx_loans_customer ON loans(customer_id);
 CREATE INDEX idx_loans_status ON loans(status);
+CREATE INDEX idx_loans_applied ON loans(applied_at);
 CREATE INDEX idx_transactions_date ON transactions(created_at);
+CREATE INDEX idx_transactions_from_created ON transactions(from_account_id, created_at, id);
+CREATE INDEX idx_transactions_to_created ON transactions(to_account_id, created_at, id);
 CREATE INDEX idx_chat_customer ON chat_messages(customer_id);
+CREATE INDEX idx_chat_customer_unread ON chat_messages(customer_id, sender_type, is_read);
 
 -- =====================================================
 -- Display Summary
@@ -5,16 +5,21 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.spring6.templateresolver.SpringResourceTemplateResolver;
 import org.thymeleaf.templatemode.TemplateMode;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Properties;
 
 @Configuration
 public class MailConfig {
     
+    public static final String TEMPLATE_PREFIX = "classpath:/templates/";
+    public static final String TEMPLATE_SUFFIX = ".html";
+    
     @Value("${spring.mail.host}")
     private String host;
     
@@ -27,6 +32,16 @@ public class MailConfig {
     @Value("${spring.mail.password}")
     private String password;
     
+    // Parsed templates are kept this long, so edited templates are picked up without a restart
+    @Value("${email.template.cache.enabled:true}")
+    private boolean templateCacheEnabled;
+    
+    @Value("${email.template.cache.ttl:1h}")
+    private Duration templateCacheTtl;
+    
+    @Value("${email.template.cache.max-size:100}")
+    private int templateCacheMaxSize;
+    
     @Bean
     public JavaMailSender javaMailSender() {
         JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
@@ -47,10 +62,12 @@ public class MailConfig {
     @Bean
     public SpringResourceTemplateResolver htmlTemplateResolver() {
         SpringResourceTemplateResolver emailTemplateResolver = new SpringResourceTemplateResolver();
-        emailTemplateResolver.setPrefix("classpath:/templates/");
-        emailTemplateResolver.setSuffix(".html");
+        emailTemplateResolver.setPrefix(TEMPLATE_PREFIX);
+        emailTemplateResolver.setSuffix(TEMPLATE_SUFFIX);
         emailTemplateResolver.setTemplateMode(TemplateMode.HTML);
         emailTemplateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        emailTemplateResolver.setCacheable(templateCacheEnabled);
+        emailTemplateResolver.setCacheTTLMs(templateCacheTtl.toMillis());
         return emailTemplateResolver;
     }
     
@@ -58,6 +75,9 @@ public class MailConfig {
     public SpringTemplateEngine templateEngine() {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
         templateEngine.setTemplateResolver(htmlTemplateResolver());
+        StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(templateCacheMaxSize);
+        templateEngine.setCacheManager(cacheManager);
         return templateEngine;
     }
 }
@@ -1,16 +1,22 @@
 package com.myfinbank.email.controller;
 
+import com.myfinbank.email.dto.EmailJob;
 import com.myfinbank.email.dto.EmailRequest;
+import com.myfinbank.email.dto.EmailSendResult;
+import com.myfinbank.email.service.EmailDispatcher;
 import com.myfinbank.email.service.EmailService;
 import com.myfinbank.email.service.TemplateService;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -18,21 +24,102 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class EmailController {
     
+    // Header naming a request; a repeat within email.idempotency.ttl is not sent again
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    
     private final EmailService emailService;
+    private final EmailDispatcher emailDispatcher;
     
+    // Emails are queued on the dispatcher: 202 with a job id to poll, or 429 with Retry-After when it is full.
+    // Repeats of an Idempotency-Key and sends over the recipient's rate limit are suppressed.
     @PostMapping("/send")
-    public ResponseEntity<Map<String, String>> sendEmail(@Valid @RequestBody EmailRequest request) {
-        emailService.sendHtmlEmail(request);
+    public ResponseEntity<Map<String, String>> sendEmail(@Valid @RequestBody EmailRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        return queue(request, idempotencyKey, "Email queued for sending");
+    }
+    
+    // Where a queued email is - QUEUED, SENDING, RETRYING, SENT, FAILED or SUPPRESSED
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return emailDispatcher.getJob(jobId)
+                .map(job -> ResponseEntity.ok(Map.<String, Object>of(
+                    "status", "success",
+                    "job", job
+                )))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "status", "error",
+                    "message", "Email job not found: " + jobId
+                )));
+    }
+    
+    // Emails that ran out of attempts, with their request and last error
+    @GetMapping("/dead-letters")
+    public ResponseEntity<Map<String, Object>> getDeadLetters() {
         return ResponseEntity.ok(Map.of(
             "status", "success",
-            "message", "Email sent successfully"
+            "deadLetters", emailDispatcher.getDeadLetters()
         ));
     }
     
+    // Queue a dead-lettered email again, e.g. once the address or template was fixed
+    @PostMapping("/dead-letters/{jobId}/retry")
+    public ResponseEntity<Map<String, Object>> retryDeadLetter(@PathVariable String jobId) {
+        return emailDispatcher.requeueDeadLetter(jobId)
+                .map(job -> ResponseEntity.accepted().body(Map.<String, Object>of(
+                    "status", "queued",
+                    "message", "Email queued for sending",
+                    "jobId", job.getJobId()
+                )))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "status", "error",
+                    "message", "Dead letter not found: " + jobId
+                )));
+    }
+    
+    // Queue depth, in-flight sends, totals and send latency percentiles of the dispatcher
+    @GetMapping("/dispatcher/stats")
+    public ResponseEntity<Map<String, Object>> getDispatcherStats() {
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "dispatcher", emailDispatcher.getStats()
+        ));
+    }
+    
+    // Send many emails in one call. Messages share SMTP sessions and each one gets its own result,
+    // so the response is 200 even when some of them could not be sent.
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> sendBatch(@RequestBody List<EmailRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", "No emails given"
+            ));
+        }
+        if (requests.size() > EmailService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "status", "error",
+                "message", "At most " + EmailService.MAX_BATCH_SIZE + " emails can be sent in one batch"
+            ));
+        }
+        
+        List<EmailSendResult> results = emailService.sendBatch(requests);
+        long sent = results.stream().filter(r -> r.getStatus() == EmailSendResult.Status.SENT).count();
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("status", sent == results.size() ? "success" : sent == 0 ? "error" : "partial");
+        response.put("message", sent + " of " + results.size() + " emails sent");
+        response.put("requested", results.size());
+        response.put("sent", sent);
+        response.put("failed", results.size() - sent);
+        response.put("results", results);
+        return ResponseEntity.ok(response);
+    }
+    
     @PostMapping("/welcome")
     public ResponseEntity<Map<String, String>> sendWelcomeEmail(
             @RequestParam String to,
-            @RequestParam String customerName) {
+            @RequestParam String customerName,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         
         EmailRequest request = EmailRequest.builder()
                 .to(to)
@@ -41,11 +128,7 @@ public class EmailController {
                 .variables(Map.of("customerName", customerName))
                 .build();
                 
-        emailService.sendHtmlEmail(request);
-        return ResponseEntity.ok(Map.of(
-            "status", "success",
-            "message", "Welcome email sent successfully"
-        ));
+        return queue(request, idempotencyKey, "Welcome email queued for sending");
     }
     
     @PostMapping("/loan-approval")
@@ -53,7 +136,8 @@ public class EmailController {
             @RequestParam String to,
             @RequestParam String customerName,
             @RequestParam String loanAmount,
-            @RequestParam String loanType) {
+            @RequestParam String loanType,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         
         EmailRequest request = EmailRequest.builder()
                 .to(to)
@@ -66,18 +150,15 @@ public class EmailController {
                 ))
                 .build();
                 
-        emailService.sendHtmlEmail(request);
-        return ResponseEntity.ok(Map.of(
-            "status", "success",
-            "message", "Loan approval email sent successfully"
-        ));
+        return queue(request, idempotencyKey, "Loan approval email queued for sending");
     }
     
     @PostMapping("/balance-alert")
     public ResponseEntity<Map<String, String>> sendBalanceAlert(
             @RequestParam String to,
             @RequestParam String customerName,
-            @RequestParam String accountNumber) {
+            @RequestParam String accountNumber,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         
         // Mask the account number before sending to template
         String maskedAccountNumber = emailService.maskAccountNumber(accountNumber);
@@ -92,11 +173,7 @@ public class EmailController {
                 ))
                 .build();
                 
-        emailService.sendHtmlEmail(request);
-        return ResponseEntity.ok(Map.of(
-            "status", "success",
-            "message", "Balance alert email sent successfully"
-        ));
+        return queue(request, idempotencyKey, "Balance alert email queued for sending");
     }
     
     @PostMapping("/loan-rejected")
@@ -106,7 +183,8 @@ public class EmailController {
             @RequestParam String applicationId,
             @RequestParam String loanType,
             @RequestParam String requestedAmount,
-            @RequestParam String applicationDate) {
+            @RequestParam String applicationDate,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         
         EmailRequest request = EmailRequest.builder()
                 .to(to)
@@ -121,18 +199,15 @@ public class EmailController {
                 ))
                 .build();
                 
-        emailService.sendHtmlEmail(request);
-        return ResponseEntity.ok(Map.of(
-            "status", "success",
-            "message", "Loan rejection email sent successfully"
-        ));
+        return queue(request, idempotencyKey, "Loan rejection email queued for sending");
     }
 
     @PostMapping("/account-deactivated")
     public ResponseEntity<Map<String, String>> sendAccountDeactivatedEmail(
             @RequestParam String to,
             @RequestParam String customerName,
-            @RequestParam String accountNumber) {
+            @RequestParam String accountNumber,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
         
         // Mask the account number before sending to template
         String maskedAccountNumber = emailService.maskAccountNumber(accountNumber);
@@ -147,11 +222,7 @@ public class EmailController {
                 ))
                 .build();
                 
-        emailService.sendHtmlEmail(request);
-        return ResponseEntity.ok(Map.of(
-            "status", "success",
-            "message", "Account deactivation email sent successfully"
-        ));
+        return queue(request, idempotencyKey, "Account deactivation email queued for sending");
     }
     
     // Test endpoint to check email functionality
@@ -179,6 +250,42 @@ public class EmailController {
         }
     }
     
+    // Render counts and timings per template, and how many were served from the cached layout
+    @GetMapping("/templates/stats")
+    public ResponseEntity<Map<String, Object>> getTemplateStats() {
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "templates", emailService.getTemplateService().getRenderStats()
+        ));
+    }
+    
+    // Drop cached templates and layouts after templates were changed
+    @PostMapping("/templates/cache/clear")
+    public ResponseEntity<Map<String, String>> clearTemplateCache() {
+        emailService.getTemplateService().clearCache();
+        return ResponseEntity.ok(Map.of(
+            "status", "success",
+            "message", "Template cache cleared"
+        ));
+    }
+    
+    // A suppressed email is answered with 200 rather than an error, so callers do not retry it
+    private ResponseEntity<Map<String, String>> queue(EmailRequest request, String idempotencyKey, String message) {
+        EmailJob job = emailDispatcher.submit(request, idempotencyKey);
+        if (job.getStatus() == EmailJob.Status.SUPPRESSED) {
+            return ResponseEntity.ok(Map.of(
+                "status", "suppressed",
+                "message", job.getError(),
+                "jobId", job.getDuplicateOf() != null ? job.getDuplicateOf() : job.getJobId()
+            ));
+        }
+        return ResponseEntity.accepted().body(Map.of(
+            "status", "queued",
+            "message", message,
+            "jobId", job.getJobId()
+        ));
+    }
+    
     // Diagnostic endpoint to check SMTP configuration
     @GetMapping("/diagnose")
     public ResponseEntity<Map<String, Object>> diagnoseEmailService() {
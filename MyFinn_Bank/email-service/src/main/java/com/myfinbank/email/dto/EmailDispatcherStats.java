@@ -0,0 +1,51 @@
+package com.myfinbank.email.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Load and send latency of the email dispatcher. Counters are since startup; latency
+// percentiles cover the most recent sends.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDispatcherStats {
+    
+    private int poolSize;
+    
+    private int queueCapacity;
+    
+    private int queueDepth;
+    
+    private int inFlight;
+    
+    private int pending; // In the journal - queued, sending or waiting to retry
+    
+    private int deadLetters;
+    
+    private long submitted;
+    
+    private long sent;
+    
+    private long failed; // Gave up and dead-lettered
+    
+    private long retried; // Failed attempts that were scheduled again
+    
+    private long rejected; // Turned away with 429 because the queue was full
+    
+    private long suppressedDuplicates; // Idempotency key seen before
+    
+    private long suppressedRateLimited; // Over the per-recipient limit for the template
+    
+    private int latencySamples;
+    
+    private long latencyP50Millis;
+    
+    private long latencyP95Millis;
+    
+    private long latencyP99Millis;
+    
+    private long latencyMaxMillis;
+}
@@ -0,0 +1,46 @@
+package com.myfinbank.email.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// One email handed to the dispatcher. Returned when it is queued and pollable by id until it is
+// dropped from the job history. FAILED emails are in the dead-letter store; SUPPRESSED ones were
+// never sent, as duplicates or over the rate limit.
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EmailJob {
+    
+    private String jobId;
+    
+    private String to;
+    
+    private String templateName;
+    
+    private volatile Status status;
+    
+    private volatile String error; // Last failure, while retrying or once given up; why it was suppressed
+    
+    private String duplicateOf; // Job first accepted with the same idempotency key
+    
+    private volatile int attempts; // Failed attempts so far
+    
+    private LocalDateTime queuedAt;
+    
+    private volatile LocalDateTime startedAt;
+    
+    private volatile LocalDateTime finishedAt;
+    
+    private volatile LocalDateTime nextAttemptAt; // Only set while waiting to retry
+    
+    public enum Status {
+        QUEUED, SENDING, RETRYING, SENT, FAILED, SUPPRESSED
+    }
+}
@@ -0,0 +1,26 @@
+package com.myfinbank.email.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Outcome of one message in a batch send, in the order the requests were given
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailSendResult {
+    
+    private int index;
+    
+    private String to;
+    
+    private Status status;
+    
+    private String error; // Only set when the message was not sent
+    
+    public enum Status {
+        SENT, FAILED, INVALID
+    }
+}
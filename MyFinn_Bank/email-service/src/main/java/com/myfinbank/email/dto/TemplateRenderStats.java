@@ -0,0 +1,26 @@
+package com.myfinbank.email.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Render counts and timings of one email template since startup
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TemplateRenderStats {
+    
+    private String templateName;
+    
+    private long renders;
+    
+    private long layoutRenders; // Served by splicing values into the cached layout
+    
+    private long fullRenders; // Rendered through Thymeleaf
+    
+    private long averageMicros;
+    
+    private long maxMicros;
+}
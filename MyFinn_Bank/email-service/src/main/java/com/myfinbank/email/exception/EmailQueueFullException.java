@@ -0,0 +1,18 @@
+package com.myfinbank.email.exception;
+
+import java.time.Duration;
+
+// The dispatcher queue is full - the caller should retry after the given delay
+public class EmailQueueFullException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public EmailQueueFullException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,411 @@
+package com.myfinbank.email.service;
+
+import com.myfinbank.email.dto.EmailDispatcherStats;
+import com.myfinbank.email.dto.EmailJob;
+import com.myfinbank.email.dto.EmailRequest;
+import com.myfinbank.email.exception.EmailQueueFullException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Sends single emails in the background on a bounded pool. Every accepted email is written to the
+// EmailJournal first, so it survives SMTP outages and restarts: failed sends are retried with
+// exponential backoff, emails out of attempts move to the dead-letter store, and whatever was
+// pending at shutdown is picked up again at startup. When the pool's queue is full the email is
+// refused with EmailQueueFullException (429 with Retry-After), and every accepted email gets a
+// job id the caller can poll for the outcome. EmailSendGuard sits in front: repeats of an
+// idempotency key and sends over the recipient's rate limit are answered with a SUPPRESSED job
+// instead of an email.
+@Service
+@Slf4j
+public class EmailDispatcher {
+
+    // Send latencies kept for the percentiles
+    private static final int LATENCY_SAMPLES = 1024;
+
+    // Wait before handing a due email to the pool again when the pool's queue is full
+    private static final long REQUEUE_DELAY_MILLIS = 500;
+
+    private final EmailService emailService;
+    private final EmailJournal journal;
+    private final EmailSendGuard sendGuard;
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int jobRetention;
+    private final Duration minRetryAfter;
+    private final int maxPending;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final ThreadPoolExecutor executor;
+    // Holds emails until their next attempt is due
+    private final ScheduledExecutorService retryScheduler;
+
+    // Jobs by id, and their ids in submission order so the oldest can be dropped
+    private final Map<String, EmailJob> jobs = new ConcurrentHashMap<>();
+    private final Queue<String> jobOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    // Ring buffer of recent send latencies in millis; guarded by itself
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private long latencyCount;
+
+    public EmailDispatcher(EmailService emailService,
+                           EmailJournal journal,
+                           EmailSendGuard sendGuard,
+                           @Value("${email.async.enabled:true}") boolean enabled,
+                           @Value("${email.async.core-pool-size:2}") int corePoolSize,
+                           @Value("${email.async.max-pool-size:5}") int maxPoolSize,
+                           @Value("${email.async.queue-capacity:100}") int queueCapacity,
+                           @Value("${email.async.job-retention:10000}") int jobRetention,
+                           @Value("${email.async.min-retry-after:1s}") Duration minRetryAfter,
+                           @Value("${email.queue.max-pending:100000}") int maxPending,
+                           @Value("${email.queue.max-attempts:8}") int maxAttempts,
+                           @Value("${email.queue.initial-backoff:5s}") Duration initialBackoff,
+                           @Value("${email.queue.max-backoff:10m}") Duration maxBackoff) {
+        this.emailService = emailService;
+        this.journal = journal;
+        this.sendGuard = sendGuard;
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.jobRetention = jobRetention;
+        this.minRetryAfter = minRetryAfter;
+        this.maxPending = maxPending;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        // Threads above the core size are only started once the queue is full, as with ThreadPoolTaskExecutor
+        this.executor = new ThreadPoolExecutor(corePoolSize, Math.max(corePoolSize, maxPoolSize),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("EmailAsync-"), new ThreadPoolExecutor.AbortPolicy());
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("EmailRetry-"));
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.retryScheduler = scheduler;
+    }
+
+    // Emails still pending in the journal from the last run are sent again, at their next attempt time
+    @PostConstruct
+    public void recover() {
+        if (!enabled) {
+            return;
+        }
+        List<EmailJournal.Entry> pending = journal.getPending();
+        for (EmailJournal.Entry entry : pending) {
+            EmailJob job = EmailJob.builder()
+                    .jobId(entry.jobId())
+                    .to(entry.request().getTo())
+                    .templateName(entry.request().getTemplateName())
+                    .status(entry.attempts() > 0 ? EmailJob.Status.RETRYING : EmailJob.Status.QUEUED)
+                    .attempts(entry.attempts())
+                    .error(entry.error())
+                    .queuedAt(toLocalDateTime(entry.at()))
+                    .nextAttemptAt(entry.attempts() > 0 ? toLocalDateTime(entry.nextAttemptAt()) : null)
+                    .build();
+            remember(job);
+            schedule(job, entry.request(), entry.nextAttemptAt() - System.currentTimeMillis());
+        }
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} pending emails from the email queue", pending.size());
+        }
+    }
+
+    public EmailJob submit(EmailRequest request) {
+        return submit(request, null);
+    }
+
+    // Queue an email and return its job once it is safely in the journal, or a SUPPRESSED job when the
+    // idempotency key was seen before or the recipient is over the rate limit. Throws
+    // EmailQueueFullException when the dispatcher is saturated. With email.async.enabled=false
+    // the email is sent on the caller's thread before returning, without the journal.
+    public EmailJob submit(EmailRequest request, String idempotencyKey) {
+        EmailJob job = newJob(request);
+
+        String original = idempotencyKey != null ? sendGuard.claimIdempotencyKey(idempotencyKey, job.getJobId()) : null;
+        if (original != null) {
+            job.setDuplicateOf(original);
+            log.info("Suppressed duplicate email to: {} (idempotency key of job {})", request.getTo(), original);
+            return suppress(job, "Duplicate of job " + original);
+        }
+        if (!sendGuard.tryAcquire(request.getTo(), request.getTemplateName())) {
+            log.info("Suppressed {} email to: {} - over the rate limit", request.getTemplateName(), request.getTo());
+            return suppress(job, "Rate limited: at most " + sendGuard.getMaxPerWindow() + " " + request.getTemplateName()
+                    + " emails per " + sendGuard.getWindow().toMinutes() + " minutes to this recipient");
+        }
+
+        try {
+            return accept(job, request);
+        } catch (RuntimeException e) {
+            // Not accepted - a retry of this request must be allowed through
+            if (idempotencyKey != null) {
+                sendGuard.releaseIdempotencyKey(idempotencyKey);
+            }
+            sendGuard.release(request.getTo(), request.getTemplateName());
+            throw e;
+        }
+    }
+
+    // Queue a dead-lettered email again with a fresh set of attempts
+    // The dead letter is only removed once the new job is journaled, so a full queue leaves it in
+    // place to be requeued later. Synchronized so two requests cannot requeue the same email twice.
+    public synchronized Optional<EmailJob> requeueDeadLetter(String jobId) {
+        EmailJournal.Entry dead = journal.getDeadLetter(jobId);
+        if (dead == null) {
+            return Optional.empty();
+        }
+        // Requeued by hand, so the rate limit does not apply
+        EmailJob job = accept(newJob(dead.request()), dead.request());
+        journal.removeDeadLetter(jobId);
+        log.info("Requeued dead-lettered email {} to: {} as job {}", jobId, job.getTo(), job.getJobId());
+        return Optional.of(job);
+    }
+
+    public List<EmailJournal.Entry> getDeadLetters() {
+        return journal.getDeadLetters();
+    }
+
+    public Optional<EmailJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public EmailDispatcherStats getStats() {
+        long[] recent;
+        synchronized (latencies) {
+            recent = Arrays.copyOf(latencies, (int) Math.min(latencyCount, LATENCY_SAMPLES));
+        }
+        Arrays.sort(recent);
+        return EmailDispatcherStats.builder()
+                .poolSize(executor.getPoolSize())
+                .queueCapacity(queueCapacity)
+                .queueDepth(executor.getQueue().size())
+                .inFlight(inFlight.get())
+                .pending(journal.getPendingCount())
+                .deadLetters(journal.getDeadLetters().size())
+                .submitted(submitted.sum())
+                .sent(sent.sum())
+                .failed(failed.sum())
+                .retried(retried.sum())
+                .rejected(rejected.sum())
+                .suppressedDuplicates(sendGuard.getDuplicates())
+                .suppressedRateLimited(sendGuard.getRateLimited())
+                .latencySamples(recent.length)
+                .latencyP50Millis(percentile(recent, 50))
+                .latencyP95Millis(percentile(recent, 95))
+                .latencyP99Millis(percentile(recent, 99))
+                .latencyMaxMillis(recent.length > 0 ? recent[recent.length - 1] : 0)
+                .build();
+    }
+
+    // Let queued emails go out before the context closes. Anything left stays in the journal.
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        retryScheduler.shutdownNow();
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Email dispatcher stopped with {} emails still queued - they are sent after the restart",
+                    executor.shutdownNow().size());
+        }
+    }
+
+    private EmailJob accept(EmailJob job, EmailRequest request) {
+        if (!enabled) {
+            remember(job);
+            submitted.increment();
+            sendInline(job, request);
+            return job;
+        }
+
+        if (executor.getQueue().remainingCapacity() == 0 || journal.getPendingCount() >= maxPending) {
+            rejected.increment();
+            Duration retryAfter = estimateRetryAfter();
+            log.warn("Email queue full ({} queued, {} pending) - refusing email to: {}, retry after {}s",
+                    executor.getQueue().size(), journal.getPendingCount(), request.getTo(), retryAfter.toSeconds());
+            throw new EmailQueueFullException("Email queue is full, please retry later", retryAfter);
+        }
+
+        journal.enqueued(job.getJobId(), request, System.currentTimeMillis());
+        remember(job);
+        submitted.increment();
+        dispatch(job, request);
+        return job;
+    }
+
+    private EmailJob suppress(EmailJob job, String reason) {
+        job.setStatus(EmailJob.Status.SUPPRESSED);
+        job.setError(reason);
+        job.setFinishedAt(job.getQueuedAt());
+        remember(job);
+        return job;
+    }
+
+    private static EmailJob newJob(EmailRequest request) {
+        return EmailJob.builder()
+                .jobId(UUID.randomUUID().toString())
+                .to(request.getTo())
+                .templateName(request.getTemplateName())
+                .status(EmailJob.Status.QUEUED)
+                .queuedAt(LocalDateTime.now())
+                .build();
+    }
+
+    // Hand the email to the pool; if its queue filled up in the meantime, try again shortly
+    private void dispatch(EmailJob job, EmailRequest request) {
+        try {
+            executor.execute(() -> send(job, request));
+        } catch (RejectedExecutionException e) {
+            if (!executor.isShutdown()) {
+                schedule(job, request, REQUEUE_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void schedule(EmailJob job, EmailRequest request, long delayMillis) {
+        try {
+            retryScheduler.schedule(() -> dispatch(job, request), Math.max(0, delayMillis), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down - the email is still pending in the journal
+        }
+    }
+
+    private void send(EmailJob job, EmailRequest request) {
+        inFlight.incrementAndGet();
+        job.setStartedAt(LocalDateTime.now());
+        job.setStatus(EmailJob.Status.SENDING);
+        long started = System.nanoTime();
+        try {
+            emailService.sendHtmlEmailSync(request);
+            journal.sent(job.getJobId());
+            job.setError(null);
+            job.setStatus(EmailJob.Status.SENT);
+            sent.increment();
+        } catch (Exception e) {
+            onFailure(job, request, e);
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+            recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            inFlight.decrementAndGet();
+        }
+    }
+
+    // SMTP trouble (MailException) is retried; a message that cannot be built or rendered never will be
+    private void onFailure(EmailJob job, EmailRequest request, Exception e) {
+        int attempts = job.getAttempts() + 1;
+        job.setAttempts(attempts);
+        job.setError(e.getMessage());
+
+        boolean permanent = !(e instanceof MailException);
+        if (permanent || attempts >= maxAttempts) {
+            journal.dead(job.getJobId(), attempts, e.getMessage());
+            job.setNextAttemptAt(null);
+            job.setStatus(EmailJob.Status.FAILED);
+            failed.increment();
+            log.error("Email job {} to: {} dead-lettered after {} attempts - {}",
+                    job.getJobId(), request.getTo(), attempts, e.getMessage());
+            return;
+        }
+
+        Duration delay = backoff(attempts);
+        long nextAttemptAt = System.currentTimeMillis() + delay.toMillis();
+        journal.retry(job.getJobId(), attempts, nextAttemptAt, e.getMessage());
+        job.setNextAttemptAt(toLocalDateTime(nextAttemptAt));
+        job.setStatus(EmailJob.Status.RETRYING);
+        retried.increment();
+        log.warn("Email job {} to: {} failed (attempt {}), retrying in {}s - {}",
+                job.getJobId(), request.getTo(), attempts, delay.toSeconds(), e.getMessage());
+        schedule(job, request, delay.toMillis());
+    }
+
+    private void sendInline(EmailJob job, EmailRequest request) {
+        job.setStartedAt(LocalDateTime.now());
+        try {
+            emailService.sendHtmlEmailSync(request);
+            job.setStatus(EmailJob.Status.SENT);
+            sent.increment();
+        } catch (Exception e) {
+            job.setError(e.getMessage());
+            job.setStatus(EmailJob.Status.FAILED);
+            failed.increment();
+            log.error("Email job {} to: {} failed - {}", job.getJobId(), request.getTo(), e.getMessage());
+        } finally {
+            job.setFinishedAt(LocalDateTime.now());
+        }
+    }
+
+    // initialBackoff, doubled for every further attempt, capped at maxBackoff
+    Duration backoff(int attempts) {
+        int doublings = Math.min(attempts - 1, 20);
+        Duration delay = initialBackoff.multipliedBy(1L << doublings);
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private void remember(EmailJob job) {
+        jobs.put(job.getJobId(), job);
+        jobOrder.add(job.getJobId());
+        while (jobs.size() > jobRetention) {
+            String oldest = jobOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            jobs.remove(oldest);
+        }
+    }
+
+    private void recordLatency(long millis) {
+        synchronized (latencies) {
+            latencies[(int) (latencyCount % LATENCY_SAMPLES)] = millis;
+            latencyCount++;
+        }
+    }
+
+    // Roughly how long the current queue takes to drain at the median send time, never below the minimum
+    private Duration estimateRetryAfter() {
+        long median = getStats().getLatencyP50Millis();
+        int threads = Math.max(1, executor.getMaximumPoolSize());
+        Duration drain = Duration.ofMillis(executor.getQueue().size() * median / threads);
+        Duration retryAfter = drain.compareTo(minRetryAfter) > 0 ? drain : minRetryAfter;
+        // Retry-After is in whole seconds
+        return Duration.ofSeconds(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
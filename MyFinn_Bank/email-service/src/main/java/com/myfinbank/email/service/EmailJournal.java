@@ -0,0 +1,271 @@
+package com.myfinbank.email.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.email.dto.EmailRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Append-only journal of queued emails, so an accepted email survives SMTP outages and restarts.
+// Every state change is one JSON line in queue.jsonl; replaying the file gives the emails still
+// pending. Emails that ran out of attempts move to dead-letters.jsonl. Once enough lines are
+// obsolete the journal is rewritten with only the pending emails.
+@Component
+@Slf4j
+public class EmailJournal {
+
+    static final String JOURNAL_FILE = "queue.jsonl";
+    static final String DEAD_LETTER_FILE = "dead-letters.jsonl";
+
+    private final ObjectMapper objectMapper;
+    private final Path journalPath;
+    private final Path deadLetterPath;
+    private final boolean fsync;
+    private final int compactAfter;
+
+    // Current state, rebuilt from the files at startup; everything is guarded by this
+    private final Map<String, Entry> pending = new LinkedHashMap<>();
+    private final Map<String, Entry> deadLetters = new LinkedHashMap<>();
+    private FileChannel journal;
+    private int obsoleteLines;
+
+    public EmailJournal(ObjectMapper objectMapper,
+                        @Value("${email.queue.directory:data/email-queue}") Path directory,
+                        @Value("${email.queue.fsync:true}") boolean fsync,
+                        @Value("${email.queue.compact-after:10000}") int compactAfter) {
+        this.objectMapper = objectMapper;
+        this.journalPath = directory.resolve(JOURNAL_FILE);
+        this.deadLetterPath = directory.resolve(DEAD_LETTER_FILE);
+        this.fsync = fsync;
+        this.compactAfter = compactAfter;
+        try {
+            Files.createDirectories(directory);
+            replay();
+            journal = openForAppend(journalPath);
+            terminateLastLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open email queue in " + directory.toAbsolutePath(), e);
+        }
+        log.info("Email queue opened in {}: {} pending, {} dead letters",
+                directory.toAbsolutePath(), pending.size(), deadLetters.size());
+    }
+
+    // Written (and by default synced to disk) before the caller is told the email was accepted
+    public synchronized void enqueued(String jobId, EmailRequest request, long nextAttemptAt) {
+        Entry entry = new Entry(Type.ENQUEUED, jobId, request, 0, nextAttemptAt, null, System.currentTimeMillis());
+        append(entry);
+        pending.put(jobId, entry);
+    }
+
+    public synchronized void retry(String jobId, int attempts, long nextAttemptAt, String error) {
+        Entry current = pending.get(jobId);
+        if (current == null) {
+            return;
+        }
+        append(new Entry(Type.RETRY, jobId, null, attempts, nextAttemptAt, error, System.currentTimeMillis()));
+        pending.put(jobId, current.withAttempt(attempts, nextAttemptAt, error));
+        obsoleteLines++;
+        compactIfDue();
+    }
+
+    public synchronized void sent(String jobId) {
+        if (pending.remove(jobId) == null) {
+            return;
+        }
+        append(new Entry(Type.SENT, jobId, null, 0, 0, null, System.currentTimeMillis()));
+        obsoleteLines += 2;
+        compactIfDue();
+    }
+
+    // Out of attempts - kept in the dead-letter file until it is requeued by hand
+    public synchronized void dead(String jobId, int attempts, String error) {
+        Entry current = pending.remove(jobId);
+        if (current == null) {
+            return;
+        }
+        Entry dead = current.withAttempt(attempts, 0, error);
+        deadLetters.put(jobId, dead);
+        appendLine(deadLetterPath, dead);
+        append(new Entry(Type.DEAD, jobId, null, attempts, 0, error, System.currentTimeMillis()));
+        obsoleteLines += 2;
+        compactIfDue();
+    }
+
+    public synchronized Entry getDeadLetter(String jobId) {
+        return deadLetters.get(jobId);
+    }
+
+    // Take an email off the dead-letter list, e.g. once it was queued again
+    public synchronized Entry removeDeadLetter(String jobId) {
+        Entry removed = deadLetters.remove(jobId);
+        if (removed != null) {
+            rewrite(deadLetterPath, deadLetters.values());
+        }
+        return removed;
+    }
+
+    public synchronized List<Entry> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    public synchronized List<Entry> getDeadLetters() {
+        return new ArrayList<>(deadLetters.values());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (journal != null && journal.isOpen()) {
+            journal.close();
+        }
+    }
+
+    private void replay() throws IOException {
+        readLines(journalPath, entry -> {
+            switch (entry.type()) {
+                case ENQUEUED -> pending.put(entry.jobId(), entry);
+                case RETRY -> pending.computeIfPresent(entry.jobId(),
+                        (id, current) -> current.withAttempt(entry.attempts(), entry.nextAttemptAt(), entry.error()));
+                case SENT, DEAD -> pending.remove(entry.jobId());
+            }
+        });
+        readLines(deadLetterPath, entry -> deadLetters.put(entry.jobId(), entry));
+    }
+
+    private void readLines(Path path, Consumer<Entry> consumer) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    consumer.accept(objectMapper.readValue(line, Entry.class));
+                } catch (IOException e) {
+                    // Most likely the last line, cut short by a crash while it was written
+                    log.warn("Skipping unreadable line {} of {}: {}", number, path, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // A line cut short by a crash must not swallow the next one appended after it
+    private void terminateLastLine() throws IOException {
+        long size = journal.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel reader = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            reader.read(last, size - 1);
+        }
+        if (last.get(0) != '\n') {
+            journal.write(ByteBuffer.wrap(new byte[]{'\n'}));
+        }
+    }
+
+    private void append(Entry entry) {
+        try {
+            journal.write(ByteBuffer.wrap(toLine(entry)));
+            if (fsync) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to email queue " + journalPath, e);
+        }
+    }
+
+    private void appendLine(Path path, Entry entry) {
+        try (FileChannel channel = openForAppend(path)) {
+            channel.write(ByteBuffer.wrap(toLine(entry)));
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write to " + path, e);
+        }
+    }
+
+    // Rewrite the journal with just the pending emails once most of it is history
+    private void compactIfDue() {
+        if (obsoleteLines < compactAfter || obsoleteLines < pending.size()) {
+            return;
+        }
+        try {
+            journal.close();
+            rewrite(journalPath, pending.values());
+            journal = openForAppend(journalPath);
+            log.debug("Compacted email queue journal to {} pending emails", pending.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compact email queue " + journalPath, e);
+        }
+        obsoleteLines = 0;
+    }
+
+    // Write to a temporary file and move it over the old one, so a crash leaves one or the other intact
+    private void rewrite(Path path, Collection<Entry> entries) {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Entry entry : entries) {
+                    channel.write(ByteBuffer.wrap(toLine(entry)));
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot rewrite " + path, e);
+        }
+    }
+
+    private byte[] toLine(Entry entry) throws IOException {
+        return (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static FileChannel openForAppend(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public enum Type {
+        ENQUEUED, RETRY, SENT, DEAD
+    }
+
+    // One journal line. A pending email is its ENQUEUED entry with the attempts, next attempt
+    // (epoch millis) and last error of its latest RETRY applied.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry(Type type, String jobId, EmailRequest request, int attempts,
+                        long nextAttemptAt, String error, long at) {
+
+        Entry withAttempt(int attempts, long nextAttemptAt, String error) {
+            return new Entry(type, jobId, request, attempts, nextAttemptAt, error, at);
+        }
+    }
+}
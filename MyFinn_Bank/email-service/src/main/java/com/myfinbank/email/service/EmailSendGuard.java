@@ -0,0 +1,169 @@
+package com.myfinbank.email.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Keeps repeated emails from reaching SMTP: a sliding-window limit per recipient and template
+// (so toggling an account or a storm of balance alerts sends a few emails, not one per event),
+// applied only to the listed templates so every loan decision still gets its email,
+// and a bounded, expiring cache of idempotency keys so a retried request is recognised as the
+// email already accepted.
+@Component
+@Slf4j
+public class EmailSendGuard {
+
+    private final boolean rateLimitEnabled;
+    private final int maxPerWindow;
+    private final long windowMillis;
+    private final Set<String> rateLimitedTemplates;
+    private final int maxTrackedRecipients;
+    private final int idempotencyMaxSize;
+    private final long idempotencyTtlMillis;
+
+    // Send times within the window per recipient|template, oldest first; each deque is guarded by itself
+    private final Map<String, Deque<Long>> sendTimes = new ConcurrentHashMap<>();
+
+    // Idempotency key -> job it was first accepted as, in insertion order so expired keys sit at the head;
+    // guarded by itself
+    private final LinkedHashMap<String, ClaimedKey> idempotencyKeys = new LinkedHashMap<>();
+
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+
+    public EmailSendGuard(@Value("${email.rate-limit.enabled:true}") boolean rateLimitEnabled,
+                          @Value("${email.rate-limit.max-per-window:3}") int maxPerWindow,
+                          @Value("${email.rate-limit.window:1h}") Duration window,
+                          @Value("${email.rate-limit.templates:account-deactivated,zero-balance-alert}") Set<String> rateLimitedTemplates,
+                          @Value("${email.rate-limit.max-tracked-recipients:100000}") int maxTrackedRecipients,
+                          @Value("${email.idempotency.max-size:100000}") int idempotencyMaxSize,
+                          @Value("${email.idempotency.ttl:24h}") Duration idempotencyTtl) {
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.maxPerWindow = maxPerWindow;
+        this.windowMillis = window.toMillis();
+        this.rateLimitedTemplates = Set.copyOf(rateLimitedTemplates);
+        this.maxTrackedRecipients = maxTrackedRecipients;
+        this.idempotencyMaxSize = idempotencyMaxSize;
+        this.idempotencyTtlMillis = idempotencyTtl.toMillis();
+    }
+
+    // Record the key for this job. Returns the job the key was already claimed by, or null if it is new.
+    public String claimIdempotencyKey(String idempotencyKey, String jobId) {
+        long now = System.currentTimeMillis();
+        synchronized (idempotencyKeys) {
+            expireIdempotencyKeys(now);
+            ClaimedKey existing = idempotencyKeys.get(idempotencyKey);
+            if (existing != null) {
+                duplicates.increment();
+                return existing.jobId();
+            }
+            idempotencyKeys.put(idempotencyKey, new ClaimedKey(jobId, now + idempotencyTtlMillis));
+            while (idempotencyKeys.size() > idempotencyMaxSize) {
+                Iterator<ClaimedKey> oldest = idempotencyKeys.values().iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            return null;
+        }
+    }
+
+    // For an email that was not accepted after all, so the caller can retry with the same key
+    public void releaseIdempotencyKey(String idempotencyKey) {
+        synchronized (idempotencyKeys) {
+            idempotencyKeys.remove(idempotencyKey);
+        }
+    }
+
+    // Take one send from the recipient's allowance for this template; false when it is used up
+    public boolean tryAcquire(String recipient, String templateName) {
+        if (!isRateLimited(templateName)) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (sendTimes.size() > maxTrackedRecipients) {
+            evictIdleRecipients(now);
+        }
+        Deque<Long> times = sendTimes.computeIfAbsent(rateKey(recipient, templateName), k -> new ArrayDeque<>());
+        synchronized (times) {
+            while (!times.isEmpty() && times.peekFirst() <= now - windowMillis) {
+                times.pollFirst();
+            }
+            if (times.size() >= maxPerWindow) {
+                rateLimited.increment();
+                return false;
+            }
+            times.addLast(now);
+            return true;
+        }
+    }
+
+    // Give back a send taken by tryAcquire for an email that was refused further on
+    public void release(String recipient, String templateName) {
+        if (!isRateLimited(templateName)) {
+            return;
+        }
+        Deque<Long> times = sendTimes.get(rateKey(recipient, templateName));
+        if (times != null) {
+            synchronized (times) {
+                times.pollLast();
+            }
+        }
+    }
+
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    public int getMaxPerWindow() {
+        return maxPerWindow;
+    }
+
+    public Duration getWindow() {
+        return Duration.ofMillis(windowMillis);
+    }
+
+    private boolean isRateLimited(String templateName) {
+        return rateLimitEnabled && rateLimitedTemplates.contains(templateName);
+    }
+
+    private void expireIdempotencyKeys(long now) {
+        Iterator<ClaimedKey> oldest = idempotencyKeys.values().iterator();
+        while (oldest.hasNext() && oldest.next().expiresAt() <= now) {
+            oldest.remove();
+        }
+    }
+
+    // Drop recipients with nothing left in their window. A send racing with the removal may go
+    // uncounted, which only ever lets one extra email through.
+    private void evictIdleRecipients(long now) {
+        sendTimes.entrySet().removeIf(entry -> {
+            Deque<Long> times = entry.getValue();
+            synchronized (times) {
+                return times.isEmpty() || times.peekLast() <= now - windowMillis;
+            }
+        });
+        log.debug("Email rate limiter now tracks {} recipient/template pairs", sendTimes.size());
+    }
+
+    private static String rateKey(String recipient, String templateName) {
+        return (recipient != null ? recipient.trim().toLowerCase(Locale.ROOT) : "") + "|" + templateName;
+    }
+
+    private record ClaimedKey(String jobId, long expiresAt) {
+    }
+}
@@ -1,74 +1,159 @@
 package com.myfinbank.email.service;
 
 import com.myfinbank.email.dto.EmailRequest;
+import com.myfinbank.email.dto.EmailSendResult;
 import com.myfinbank.email.exception.EmailSendingException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import java.util.concurrent.CompletableFuture;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
+    // Largest batch accepted in one request
+    public static final int MAX_BATCH_SIZE = 500;
+    
     private final JavaMailSender mailSender;
     private final TemplateService templateService;
+    private final Validator validator;
     
     @Value("${spring.mail.username}")
     private String fromEmail;
     
-    @Async("emailTaskExecutor")
-    public CompletableFuture<Void> sendHtmlEmail(EmailRequest request) {
+    // Messages sent over one SMTP session by the batch endpoint
+    @Value("${email.batch.chunk-size:50}")
+    private int batchChunkSize = 50;
+    
+    // Background sends go through EmailDispatcher, which calls this on its own threads
+    public void sendHtmlEmailSync(EmailRequest request) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            String htmlContent = templateService.processTemplate(request.getTemplateName(), request.getVariables());
-            
-            helper.setFrom(request.getFrom() != null ? request.getFrom() : fromEmail);
-            helper.setTo(request.getTo());
-            helper.setSubject(request.getSubject());
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
+            mailSender.send(buildMessage(request));
             log.info("Email sent successfully to: {}", request.getTo());
             
-            return CompletableFuture.completedFuture(null);
-            
         } catch (MessagingException e) {
             log.error("Failed to send email to: {}", request.getTo(), e);
             throw new EmailSendingException("Failed to send email: " + e.getMessage(), e);
         }
     }
     
-    public void sendHtmlEmailSync(EmailRequest request) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            String htmlContent = templateService.processTemplate(request.getTemplateName(), request.getVariables());
+    // Send many emails over as few SMTP sessions as possible - each chunk of messages shares one
+    // connection and login instead of opening a session per email. Every request gets its own
+    // result, and one bad message does not stop the rest of the batch.
+    public List<EmailSendResult> sendBatch(List<EmailRequest> requests) {
+        List<EmailSendResult> results = new ArrayList<>(requests.size());
+        List<MimeMessage> messages = new ArrayList<>(requests.size());
+        Map<MimeMessage, EmailSendResult> resultByMessage = new IdentityHashMap<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            EmailRequest request = requests.get(i);
+            EmailSendResult result = EmailSendResult.builder()
+                    .index(i)
+                    .to(request != null ? request.getTo() : null)
+                    .build();
+            results.add(result);
             
-            helper.setFrom(request.getFrom() != null ? request.getFrom() : fromEmail);
-            helper.setTo(request.getTo());
-            helper.setSubject(request.getSubject());
-            helper.setText(htmlContent, true);
-            
-            mailSender.send(message);
-            log.info("Email sent successfully to: {}", request.getTo());
-            
-        } catch (MessagingException e) {
-            log.error("Failed to send email to: {}", request.getTo(), e);
-            throw new EmailSendingException("Failed to send email: " + e.getMessage(), e);
+            String invalid = validate(request);
+            if (invalid != null) {
+                result.setStatus(EmailSendResult.Status.INVALID);
+                result.setError(invalid);
+                continue;
+            }
+            try {
+                MimeMessage message = buildMessage(request);
+                messages.add(message);
+                resultByMessage.put(message, result);
+            } catch (Exception e) {
+                result.setStatus(EmailSendResult.Status.FAILED);
+                result.setError("Failed to build email: " + e.getMessage());
+            }
+        }
+        
+        for (int from = 0; from < messages.size(); from += batchChunkSize) {
+            sendChunk(messages.subList(from, Math.min(messages.size(), from + batchChunkSize)), resultByMessage);
+        }
+        
+        long sent = results.stream().filter(r -> r.getStatus() == EmailSendResult.Status.SENT).count();
+        log.info("Batch of {} emails: {} sent, {} not sent", results.size(), sent, results.size() - sent);
+        return results;
+    }
+    
+    // One SMTP session for the whole chunk. JavaMailSender reports the messages that failed, keyed
+    // by the message itself; if the session could not be opened at all every message failed.
+    private void sendChunk(List<MimeMessage> chunk, Map<MimeMessage, EmailSendResult> resultByMessage) {
+        Map<Object, Exception> failures = Map.of();
+        Exception chunkFailure = null;
+        try {
+            mailSender.send(chunk.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+            if (failures.isEmpty()) {
+                chunkFailure = e;
+            }
+        } catch (MailException e) {
+            chunkFailure = e;
+        }
+        
+        for (MimeMessage message : chunk) {
+            EmailSendResult result = resultByMessage.get(message);
+            Exception failure = chunkFailure != null ? chunkFailure : failures.get(message);
+            if (failure == null) {
+                result.setStatus(EmailSendResult.Status.SENT);
+            } else {
+                result.setStatus(EmailSendResult.Status.FAILED);
+                result.setError(failure.getMessage());
+                log.warn("Failed to send batch email to: {} - {}", result.getTo(), failure.getMessage());
+            }
+        }
+    }
+    
+    private MimeMessage buildMessage(EmailRequest request) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        
+        String htmlContent = templateService.processTemplate(request.getTemplateName(), request.getVariables());
+        
+        helper.setFrom(request.getFrom() != null ? request.getFrom() : fromEmail);
+        helper.setTo(request.getTo());
+        helper.setSubject(request.getSubject());
+        helper.setText(htmlContent, true);
+        return message;
+    }
+    
+    // Bean validation of one batch entry - null when it is valid
+    private String validate(EmailRequest request) {
+        if (request == null) {
+            return "Email request is empty";
+        }
+        if (validator == null) {
+            return null;
+        }
+        Set<ConstraintViolation<EmailRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
         }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
     }
     
     public String maskAccountNumber(String accountNumber) {
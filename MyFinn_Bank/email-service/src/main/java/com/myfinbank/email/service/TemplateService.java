@@ -1,21 +1,280 @@
 package com.myfinbank.email.service;
 
-import lombok.RequiredArgsConstructor;
+import com.myfinbank.email.config.MailConfig;
+import com.myfinbank.email.dto.TemplateRenderStats;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.unbescape.html.HtmlEscape;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+// Renders email templates. Parsed templates are cached by Thymeleaf (see MailConfig) and all of
+// them are parsed at startup. On top of that, a template whose variables are only ever printed
+// with th:text="${name}" is rendered once per set of variable names into a layout - the static
+// HTML with a slot for each variable - so later emails only escape and splice in their values.
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class TemplateService {
-    
+
+    // Any th:* attribute, to check how a template uses its variables
+    private static final Pattern TH_ATTRIBUTE = Pattern.compile("th:([\\w:-]+)\\s*=\\s*\"([^\"]*)\"");
+
     private final SpringTemplateEngine templateEngine;
-    
+    private final ResourceLoader resourceLoader;
+    private final boolean cacheEnabled;
+    private final int cacheMaxSize;
+    private final long cacheTtlMillis;
+
+    // Access-ordered so the eldest entry is the least recently used; guarded by itself
+    private final LinkedHashMap<LayoutKey, Layout> layouts;
+    private final Map<String, RenderCounters> renderCounters = new ConcurrentHashMap<>();
+
+    public TemplateService(SpringTemplateEngine templateEngine,
+                           ResourceLoader resourceLoader,
+                           @Value("${email.template.cache.enabled:true}") boolean cacheEnabled,
+                           @Value("${email.template.cache.max-size:100}") int cacheMaxSize,
+                           @Value("${email.template.cache.ttl:1h}") Duration cacheTtl) {
+        this.templateEngine = templateEngine;
+        this.resourceLoader = resourceLoader;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheMaxSize = cacheMaxSize;
+        this.cacheTtlMillis = cacheTtl.toMillis();
+        this.layouts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<LayoutKey, Layout> eldest) {
+                return size() > TemplateService.this.cacheMaxSize;
+            }
+        };
+    }
+
+    // Parse every template up front so the first email of each kind does not pay for it,
+    // and a broken template shows up in the startup log rather than on a customer's email
+    @PostConstruct
+    public void precompileTemplates() {
+        long started = System.currentTimeMillis();
+        int compiled = 0;
+        for (String templateName : findTemplateNames()) {
+            try {
+                templateEngine.process(templateName, new Context());
+                compiled++;
+            } catch (Exception e) {
+                log.warn("Failed to precompile email template {}: {}", templateName, e.getMessage());
+            }
+        }
+        log.info("Precompiled {} email templates in {} ms", compiled, System.currentTimeMillis() - started);
+    }
+
     public String processTemplate(String templateName, Map<String, Object> variables) {
+        long started = System.nanoTime();
+        boolean fromLayout = false;
+        try {
+            Layout layout = cacheEnabled ? layoutFor(templateName, variables) : null;
+            if (layout != null && layout.isSplit()) {
+                fromLayout = true;
+                return layout.render(variables);
+            }
+            return renderFull(templateName, variables);
+        } finally {
+            renderCounters.computeIfAbsent(templateName, k -> new RenderCounters())
+                    .record(System.nanoTime() - started, fromLayout);
+        }
+    }
+
+    // Render count and timings per template since startup
+    public List<TemplateRenderStats> getRenderStats() {
+        List<TemplateRenderStats> stats = new ArrayList<>();
+        new TreeMap<>(renderCounters).forEach((name, counters) -> stats.add(counters.snapshot(name)));
+        return stats;
+    }
+
+    // Drop every cached layout, e.g. after templates were changed on disk
+    public void clearCache() {
+        synchronized (layouts) {
+            layouts.clear();
+        }
+        templateEngine.clearTemplateCache();
+    }
+
+    private String renderFull(String templateName, Map<String, Object> variables) {
         Context context = new Context();
         context.setVariables(variables);
         return templateEngine.process(templateName, context);
     }
+
+    // Layouts are keyed by day as well, so templates that print today's date stay correct
+    private Layout layoutFor(String templateName, Map<String, Object> variables) {
+        if (variables == null || variables.isEmpty()) {
+            return null;
+        }
+        LayoutKey key = new LayoutKey(templateName, List.copyOf(new TreeSet<>(variables.keySet())), LocalDate.now());
+        long now = System.currentTimeMillis();
+        synchronized (layouts) {
+            Layout cached = layouts.get(key);
+            if (cached != null && now - cached.builtAtMillis < cacheTtlMillis) {
+                return cached;
+            }
+        }
+        Layout built = buildLayout(templateName, key.variableNames(), now);
+        synchronized (layouts) {
+            layouts.put(key, built);
+        }
+        return built;
+    }
+
+    // Render once with a unique marker in place of each variable, then cut the output at the markers
+    private Layout buildLayout(String templateName, List<String> variableNames, long now) {
+        if (!usesVariablesOnlyAsText(templateName, variableNames)) {
+            log.debug("Email template {} uses its variables beyond th:text - rendering in full", templateName);
+            return Layout.notSplittable(now);
+        }
+        String nonce = "mfbslot" + UUID.randomUUID().toString().replace("-", "");
+        Context context = new Context();
+        for (int i = 0; i < variableNames.size(); i++) {
+            context.setVariable(variableNames.get(i), nonce + "_" + i + "_");
+        }
+        String rendered = templateEngine.process(templateName, context);
+
+        List<String> segments = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        int at = 0;
+        int marker;
+        while ((marker = rendered.indexOf(nonce + "_", at)) >= 0) {
+            int indexStart = marker + nonce.length() + 1;
+            int indexEnd = rendered.indexOf('_', indexStart);
+            segments.add(rendered.substring(at, marker));
+            slots.add(variableNames.get(Integer.parseInt(rendered.substring(indexStart, indexEnd))));
+            at = indexEnd + 1;
+        }
+        segments.add(rendered.substring(at));
+
+        // A marker that was changed on the way (e.g. upper-cased) means the values are not printed as-is
+        for (String segment : segments) {
+            if (segment.toLowerCase(Locale.ROOT).contains(nonce)) {
+                return Layout.notSplittable(now);
+            }
+        }
+        return new Layout(segments.toArray(new String[0]), slots.toArray(new String[0]), now);
+    }
+
+    // True when every th:* attribute that mentions one of the variables is exactly th:text="${name}"
+    private boolean usesVariablesOnlyAsText(String templateName, List<String> variableNames) {
+        String source;
+        try {
+            Resource resource = resourceLoader.getResource(MailConfig.TEMPLATE_PREFIX + templateName + MailConfig.TEMPLATE_SUFFIX);
+            source = StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return false;
+        }
+        if (source.contains("[[") || source.contains("[(")) {
+            return false; // Inlined expressions are not checked
+        }
+        Matcher matcher = TH_ATTRIBUTE.matcher(source);
+        while (matcher.find()) {
+            String attribute = matcher.group(1);
+            String expression = matcher.group(2).trim();
+            for (String name : variableNames) {
+                if (Pattern.compile("\\b" + Pattern.quote(name) + "\\b").matcher(expression).find()
+                        && !(attribute.equals("text") && expression.equals("${" + name + "}"))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private List<String> findTemplateNames() {
+        List<String> names = new ArrayList<>();
+        try {
+            for (Resource resource : ResourcePatternUtils.getResourcePatternResolver(resourceLoader)
+                    .getResources(MailConfig.TEMPLATE_PREFIX + "*" + MailConfig.TEMPLATE_SUFFIX)) {
+                String filename = resource.getFilename();
+                if (filename != null) {
+                    names.add(filename.substring(0, filename.length() - MailConfig.TEMPLATE_SUFFIX.length()));
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list email templates: {}", e.getMessage());
+        }
+        return names;
+    }
+
+    private record LayoutKey(String templateName, List<String> variableNames, LocalDate day) {
+    }
+
+    // Static HTML around the variable slots: segments[0] slot[0] segments[1] ... segments[n].
+    // A layout without segments records that the template has to be rendered in full.
+    private record Layout(String[] segments, String[] slots, long builtAtMillis) {
+
+        static Layout notSplittable(long builtAtMillis) {
+            return new Layout(new String[0], new String[0], builtAtMillis);
+        }
+
+        boolean isSplit() {
+            return segments.length > 0;
+        }
+
+        String render(Map<String, Object> variables) {
+            StringBuilder html = new StringBuilder(segments.length * 256);
+            for (int i = 0; i < slots.length; i++) {
+                html.append(segments[i]);
+                Object value = variables.get(slots[i]);
+                // Same escaping Thymeleaf applies to th:text in HTML mode
+                html.append(value != null ? HtmlEscape.escapeHtml4Xml(String.valueOf(value)) : "");
+            }
+            return html.append(segments[slots.length]).toString();
+        }
+    }
+
+    private static final class RenderCounters {
+        private final LongAdder renders = new LongAdder();
+        private final LongAdder layoutRenders = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos, boolean fromLayout) {
+            renders.increment();
+            if (fromLayout) {
+                layoutRenders.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        TemplateRenderStats snapshot(String templateName) {
+            long count = renders.sum();
+            long layoutCount = layoutRenders.sum();
+            return TemplateRenderStats.builder()
+                    .templateName(templateName)
+                    .renders(count)
+                    .layoutRenders(layoutCount)
+                    .fullRenders(count - layoutCount)
+                    .averageMicros(count > 0 ? totalNanos.sum() / count / 1000 : 0)
+                    .maxMicros(maxNanos.get() / 1000)
+                    .build();
+        }
+    }
 }
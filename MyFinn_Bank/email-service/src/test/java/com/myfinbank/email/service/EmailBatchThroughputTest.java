@@ -0,0 +1,177 @@
+package com.myfinbank.email.service;
+
+import com.myfinbank.email.dto.EmailRequest;
+import com.myfinbank.email.dto.EmailSendResult;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Compares one SMTP session per email with the batch path against an in-process SMTP server.
+// The session count is what the batch endpoint saves; the timings are printed for comparison.
+class EmailBatchThroughputTest {
+
+    private static final int EMAILS = 200;
+    private static final int CHUNK_SIZE = 50;
+
+    private FakeSmtpServer smtpServer;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new FakeSmtpServer();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.getPort());
+
+        TemplateService templateService = mock(TemplateService.class);
+        when(templateService.processTemplate(anyString(), anyMap())).thenReturn("<p>Dear customer</p>");
+
+        emailService = new EmailService(mailSender, templateService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@myfinbank.com");
+        ReflectionTestUtils.setField(emailService, "batchChunkSize", CHUNK_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void testBatchSendReusesSmtpSessions() {
+        List<EmailRequest> requests = requests();
+
+        long singleStarted = System.nanoTime();
+        for (EmailRequest request : requests) {
+            emailService.sendHtmlEmailSync(request);
+        }
+        long singleNanos = System.nanoTime() - singleStarted;
+        int singleSessions = smtpServer.getSessions();
+        int singleMessages = smtpServer.getMessages();
+
+        long batchStarted = System.nanoTime();
+        List<EmailSendResult> results = emailService.sendBatch(requests);
+        long batchNanos = System.nanoTime() - batchStarted;
+        int batchSessions = smtpServer.getSessions() - singleSessions;
+        int batchMessages = smtpServer.getMessages() - singleMessages;
+
+        System.out.printf("One session per email: %d emails, %d sessions, %.0f emails/s%n",
+                singleMessages, singleSessions, EMAILS / (singleNanos / 1e9));
+        System.out.printf("Batch:                 %d emails, %d sessions, %.0f emails/s%n",
+                batchMessages, batchSessions, EMAILS / (batchNanos / 1e9));
+
+        assertEquals(EMAILS, singleSessions);
+        assertEquals(EMAILS / CHUNK_SIZE, batchSessions);
+        assertEquals(EMAILS, batchMessages);
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == EmailSendResult.Status.SENT));
+    }
+
+    private List<EmailRequest> requests() {
+        List<EmailRequest> requests = new ArrayList<>();
+        for (int i = 0; i < EMAILS; i++) {
+            requests.add(EmailRequest.builder()
+                    .to("customer" + i + "@gmail.com")
+                    .subject("Account Balance Alert - MyFin Bank")
+                    .templateName("zero-balance-alert")
+                    .variables(Map.of("customerName", "Customer " + i))
+                    .build());
+        }
+        return requests;
+    }
+
+    // Just enough SMTP to accept mail without authentication, one session at a time
+    private static final class FakeSmtpServer implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final AtomicInteger sessions = new AtomicInteger();
+        private final AtomicInteger messages = new AtomicInteger();
+
+        FakeSmtpServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread acceptor = new Thread(this::acceptLoop, "FakeSmtp");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getSessions() {
+            return sessions.get();
+        }
+
+        int getMessages() {
+            return messages.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    sessions.incrementAndGet();
+                    converse(socket);
+                } catch (IOException e) {
+                    // Closed by the test or by the client
+                }
+            }
+        }
+
+        private void converse(Socket socket) throws IOException {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+            reply(out, "220 localhost ESMTP");
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Discard the message body
+                        }
+                        messages.incrementAndGet();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        }
+
+        private static void reply(PrintWriter out, String line) {
+            out.print(line + "\r\n");
+            out.flush();
+        }
+    }
+}
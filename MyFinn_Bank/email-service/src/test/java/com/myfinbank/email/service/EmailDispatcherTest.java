@@ -0,0 +1,304 @@
+package com.myfinbank.email.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.email.dto.EmailDispatcherStats;
+import com.myfinbank.email.dto.EmailJob;
+import com.myfinbank.email.dto.EmailRequest;
+import com.myfinbank.email.exception.EmailQueueFullException;
+import com.myfinbank.email.exception.EmailSendingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.MailSendException;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EmailDispatcherTest {
+
+    @TempDir
+    Path queueDirectory;
+
+    private final EmailService emailService = mock(EmailService.class);
+    private EmailJournal journal;
+    private EmailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        journal = journal();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        journal.close();
+    }
+
+    @Test
+    void testFullQueueIsRefusedWithRetryAfter() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(emailService).sendHtmlEmailSync(any());
+        dispatcher = dispatcher(true, 1, 2);
+
+        EmailJob first = dispatcher.submit(request("a@gmail.com"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        dispatcher.submit(request("b@gmail.com"));
+        dispatcher.submit(request("c@gmail.com"));
+
+        EmailQueueFullException refused = assertThrows(EmailQueueFullException.class,
+                () -> dispatcher.submit(request("d@gmail.com")));
+        assertTrue(refused.getRetryAfter().toSeconds() >= 1);
+
+        EmailDispatcherStats stats = dispatcher.getStats();
+        assertEquals(1, stats.getInFlight());
+        assertEquals(2, stats.getQueueDepth());
+        assertEquals(3, stats.getSubmitted());
+        assertEquals(1, stats.getRejected());
+        assertEquals(EmailJob.Status.SENDING, dispatcher.getJob(first.getJobId()).orElseThrow().getStatus());
+
+        release.countDown();
+        dispatcher.shutdown(); // Drains the queue
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(first.getJobId()).orElseThrow().getStatus());
+        assertEquals(3, dispatcher.getStats().getLatencySamples());
+    }
+
+    @Test
+    void testSmtpFailuresAreRetriedWithBackoff() throws Exception {
+        doThrow(new MailSendException("Connection refused"))
+                .doThrow(new MailSendException("Connection refused"))
+                .doNothing()
+                .when(emailService).sendHtmlEmailSync(any());
+        dispatcher = dispatcher(true, 1, 10);
+
+        EmailJob job = dispatcher.submit(request("a@gmail.com"));
+        awaitFinished(1);
+
+        EmailJob polled = dispatcher.getJob(job.getJobId()).orElseThrow();
+        assertEquals(EmailJob.Status.SENT, polled.getStatus());
+        assertEquals(2, polled.getAttempts());
+        assertEquals(2, dispatcher.getStats().getRetried());
+        assertEquals(0, journal.getPendingCount());
+        verify(emailService, times(3)).sendHtmlEmailSync(any());
+    }
+
+    @Test
+    void testEmailOutOfAttemptsIsDeadLetteredAndCanBeRequeued() throws Exception {
+        doThrow(new MailSendException("Connection refused")).when(emailService).sendHtmlEmailSync(any());
+        dispatcher = dispatcher(true, 1, 10);
+
+        EmailJob job = dispatcher.submit(request("a@gmail.com"));
+        awaitFinished(1);
+
+        EmailJob polled = dispatcher.getJob(job.getJobId()).orElseThrow();
+        assertEquals(EmailJob.Status.FAILED, polled.getStatus());
+        assertEquals(3, polled.getAttempts());
+        assertEquals("Connection refused", polled.getError());
+        assertEquals(List.of(job.getJobId()), dispatcher.getDeadLetters().stream().map(EmailJournal.Entry::jobId).toList());
+
+        doNothing().when(emailService).sendHtmlEmailSync(any());
+        EmailJob requeued = dispatcher.requeueDeadLetter(job.getJobId()).orElseThrow();
+        awaitFinished(2);
+
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(requeued.getJobId()).orElseThrow().getStatus());
+        assertTrue(dispatcher.getDeadLetters().isEmpty());
+    }
+
+    @Test
+    void testDeadLetterIsKeptWhenRequeueIsRefused() throws Exception {
+        doThrow(new MailSendException("Connection refused")).when(emailService).sendHtmlEmailSync(any());
+        dispatcher = dispatcher(true, 1, 1);
+        EmailJob dead = dispatcher.submit(request("a@gmail.com"));
+        awaitFinished(1);
+
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(emailService).sendHtmlEmailSync(any());
+        dispatcher.submit(request("b@gmail.com"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        dispatcher.submit(request("c@gmail.com"));
+
+        assertThrows(EmailQueueFullException.class, () -> dispatcher.requeueDeadLetter(dead.getJobId()));
+        assertEquals(List.of(dead.getJobId()), dispatcher.getDeadLetters().stream().map(EmailJournal.Entry::jobId).toList());
+
+        release.countDown();
+        dispatcher.shutdown();
+        EmailJournal reopened = journal();
+        assertEquals(List.of(dead.getJobId()), reopened.getDeadLetters().stream().map(EmailJournal.Entry::jobId).toList());
+        reopened.close();
+    }
+
+    @Test
+    void testBrokenEmailIsDeadLetteredWithoutRetrying() throws Exception {
+        doThrow(new EmailSendingException("Failed to send email: bad address"))
+                .when(emailService).sendHtmlEmailSync(argThat(r -> r.getTo().startsWith("bad")));
+        dispatcher = dispatcher(true, 2, 10);
+
+        EmailJob good = dispatcher.submit(request("good@gmail.com"));
+        EmailJob bad = dispatcher.submit(request("bad@gmail.com"));
+        awaitFinished(2);
+
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(good.getJobId()).orElseThrow().getStatus());
+        EmailJob failed = dispatcher.getJob(bad.getJobId()).orElseThrow();
+        assertEquals(EmailJob.Status.FAILED, failed.getStatus());
+        assertEquals(1, failed.getAttempts());
+        assertEquals("Failed to send email: bad address", failed.getError());
+        assertEquals(1, dispatcher.getStats().getSent());
+        assertEquals(1, dispatcher.getStats().getFailed());
+        assertEquals(0, dispatcher.getStats().getRetried());
+    }
+
+    @Test
+    void testPendingEmailsAreSentAfterRestart() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            throw new MailSendException("Connection reset");
+        }).when(emailService).sendHtmlEmailSync(any());
+        dispatcher = dispatcher(true, 1, 10);
+        EmailJob first = dispatcher.submit(request("a@gmail.com"));
+        EmailJob second = dispatcher.submit(request("b@gmail.com"));
+
+        // Both attempts fail and the service stops before the retries are due
+        release.countDown();
+        dispatcher.shutdown();
+        journal.close();
+
+        doNothing().when(emailService).sendHtmlEmailSync(any());
+        journal = journal();
+        assertEquals(2, journal.getPendingCount());
+        dispatcher = dispatcher(true, 1, 10);
+        dispatcher.recover();
+        awaitFinished(2);
+
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(first.getJobId()).orElseThrow().getStatus());
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(second.getJobId()).orElseThrow().getStatus());
+        assertEquals(0, journal.getPendingCount());
+    }
+
+    @Test
+    void testRepeatedIdempotencyKeyAndRateLimitAreSuppressed() throws Exception {
+        dispatcher = new EmailDispatcher(emailService, journal, sendGuard(2), true, 1, 1, 10, 100,
+                Duration.ofSeconds(1), 100, 3, Duration.ofMillis(10), Duration.ofMillis(50));
+
+        EmailJob first = dispatcher.submit(request("a@gmail.com"), "outbox-1");
+        EmailJob retried = dispatcher.submit(request("a@gmail.com"), "outbox-1");
+        EmailJob second = dispatcher.submit(request("A@Gmail.com"), "outbox-2");
+        EmailJob third = dispatcher.submit(request("a@gmail.com"), "outbox-3");
+        EmailJob otherRecipient = dispatcher.submit(request("b@gmail.com"), "outbox-4");
+        awaitFinished(3);
+
+        assertEquals(EmailJob.Status.SUPPRESSED, retried.getStatus());
+        assertEquals(first.getJobId(), retried.getDuplicateOf());
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(second.getJobId()).orElseThrow().getStatus());
+        assertEquals(EmailJob.Status.SUPPRESSED, third.getStatus());
+        assertTrue(third.getError().startsWith("Rate limited"));
+        assertEquals(EmailJob.Status.SENT, dispatcher.getJob(otherRecipient.getJobId()).orElseThrow().getStatus());
+
+        EmailDispatcherStats stats = dispatcher.getStats();
+        assertEquals(1, stats.getSuppressedDuplicates());
+        assertEquals(1, stats.getSuppressedRateLimited());
+        verify(emailService, times(3)).sendHtmlEmailSync(any());
+    }
+
+    @Test
+    void testRefusedEmailCanBeRetriedWithTheSameKey() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(emailService).sendHtmlEmailSync(any());
+        dispatcher = dispatcher(true, 1, 1);
+        dispatcher.submit(request("a@gmail.com"));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        dispatcher.submit(request("b@gmail.com"));
+
+        assertThrows(EmailQueueFullException.class, () -> dispatcher.submit(request("c@gmail.com"), "outbox-1"));
+        release.countDown();
+        awaitFinished(2);
+
+        assertEquals(EmailJob.Status.QUEUED, dispatcher.submit(request("c@gmail.com"), "outbox-1").getStatus());
+    }
+
+    @Test
+    void testDisabledDispatcherSendsOnTheCallersThread() {
+        dispatcher = dispatcher(false, 1, 1);
+
+        EmailJob job = dispatcher.submit(request("a@gmail.com"));
+
+        assertEquals(EmailJob.Status.SENT, job.getStatus());
+        assertEquals(1, dispatcher.getStats().getSent());
+    }
+
+    @Test
+    void testOldestJobsAreDroppedPastRetention() {
+        dispatcher = new EmailDispatcher(emailService, journal, sendGuard(100), false, 1, 1, 1, 2, Duration.ofSeconds(1),
+                100, 3, Duration.ofMillis(10), Duration.ofMillis(50));
+
+        EmailJob oldest = dispatcher.submit(request("a@gmail.com"));
+        dispatcher.submit(request("b@gmail.com"));
+        EmailJob newest = dispatcher.submit(request("c@gmail.com"));
+
+        assertTrue(dispatcher.getJob(oldest.getJobId()).isEmpty());
+        assertTrue(dispatcher.getJob(newest.getJobId()).isPresent());
+    }
+
+    private EmailDispatcher dispatcher(boolean enabled, int poolSize, int queueCapacity) {
+        return new EmailDispatcher(emailService, journal, sendGuard(100), enabled, poolSize, poolSize, queueCapacity, 100,
+                Duration.ofSeconds(1), 100, 3, Duration.ofMillis(10), Duration.ofMillis(50));
+    }
+
+    private static EmailSendGuard sendGuard(int maxPerWindow) {
+        return new EmailSendGuard(true, maxPerWindow, Duration.ofHours(1), Set.of("welcome-email"), 1000, 1000, Duration.ofHours(24));
+    }
+
+    private EmailJournal journal() {
+        return new EmailJournal(new ObjectMapper(), queueDirectory, false, 10000);
+    }
+
+    // Wait until this many emails were sent or given up on
+    private void awaitFinished(long jobs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getStats().getSent() + dispatcher.getStats().getFailed() < jobs) {
+            assertTrue(System.currentTimeMillis() < deadline, "Jobs did not finish in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static EmailRequest request(String to) {
+        return EmailRequest.builder()
+                .to(to)
+                .subject("Welcome to MyFin Bank!")
+                .templateName("welcome-email")
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.myfinbank.email.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.myfinbank.email.dto.EmailRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplayRestoresPendingEmailsAndDeadLetters() throws Exception {
+        EmailJournal journal = journal(10000);
+        journal.enqueued("sent", request("a@gmail.com"), 1000);
+        journal.enqueued("retrying", request("b@gmail.com"), 1000);
+        journal.enqueued("dead", request("c@gmail.com"), 1000);
+        journal.sent("sent");
+        journal.retry("retrying", 2, 5000, "Connection refused");
+        journal.dead("dead", 8, "Connection refused");
+        journal.close();
+
+        EmailJournal reopened = journal(10000);
+
+        List<EmailJournal.Entry> pending = reopened.getPending();
+        assertEquals(1, pending.size());
+        assertEquals("retrying", pending.get(0).jobId());
+        assertEquals(2, pending.get(0).attempts());
+        assertEquals(5000, pending.get(0).nextAttemptAt());
+        assertEquals("Connection refused", pending.get(0).error());
+        assertEquals("b@gmail.com", pending.get(0).request().getTo());
+        assertEquals(Map.of("customerName", "Asha"), pending.get(0).request().getVariables());
+
+        List<EmailJournal.Entry> deadLetters = reopened.getDeadLetters();
+        assertEquals(1, deadLetters.size());
+        assertEquals("c@gmail.com", deadLetters.get(0).request().getTo());
+        assertEquals(8, deadLetters.get(0).attempts());
+        reopened.close();
+    }
+
+    @Test
+    void testLineCutShortByACrashIsSkipped() throws Exception {
+        EmailJournal journal = journal(10000);
+        journal.enqueued("first", request("a@gmail.com"), 1000);
+        journal.close();
+        Files.writeString(directory.resolve(EmailJournal.JOURNAL_FILE), "{\"type\":\"ENQUEUED\",\"jobId\":\"torn",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        EmailJournal reopened = journal(10000);
+        reopened.enqueued("second", request("b@gmail.com"), 1000);
+        reopened.close();
+
+        assertEquals(List.of("first", "second"), journal(10000).getPending().stream().map(EmailJournal.Entry::jobId).toList());
+    }
+
+    @Test
+    void testJournalIsCompactedToPendingEmails() throws Exception {
+        EmailJournal journal = journal(10);
+        for (int i = 0; i < 20; i++) {
+            journal.enqueued("job-" + i, request("customer" + i + "@gmail.com"), 1000);
+            if (i != 7) {
+                journal.sent("job-" + i);
+            }
+        }
+        journal.close();
+
+        List<String> lines = Files.readAllLines(directory.resolve(EmailJournal.JOURNAL_FILE));
+        assertTrue(lines.size() < 10, "Journal was not compacted: " + lines.size() + " lines");
+        assertEquals(List.of("job-7"), journal(10).getPending().stream().map(EmailJournal.Entry::jobId).toList());
+    }
+
+    @Test
+    void testRemovedDeadLetterStaysRemoved() throws Exception {
+        EmailJournal journal = journal(10000);
+        journal.enqueued("dead", request("a@gmail.com"), 1000);
+        journal.dead("dead", 1, "Template not found");
+
+        assertEquals("a@gmail.com", journal.removeDeadLetter("dead").request().getTo());
+        journal.close();
+
+        assertTrue(journal(10000).getDeadLetters().isEmpty());
+    }
+
+    private EmailJournal journal(int compactAfter) {
+        return new EmailJournal(new ObjectMapper(), directory, false, compactAfter);
+    }
+
+    private static EmailRequest request(String to) {
+        return EmailRequest.builder()
+                .to(to)
+                .subject("Welcome to MyFin Bank!")
+                .templateName("welcome-email")
+                .variables(Map.of("customerName", "Asha"))
+                .build();
+    }
+}
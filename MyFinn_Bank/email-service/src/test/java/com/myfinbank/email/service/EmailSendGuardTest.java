@@ -0,0 +1,79 @@
+package com.myfinbank.email.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmailSendGuardTest {
+
+    private static final Set<String> RATE_LIMITED = Set.of("account-deactivated", "zero-balance-alert", "welcome-email");
+
+    @Test
+    void testRateLimitIsPerRecipientAndTemplate() {
+        EmailSendGuard guard = guard(2, Duration.ofHours(1));
+
+        assertTrue(guard.tryAcquire("asha@gmail.com", "account-deactivated"));
+        assertTrue(guard.tryAcquire("Asha@Gmail.com ", "account-deactivated"));
+        assertFalse(guard.tryAcquire("asha@gmail.com", "account-deactivated"));
+        assertTrue(guard.tryAcquire("asha@gmail.com", "welcome-email"));
+        assertTrue(guard.tryAcquire("tom@gmail.com", "account-deactivated"));
+        assertEquals(1, guard.getRateLimited());
+    }
+
+    @Test
+    void testUnlistedTemplateIsNeverLimited() {
+        EmailSendGuard guard = guard(1, Duration.ofHours(1));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(guard.tryAcquire("asha@gmail.com", "loan-approval"));
+        }
+        guard.release("asha@gmail.com", "loan-approval");
+        assertEquals(0, guard.getRateLimited());
+    }
+
+    @Test
+    void testWindowSlides() throws InterruptedException {
+        EmailSendGuard guard = guard(1, Duration.ofMillis(50));
+
+        assertTrue(guard.tryAcquire("asha@gmail.com", "zero-balance-alert"));
+        assertFalse(guard.tryAcquire("asha@gmail.com", "zero-balance-alert"));
+        Thread.sleep(80);
+        assertTrue(guard.tryAcquire("asha@gmail.com", "zero-balance-alert"));
+    }
+
+    @Test
+    void testReleasedSendCanBeTakenAgain() {
+        EmailSendGuard guard = guard(1, Duration.ofHours(1));
+
+        assertTrue(guard.tryAcquire("asha@gmail.com", "zero-balance-alert"));
+        guard.release("asha@gmail.com", "zero-balance-alert");
+        assertTrue(guard.tryAcquire("asha@gmail.com", "zero-balance-alert"));
+    }
+
+    @Test
+    void testIdempotencyKeysExpireAndAreBounded() throws InterruptedException {
+        EmailSendGuard guard = new EmailSendGuard(true, 3, Duration.ofHours(1), RATE_LIMITED, 1000, 2, Duration.ofMillis(50));
+
+        assertNull(guard.claimIdempotencyKey("outbox-1", "job-1"));
+        assertEquals("job-1", guard.claimIdempotencyKey("outbox-1", "job-2"));
+        assertEquals(1, guard.getDuplicates());
+
+        // Only the two newest keys are kept
+        assertNull(guard.claimIdempotencyKey("outbox-2", "job-3"));
+        assertNull(guard.claimIdempotencyKey("outbox-3", "job-4"));
+        assertNull(guard.claimIdempotencyKey("outbox-1", "job-5"));
+
+        Thread.sleep(80);
+        assertNull(guard.claimIdempotencyKey("outbox-3", "job-6"));
+    }
+
+    private static EmailSendGuard guard(int maxPerWindow, Duration window) {
+        return new EmailSendGuard(true, maxPerWindow, window, RATE_LIMITED, 1000, 1000, Duration.ofHours(24));
+    }
+}
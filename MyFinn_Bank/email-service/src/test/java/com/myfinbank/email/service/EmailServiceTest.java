@@ -1,13 +1,38 @@
 package com.myfinbank.email.service;
 
+import com.myfinbank.email.dto.EmailRequest;
+import com.myfinbank.email.dto.EmailSendResult;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class EmailServiceTest {
@@ -56,4 +81,86 @@ class EmailServiceTest {
         String result = emailService.maskAccountNumber("");
         assertEquals("****", result);
     }
+
+    @Test
+    void testSendBatch_SendsValidEmailsInChunksOfOneSessionEach() {
+        EmailService service = batchService(50);
+        List<EmailRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            requests.add(request("customer" + i + "@gmail.com"));
+        }
+
+        List<EmailSendResult> results = service.sendBatch(requests);
+
+        ArgumentCaptor<MimeMessage[]> chunks = ArgumentCaptor.forClass(MimeMessage[].class);
+        verify(mailSender, times(3)).send(chunks.capture());
+        assertEquals(List.of(50, 50, 20), chunks.getAllValues().stream().map(chunk -> chunk.length).toList());
+        assertEquals(120, results.size());
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == EmailSendResult.Status.SENT));
+        assertEquals("customer119@gmail.com", results.get(119).getTo());
+    }
+
+    @Test
+    void testSendBatch_ReportsInvalidRequestsWithoutSendingThem() {
+        EmailService service = batchService(50);
+        EmailRequest badAddress = request("not-an-email");
+
+        List<EmailSendResult> results = service.sendBatch(Arrays.asList(request("a@gmail.com"), badAddress, null));
+
+        assertEquals(EmailSendResult.Status.SENT, results.get(0).getStatus());
+        assertNull(results.get(0).getError());
+        assertEquals(EmailSendResult.Status.INVALID, results.get(1).getStatus());
+        assertEquals("to: Invalid email format", results.get(1).getError());
+        assertEquals(EmailSendResult.Status.INVALID, results.get(2).getStatus());
+        verify(templateService, times(1)).processTemplate(anyString(), anyMap());
+    }
+
+    @Test
+    void testSendBatch_OnlyMessagesRejectedByTheServerFail() {
+        EmailService service = batchService(50);
+        doAnswer(invocation -> {
+            Object[] chunk = invocation.getRawArguments();
+            Map<Object, Exception> failed = new LinkedHashMap<>();
+            failed.put(((MimeMessage[]) chunk[0])[1], new Exception("550 Mailbox unavailable"));
+            throw new MailSendException(failed);
+        }).when(mailSender).send(any(MimeMessage[].class));
+
+        List<EmailSendResult> results = service.sendBatch(List.of(
+                request("a@gmail.com"), request("b@gmail.com"), request("c@gmail.com")));
+
+        assertEquals(List.of(EmailSendResult.Status.SENT, EmailSendResult.Status.FAILED, EmailSendResult.Status.SENT),
+                results.stream().map(EmailSendResult::getStatus).toList());
+        assertEquals("550 Mailbox unavailable", results.get(1).getError());
+    }
+
+    @Test
+    void testSendBatch_LoginFailureFailsTheWholeChunk() {
+        EmailService service = batchService(50);
+        doThrow(new MailAuthenticationException("535 Authentication failed"))
+                .when(mailSender).send(any(MimeMessage[].class));
+
+        List<EmailSendResult> results = service.sendBatch(List.of(request("a@gmail.com"), request("b@gmail.com")));
+
+        assertTrue(results.stream().allMatch(r -> r.getStatus() == EmailSendResult.Status.FAILED));
+        assertEquals("535 Authentication failed", results.get(1).getError());
+    }
+
+    private EmailService batchService(int chunkSize) {
+        EmailService service = new EmailService(mailSender, templateService,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(service, "fromEmail", "noreply@myfinbank.com");
+        ReflectionTestUtils.setField(service, "batchChunkSize", chunkSize);
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+        when(templateService.processTemplate(anyString(), anyMap())).thenReturn("<p>Hello</p>");
+        return service;
+    }
+
+    private EmailRequest request(String to) {
+        return EmailRequest.builder()
+                .to(to)
+                .subject("Welcome to MyFin Bank!")
+                .templateName("welcome-email")
+                .variables(Map.of("customerName", "Rajesh Kumar"))
+                .build();
+    }
 }
@@ -0,0 +1,98 @@
+package com.myfinbank.email.service;
+
+import com.myfinbank.email.dto.TemplateRenderStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Layout renders are compared with what Thymeleaf itself produces for the same variables
+class TemplateServiceTest {
+
+    private SpringTemplateEngine templateEngine;
+    private TemplateService templateService;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        templateService = new TemplateService(templateEngine, new DefaultResourceLoader(), true, 100, Duration.ofHours(1));
+        templateService.precompileTemplates();
+    }
+
+    @Test
+    void testLayoutRenderMatchesFullRender() {
+        Map<String, Object> first = Map.of("customerName", "Asha Rao", "accountNumber", "****4821");
+        Map<String, Object> second = Map.of("customerName", "Tom <\"&'> Smith", "accountNumber", "****0007");
+
+        assertEquals(renderWithoutCache("zero-balance-alert", first), templateService.processTemplate("zero-balance-alert", first));
+        assertEquals(renderWithoutCache("zero-balance-alert", second), templateService.processTemplate("zero-balance-alert", second));
+
+        TemplateRenderStats stats = stats("zero-balance-alert");
+        assertEquals(2, stats.getRenders());
+        assertEquals(2, stats.getLayoutRenders());
+        assertEquals(0, stats.getFullRenders());
+    }
+
+    @Test
+    void testMissingVariableRendersEmptyLikeThymeleaf() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("customerName", null);
+        variables.put("accountNumber", 12345L);
+
+        assertEquals(renderWithoutCache("zero-balance-alert", variables), templateService.processTemplate("zero-balance-alert", variables));
+    }
+
+    @Test
+    void testTemplateUsingVariablesInConditionsIsRenderedInFull() {
+        Map<String, Object> overdue = Map.of("customerName", "Asha", "overdue", true);
+        Map<String, Object> onTime = Map.of("customerName", "Asha", "overdue", false);
+
+        String overdueHtml = templateService.processTemplate("conditional-test", overdue);
+        String onTimeHtml = templateService.processTemplate("conditional-test", onTime);
+
+        assertTrue(overdueHtml.contains("Your payment is overdue."));
+        assertFalse(onTimeHtml.contains("Your payment is overdue."));
+        assertEquals(2, stats("conditional-test").getFullRenders());
+    }
+
+    @Test
+    void testDisabledCacheAlwaysRendersInFull() {
+        TemplateService uncached = new TemplateService(templateEngine, new DefaultResourceLoader(), false, 100, Duration.ofHours(1));
+        Map<String, Object> variables = Map.of("customerName", "Asha", "accountNumber", "****4821");
+
+        assertEquals(renderWithoutCache("zero-balance-alert", variables), uncached.processTemplate("zero-balance-alert", variables));
+        assertEquals(0, uncached.getRenderStats().get(0).getLayoutRenders());
+    }
+
+    private String renderWithoutCache(String templateName, Map<String, Object> variables) {
+        Context context = new Context();
+        context.setVariables(variables);
+        return templateEngine.process(templateName, context);
+    }
+
+    private TemplateRenderStats stats(String templateName) {
+        return templateService.getRenderStats().stream()
+                .filter(s -> s.getTemplateName().equals(templateName))
+                .findFirst()
+                .orElseThrow();
+    }
+}